@@ -1,5 +1,10 @@
 package com.webank.wecube.platform.core.commons;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 @ConfigurationProperties(prefix = "wecube.core")
@@ -36,9 +41,14 @@ public class ApplicationProperties {
         private int requestTimeout = 30000;
         private int socketTimeout = 1200000;
         private int maxTotalConnections = 200;
+        private int defaultMaxConnectionsPerRoute = 200;
+        private Map<String, Integer> maxConnectionsPerRoute = new HashMap<>();
         private int poolSizeOfScheduler = 50;
         private int defaultKeepAliveTimeMillis = 1200000;
         private int closeIdleConnectionWaitTimeSecs = 30;
+        private int asyncIoThreadCount = 0;
+        private int asyncMaxTotalConnections = 2000;
+        private int asyncMaxConnectionsPerRoute = 2000;
 
         public int getConnectTimeout() {
             return connectTimeout;
@@ -96,6 +106,341 @@ public class ApplicationProperties {
             this.closeIdleConnectionWaitTimeSecs = closeIdleConnectionWaitTimeSecs;
         }
 
+        public int getDefaultMaxConnectionsPerRoute() {
+            return defaultMaxConnectionsPerRoute;
+        }
+
+        public void setDefaultMaxConnectionsPerRoute(int defaultMaxConnectionsPerRoute) {
+            this.defaultMaxConnectionsPerRoute = defaultMaxConnectionsPerRoute;
+        }
+
+        /**
+         * Overrides of the per route limit, keyed by {@code host:port} of the
+         * gateway or of a plugin instance called directly.
+         */
+        public Map<String, Integer> getMaxConnectionsPerRoute() {
+            return maxConnectionsPerRoute;
+        }
+
+        public void setMaxConnectionsPerRoute(Map<String, Integer> maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        }
+
+        public int getAsyncIoThreadCount() {
+            return asyncIoThreadCount;
+        }
+
+        public void setAsyncIoThreadCount(int asyncIoThreadCount) {
+            this.asyncIoThreadCount = asyncIoThreadCount;
+        }
+
+        public int getAsyncMaxTotalConnections() {
+            return asyncMaxTotalConnections;
+        }
+
+        public void setAsyncMaxTotalConnections(int asyncMaxTotalConnections) {
+            this.asyncMaxTotalConnections = asyncMaxTotalConnections;
+        }
+
+        public int getAsyncMaxConnectionsPerRoute() {
+            return asyncMaxConnectionsPerRoute;
+        }
+
+        public void setAsyncMaxConnectionsPerRoute(int asyncMaxConnectionsPerRoute) {
+            this.asyncMaxConnectionsPerRoute = asyncMaxConnectionsPerRoute;
+        }
+
+    }
+
+    @ConfigurationProperties(prefix = "wecube.core.plugin-invocation")
+    public class PluginInvocationProperties {
+        private int corePoolSize = 20;
+        private int maxPoolSize = 200;
+        private int queueCapacity = 1000;
+        private int keepAliveSeconds = 60;
+        private int defaultMaxConcurrencyPerPackage = 50;
+        private int acquirePermitTimeoutSecs = 600;
+        private int paramBatchSize = 500;
+        private boolean asyncEnabled = true;
+        private int callbackPoolSize = 20;
+        private int procDefCacheExpireSeconds = 600;
+        private long procInstCreationMaxWaitMillis = 10000;
+        private long procInstCreationPollMillis = 500;
+        private String instanceSelectionStrategy = "round-robin";
+        private long instanceRefreshIntervalMillis = 10000;
+        private Map<String, Integer> instanceWeights = new HashMap<>();
+        private boolean batchExecutionParallelEnabled = true;
+        private int batchExecutionConcurrency = 10;
+        private int batchExecutionPoolSize = 50;
+        private int batchExecutionStatusRetentionSeconds = 3600;
+        private int batchExecutionTimeoutSeconds = 1800;
+        private Map<String, Integer> maxConcurrencyPerPackage = new HashMap<>();
+
+        public int getCorePoolSize() {
+            return corePoolSize;
+        }
+
+        public void setCorePoolSize(int corePoolSize) {
+            this.corePoolSize = corePoolSize;
+        }
+
+        public int getMaxPoolSize() {
+            return maxPoolSize;
+        }
+
+        public void setMaxPoolSize(int maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getKeepAliveSeconds() {
+            return keepAliveSeconds;
+        }
+
+        public void setKeepAliveSeconds(int keepAliveSeconds) {
+            this.keepAliveSeconds = keepAliveSeconds;
+        }
+
+        public int getDefaultMaxConcurrencyPerPackage() {
+            return defaultMaxConcurrencyPerPackage;
+        }
+
+        public void setDefaultMaxConcurrencyPerPackage(int defaultMaxConcurrencyPerPackage) {
+            this.defaultMaxConcurrencyPerPackage = defaultMaxConcurrencyPerPackage;
+        }
+
+        public int getAcquirePermitTimeoutSecs() {
+            return acquirePermitTimeoutSecs;
+        }
+
+        public void setAcquirePermitTimeoutSecs(int acquirePermitTimeoutSecs) {
+            this.acquirePermitTimeoutSecs = acquirePermitTimeoutSecs;
+        }
+
+        public int getParamBatchSize() {
+            return paramBatchSize;
+        }
+
+        public void setParamBatchSize(int paramBatchSize) {
+            this.paramBatchSize = paramBatchSize;
+        }
+
+        public boolean isAsyncEnabled() {
+            return asyncEnabled;
+        }
+
+        public void setAsyncEnabled(boolean asyncEnabled) {
+            this.asyncEnabled = asyncEnabled;
+        }
+
+        public int getCallbackPoolSize() {
+            return callbackPoolSize;
+        }
+
+        public void setCallbackPoolSize(int callbackPoolSize) {
+            this.callbackPoolSize = callbackPoolSize;
+        }
+
+        public int getProcDefCacheExpireSeconds() {
+            return procDefCacheExpireSeconds;
+        }
+
+        public void setProcDefCacheExpireSeconds(int procDefCacheExpireSeconds) {
+            this.procDefCacheExpireSeconds = procDefCacheExpireSeconds;
+        }
+
+        public long getProcInstCreationMaxWaitMillis() {
+            return procInstCreationMaxWaitMillis;
+        }
+
+        public void setProcInstCreationMaxWaitMillis(long procInstCreationMaxWaitMillis) {
+            this.procInstCreationMaxWaitMillis = procInstCreationMaxWaitMillis;
+        }
+
+        public long getProcInstCreationPollMillis() {
+            return procInstCreationPollMillis;
+        }
+
+        public void setProcInstCreationPollMillis(long procInstCreationPollMillis) {
+            this.procInstCreationPollMillis = procInstCreationPollMillis;
+        }
+
+        public String getInstanceSelectionStrategy() {
+            return instanceSelectionStrategy;
+        }
+
+        public void setInstanceSelectionStrategy(String instanceSelectionStrategy) {
+            this.instanceSelectionStrategy = instanceSelectionStrategy;
+        }
+
+        public long getInstanceRefreshIntervalMillis() {
+            return instanceRefreshIntervalMillis;
+        }
+
+        public void setInstanceRefreshIntervalMillis(long instanceRefreshIntervalMillis) {
+            this.instanceRefreshIntervalMillis = instanceRefreshIntervalMillis;
+        }
+
+        public Map<String, Integer> getInstanceWeights() {
+            return instanceWeights;
+        }
+
+        public void setInstanceWeights(Map<String, Integer> instanceWeights) {
+            this.instanceWeights = instanceWeights;
+        }
+
+        public boolean isBatchExecutionParallelEnabled() {
+            return batchExecutionParallelEnabled;
+        }
+
+        public void setBatchExecutionParallelEnabled(boolean batchExecutionParallelEnabled) {
+            this.batchExecutionParallelEnabled = batchExecutionParallelEnabled;
+        }
+
+        public int getBatchExecutionConcurrency() {
+            return batchExecutionConcurrency;
+        }
+
+        public void setBatchExecutionConcurrency(int batchExecutionConcurrency) {
+            this.batchExecutionConcurrency = batchExecutionConcurrency;
+        }
+
+        public int getBatchExecutionPoolSize() {
+            return batchExecutionPoolSize;
+        }
+
+        public void setBatchExecutionPoolSize(int batchExecutionPoolSize) {
+            this.batchExecutionPoolSize = batchExecutionPoolSize;
+        }
+
+        public int getBatchExecutionStatusRetentionSeconds() {
+            return batchExecutionStatusRetentionSeconds;
+        }
+
+        public void setBatchExecutionStatusRetentionSeconds(int batchExecutionStatusRetentionSeconds) {
+            this.batchExecutionStatusRetentionSeconds = batchExecutionStatusRetentionSeconds;
+        }
+
+        public int getBatchExecutionTimeoutSeconds() {
+            return batchExecutionTimeoutSeconds;
+        }
+
+        public void setBatchExecutionTimeoutSeconds(int batchExecutionTimeoutSeconds) {
+            this.batchExecutionTimeoutSeconds = batchExecutionTimeoutSeconds;
+        }
+
+        public Map<String, Integer> getMaxConcurrencyPerPackage() {
+            return maxConcurrencyPerPackage;
+        }
+
+        public void setMaxConcurrencyPerPackage(Map<String, Integer> maxConcurrencyPerPackage) {
+            this.maxConcurrencyPerPackage = maxConcurrencyPerPackage;
+        }
+
+        public int getMaxConcurrencyOfPackage(String packageName) {
+            Integer maxConcurrency = null;
+            if (packageName != null && maxConcurrencyPerPackage != null) {
+                maxConcurrency = maxConcurrencyPerPackage.get(packageName);
+            }
+
+            if (maxConcurrency == null || maxConcurrency <= 0) {
+                return defaultMaxConcurrencyPerPackage;
+            }
+
+            return maxConcurrency;
+        }
+    }
+
+    @ConfigurationProperties(prefix = "wecube.core.entity-operation")
+    public class EntityOperationProperties {
+        private int queryBatchSize = 100;
+        private boolean parallelQueryEnabled = false;
+        private int queryPoolSize = 50;
+        private int maxConcurrencyPerPackage = 10;
+        private int queryCacheTtlSeconds = 0;
+        private int queryCacheMaxSize = 10000;
+        private double requestLogSampleRate = 0.1D;
+        private int requestLogMaxPayloadLength = 4096;
+        private List<String> directRoutePackages = new ArrayList<>();
+
+        public int getQueryBatchSize() {
+            return queryBatchSize;
+        }
+
+        public void setQueryBatchSize(int queryBatchSize) {
+            this.queryBatchSize = queryBatchSize;
+        }
+
+        public boolean isParallelQueryEnabled() {
+            return parallelQueryEnabled;
+        }
+
+        public void setParallelQueryEnabled(boolean parallelQueryEnabled) {
+            this.parallelQueryEnabled = parallelQueryEnabled;
+        }
+
+        public int getQueryPoolSize() {
+            return queryPoolSize;
+        }
+
+        public void setQueryPoolSize(int queryPoolSize) {
+            this.queryPoolSize = queryPoolSize;
+        }
+
+        public int getMaxConcurrencyPerPackage() {
+            return maxConcurrencyPerPackage;
+        }
+
+        public void setMaxConcurrencyPerPackage(int maxConcurrencyPerPackage) {
+            this.maxConcurrencyPerPackage = maxConcurrencyPerPackage;
+        }
+
+        public int getQueryCacheTtlSeconds() {
+            return queryCacheTtlSeconds;
+        }
+
+        public void setQueryCacheTtlSeconds(int queryCacheTtlSeconds) {
+            this.queryCacheTtlSeconds = queryCacheTtlSeconds;
+        }
+
+        public int getQueryCacheMaxSize() {
+            return queryCacheMaxSize;
+        }
+
+        public void setQueryCacheMaxSize(int queryCacheMaxSize) {
+            this.queryCacheMaxSize = queryCacheMaxSize;
+        }
+
+        public double getRequestLogSampleRate() {
+            return requestLogSampleRate;
+        }
+
+        public void setRequestLogSampleRate(double requestLogSampleRate) {
+            this.requestLogSampleRate = requestLogSampleRate;
+        }
+
+        public int getRequestLogMaxPayloadLength() {
+            return requestLogMaxPayloadLength;
+        }
+
+        public void setRequestLogMaxPayloadLength(int requestLogMaxPayloadLength) {
+            this.requestLogMaxPayloadLength = requestLogMaxPayloadLength;
+        }
+
+        public List<String> getDirectRoutePackages() {
+            return directRoutePackages;
+        }
+
+        public void setDirectRoutePackages(List<String> directRoutePackages) {
+            this.directRoutePackages = directRoutePackages;
+        }
     }
 
     @ConfigurationProperties(prefix = "wecube.core.plugin")
@@ -5,15 +5,22 @@ import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+import org.apache.commons.lang3.StringUtils;
 
 import org.apache.http.HeaderElement;
 import org.apache.http.HeaderElementIterator;
+import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
 import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
@@ -21,13 +28,22 @@ import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
 import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.apache.http.pool.ConnPoolControl;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.protocol.HTTP;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.ssl.SSLContextBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.boot.web.client.RestTemplateCustomizer;
 import org.springframework.context.annotation.Bean;
@@ -50,15 +66,23 @@ import com.webank.wecube.platform.auth.client.http.configuration.EnableJwtSsoCli
 import com.webank.wecube.platform.core.commons.ApplicationProperties.HttpClientProperties;
 import com.webank.wecube.platform.core.http.UserJwtSsoTokenRestTemplate;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
 @Configuration
 @EnableScheduling
 @EnableJwtSsoClient
 public class HttpClientConfig {
     private static final Logger log = LoggerFactory.getLogger(HttpClientConfig.class);
 
+    private static final String POOL_METRIC_PREFIX = "wecube.httpclient.pool";
+
     @Autowired
     private HttpClientProperties httpClientProperties;
-    
+
+    private volatile PoolingNHttpClientConnectionManager pluginAsyncConnectionManager;
+
 
     @Bean
     public PoolingHttpClientConnectionManager poolingConnectionManager() {
@@ -82,9 +106,39 @@ public class HttpClientConfig {
         PoolingHttpClientConnectionManager poolingConnectionManager = new PoolingHttpClientConnectionManager(
                 socketFactoryRegistry);
         poolingConnectionManager.setMaxTotal(httpClientProperties.getMaxTotalConnections());
+        // all plugin calls go through a single gateway route, the default of
+        // two connections per route would serialize them
+        poolingConnectionManager.setDefaultMaxPerRoute(httpClientProperties.getDefaultMaxConnectionsPerRoute());
+        for (Map.Entry<HttpRoute, Integer> routeLimit : parseMaxConnectionsPerRoute().entrySet()) {
+            poolingConnectionManager.setMaxPerRoute(routeLimit.getKey(), routeLimit.getValue());
+        }
         return poolingConnectionManager;
     }
 
+    private Map<HttpRoute, Integer> parseMaxConnectionsPerRoute() {
+        Map<HttpRoute, Integer> routeLimits = new HashMap<>();
+        Map<String, Integer> configuredLimits = httpClientProperties.getMaxConnectionsPerRoute();
+        if (configuredLimits == null) {
+            return routeLimits;
+        }
+
+        for (Map.Entry<String, Integer> entry : configuredLimits.entrySet()) {
+            if (StringUtils.isBlank(entry.getKey()) || entry.getValue() == null || entry.getValue() <= 0) {
+                continue;
+            }
+
+            try {
+                HttpHost host = HttpHost.create(entry.getKey().trim());
+                routeLimits.put(new HttpRoute(host), entry.getValue());
+                log.info("max connections of route {} is {}", host, entry.getValue());
+            } catch (IllegalArgumentException e) {
+                log.error("invalid route {} of max connections", entry.getKey(), e);
+            }
+        }
+
+        return routeLimits;
+    }
+
     @Bean
     public ConnectionKeepAliveStrategy connectionKeepAliveStrategy() {
         return new ConnectionKeepAliveStrategy() {
@@ -118,6 +172,84 @@ public class HttpClientConfig {
                 .build();
     }
 
+    /**
+     * Non-blocking client for plugin invocations, a handful of I/O reactor
+     * threads serve all in-flight requests no matter how long plugins take to
+     * respond.
+     */
+    @Bean(name = "pluginAsyncHttpClient", destroyMethod = "close")
+    public CloseableHttpAsyncClient pluginAsyncHttpClient() throws IOReactorException {
+        int ioThreadCount = httpClientProperties.getAsyncIoThreadCount();
+        if (ioThreadCount <= 0) {
+            ioThreadCount = Runtime.getRuntime().availableProcessors();
+        }
+
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom().setIoThreadCount(ioThreadCount)
+                .setConnectTimeout(httpClientProperties.getConnectTimeout())
+                .setSoTimeout(httpClientProperties.getSocketTimeout()).setSoKeepAlive(true).build();
+
+        PoolingNHttpClientConnectionManager asyncConnectionManager = new PoolingNHttpClientConnectionManager(
+                new DefaultConnectingIOReactor(ioReactorConfig));
+        asyncConnectionManager.setMaxTotal(httpClientProperties.getAsyncMaxTotalConnections());
+        asyncConnectionManager.setDefaultMaxPerRoute(httpClientProperties.getAsyncMaxConnectionsPerRoute());
+        for (Map.Entry<HttpRoute, Integer> routeLimit : parseMaxConnectionsPerRoute().entrySet()) {
+            asyncConnectionManager.setMaxPerRoute(routeLimit.getKey(), routeLimit.getValue());
+        }
+        this.pluginAsyncConnectionManager = asyncConnectionManager;
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(httpClientProperties.getRequestTimeout())
+                .setConnectTimeout(httpClientProperties.getConnectTimeout())
+                .setSocketTimeout(httpClientProperties.getSocketTimeout()).build();
+
+        CloseableHttpAsyncClient asyncHttpClient = HttpAsyncClients.custom().setDefaultRequestConfig(requestConfig)
+                .setConnectionManager(asyncConnectionManager).setKeepAliveStrategy(connectionKeepAliveStrategy())
+                .build();
+        asyncHttpClient.start();
+
+        log.info("plugin async http client started with {} io threads", ioThreadCount);
+        return asyncHttpClient;
+    }
+
+    /**
+     * Exposes leased, pending, available and max connections of both pools
+     * as {@code wecube.httpclient.pool.*} gauges.
+     */
+    @Bean
+    public MeterBinder httpClientPoolMetrics(final PoolingHttpClientConnectionManager connectionManager,
+            @Qualifier("pluginAsyncHttpClient") final CloseableHttpAsyncClient pluginAsyncHttpClient) {
+        return new MeterBinder() {
+            @Override
+            public void bindTo(MeterRegistry registry) {
+                bindPoolStats(registry, "blocking", connectionManager);
+                bindPoolStats(registry, "async", pluginAsyncConnectionManager);
+            }
+        };
+    }
+
+    /**
+     * Gauges only hold their state weakly, the connection manager is used as
+     * state since it lives as long as its client.
+     */
+    private void bindPoolStats(MeterRegistry registry, String poolName, ConnPoolControl<HttpRoute> pool) {
+        if (pool == null) {
+            return;
+        }
+
+        Gauge.builder(POOL_METRIC_PREFIX + ".leased", pool, p -> poolStatsValue(p, PoolStats::getLeased))
+                .tag("pool", poolName).description("connections currently leased").register(registry);
+        Gauge.builder(POOL_METRIC_PREFIX + ".pending", pool, p -> poolStatsValue(p, PoolStats::getPending))
+                .tag("pool", poolName).description("requests waiting for a connection").register(registry);
+        Gauge.builder(POOL_METRIC_PREFIX + ".available", pool, p -> poolStatsValue(p, PoolStats::getAvailable))
+                .tag("pool", poolName).description("idle connections kept alive").register(registry);
+        Gauge.builder(POOL_METRIC_PREFIX + ".max", pool, p -> poolStatsValue(p, PoolStats::getMax))
+                .tag("pool", poolName).description("max connections of the pool").register(registry);
+    }
+
+    private double poolStatsValue(ConnPoolControl<HttpRoute> pool, ToIntFunction<PoolStats> valueFunction) {
+        return valueFunction.applyAsInt(pool.getTotalStats());
+    }
+
     @Bean
     public Runnable idleConnectionMonitor(final PoolingHttpClientConnectionManager connectionManager) {
         return new Runnable() {
@@ -15,11 +15,13 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import com.ulisesbocchio.jasyptspringboot.annotation.EnableEncryptableProperties;
 import com.webank.wecube.platform.core.commons.ApplicationProperties;
 import com.webank.wecube.platform.core.commons.ApplicationProperties.HttpClientProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
 import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginProperties;
 import com.webank.wecube.platform.core.commons.ApplicationProperties.ResourceProperties;
 import com.webank.wecube.platform.core.commons.ApplicationProperties.S3Properties;
 import com.webank.wecube.platform.core.commons.ApplicationProperties.AppConfigProperties;
 import com.webank.wecube.platform.core.commons.ApplicationProperties.DockerRemoteProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.EntityOperationProperties;
 import com.webank.wecube.platform.workflow.EnablePlatformWorkflowApplication;
 
 @Configuration
@@ -27,10 +29,12 @@ import com.webank.wecube.platform.workflow.EnablePlatformWorkflowApplication;
         ApplicationProperties.class,
         HttpClientProperties.class,
         PluginProperties.class,
+        PluginInvocationProperties.class,
         S3Properties.class,
         ResourceProperties.class,
         DockerRemoteProperties.class,
-        AppConfigProperties.class
+        AppConfigProperties.class,
+        EntityOperationProperties.class
 })
 @ComponentScan({ "com.webank.wecube.platform.core.service" })
 @EntityScan(basePackages = { "com.webank.wecube.platform.core" })
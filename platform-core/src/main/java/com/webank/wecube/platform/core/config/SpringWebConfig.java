@@ -77,6 +77,7 @@ public class SpringWebConfig extends WebSecurityConfigurerAdapter implements Web
                 .antMatchers("/csrf").permitAll() //
                 .antMatchers("/v1/route-items").permitAll() //
                 .antMatchers("/v1/route-items/**").permitAll() //
+                .antMatchers("/v1/route-version").permitAll() //
                 .antMatchers("/v1/health-check").permitAll() //
                 .antMatchers("/v1/appinfo/loggers/query").permitAll() //
                 .antMatchers("/v1/appinfo/loggers/update").permitAll() //
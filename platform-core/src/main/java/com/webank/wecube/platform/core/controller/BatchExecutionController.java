@@ -25,4 +25,17 @@ public class BatchExecutionController {
         return okayWithData(batchExecutionService.handleBatchExecutionJob(batchExecutionRequest));
     }
 
+    @PostMapping("/batch-execution/submit")
+    @ResponseBody
+    public CommonResponseDto submitBatchExecution(@RequestBody BatchExecutionRequestDto batchExecutionRequest) {
+        return okayWithData(batchExecutionService.submitBatchExecutionJob(batchExecutionRequest));
+    }
+
+    @GetMapping("/batch-execution/{batch-execution-job-id}/status")
+    @ResponseBody
+    public CommonResponseDto getBatchExecutionStatus(
+            @PathVariable("batch-execution-job-id") String batchExecutionJobId) {
+        return okayWithData(batchExecutionService.getBatchExecutionJobStatus(batchExecutionJobId));
+    }
+
 }
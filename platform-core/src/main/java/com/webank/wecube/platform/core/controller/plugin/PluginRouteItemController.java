@@ -32,6 +32,11 @@ public class PluginRouteItemController {
         return CommonResponseDto.okayWithData(routeItems);
     }
 
+    @GetMapping("/route-version")
+    public CommonResponseDto getRouteVersion() {
+        return CommonResponseDto.okayWithData(pluginRouteItemService.getRouteVersion());
+    }
+
     @GetMapping("/route-items/{name}")
     public CommonResponseDto getPluginRouteItemsByName(@PathVariable("name") String name) {
         if(log.isDebugEnabled()){
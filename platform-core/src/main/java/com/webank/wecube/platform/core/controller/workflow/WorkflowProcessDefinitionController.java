@@ -39,6 +39,7 @@ import com.webank.wecube.platform.core.dto.workflow.ProcDefOutlineDto;
 import com.webank.wecube.platform.core.dto.workflow.ProcRoleRequestDto;
 import com.webank.wecube.platform.core.dto.workflow.ProcessDataPreviewDto;
 import com.webank.wecube.platform.core.dto.workflow.TaskNodeDefBriefDto;
+import com.webank.wecube.platform.core.service.dme.EntityDataPage;
 import com.webank.wecube.platform.core.service.workflow.ProcessRoleServiceImpl;
 import com.webank.wecube.platform.core.service.workflow.WorkflowDataService;
 import com.webank.wecube.platform.core.service.workflow.WorkflowProcDefMigrationService;
@@ -95,7 +96,13 @@ public class WorkflowProcessDefinitionController {
     }
 
     @GetMapping("/process/definitions/{proc-def-id}/root-entities")
-    public CommonResponseDto getProcessDefinitionRootEntities(@PathVariable("proc-def-id") String procDefId) {
+    public CommonResponseDto getProcessDefinitionRootEntities(@PathVariable("proc-def-id") String procDefId,
+            @RequestParam(name = "pageSize", required = false) Integer pageSize,
+            @RequestParam(name = "cursor", required = false) String cursor) {
+        if (pageSize != null) {
+            EntityDataPage page = workflowDataService.getProcessDefinitionRootEntities(procDefId, pageSize, cursor);
+            return CommonResponseDto.okayWithData(page);
+        }
 
         List<Map<String, Object>> result = workflowDataService.getProcessDefinitionRootEntities(procDefId);
         return CommonResponseDto.okayWithData(result);
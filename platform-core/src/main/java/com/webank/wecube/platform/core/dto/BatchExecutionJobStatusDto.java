@@ -0,0 +1,67 @@
+package com.webank.wecube.platform.core.dto;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class BatchExecutionJobStatusDto {
+    private String batchExecutionJobId;
+    private int totalJobs;
+    private int completedJobs;
+    private boolean completed;
+    private Map<String, ExecutionJobResponseDto> results = new HashMap<>();
+
+    public String getBatchExecutionJobId() {
+        return batchExecutionJobId;
+    }
+
+    public void setBatchExecutionJobId(String batchExecutionJobId) {
+        this.batchExecutionJobId = batchExecutionJobId;
+    }
+
+    public int getTotalJobs() {
+        return totalJobs;
+    }
+
+    public void setTotalJobs(int totalJobs) {
+        this.totalJobs = totalJobs;
+    }
+
+    public int getCompletedJobs() {
+        return completedJobs;
+    }
+
+    public void setCompletedJobs(int completedJobs) {
+        this.completedJobs = completedJobs;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    public Map<String, ExecutionJobResponseDto> getResults() {
+        return results;
+    }
+
+    public void setResults(Map<String, ExecutionJobResponseDto> results) {
+        this.results = results;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("BatchExecutionJobStatusDto [batchExecutionJobId=");
+        builder.append(batchExecutionJobId);
+        builder.append(", totalJobs=");
+        builder.append(totalJobs);
+        builder.append(", completedJobs=");
+        builder.append(completedJobs);
+        builder.append(", completed=");
+        builder.append(completed);
+        builder.append("]");
+        return builder.toString();
+    }
+}
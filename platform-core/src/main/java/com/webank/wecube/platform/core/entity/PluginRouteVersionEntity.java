@@ -0,0 +1,52 @@
+package com.webank.wecube.platform.core.entity;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Route version shared by all core nodes, increased on every plugin route
+ * change pushed to the gateway.
+ */
+@Entity
+@Table(name = "PLUGIN_ROUTE_VERSION")
+public class PluginRouteVersionEntity {
+    public static final String DEFAULT_ID = "default";
+
+    @Id
+    @Column(name = "ID")
+    private String id;
+
+    @Column(name = "VERSION")
+    private long version;
+
+    @Column(name = "UPDATED_TIME")
+    private Date updatedTime;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public Date getUpdatedTime() {
+        return updatedTime;
+    }
+
+    public void setUpdatedTime(Date updatedTime) {
+        this.updatedTime = updatedTime;
+    }
+}
@@ -1,8 +1,18 @@
 package com.webank.wecube.platform.core.jpa;
+import java.sql.Timestamp;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.webank.wecube.platform.core.domain.BatchExecutionJob;
 
 public interface BatchExecutionJobRepository extends  CrudRepository<BatchExecutionJob, String> {
 
-}
\ No newline at end of file
+    @Modifying
+    @Transactional
+    @Query("UPDATE BatchExecutionJob b SET b.completeTimestamp = :completeTimestamp WHERE b.id = :id")
+    int updateCompleteTimestamp(@Param("id") String id, @Param("completeTimestamp") Timestamp completeTimestamp);
+}
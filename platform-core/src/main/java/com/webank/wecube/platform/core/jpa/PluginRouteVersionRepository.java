@@ -0,0 +1,17 @@
+package com.webank.wecube.platform.core.jpa;
+
+import javax.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.webank.wecube.platform.core.entity.PluginRouteVersionEntity;
+
+public interface PluginRouteVersionRepository extends JpaRepository<PluginRouteVersionEntity, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select v from PluginRouteVersionEntity v where v.id = :id")
+    PluginRouteVersionEntity findForUpdate(@Param("id") String id);
+}
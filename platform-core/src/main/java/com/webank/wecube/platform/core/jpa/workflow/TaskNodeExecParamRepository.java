@@ -8,7 +8,8 @@ import org.springframework.data.repository.query.Param;
 
 import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecParamEntity;
 
-public interface TaskNodeExecParamRepository extends JpaRepository<TaskNodeExecParamEntity, Integer> {
+public interface TaskNodeExecParamRepository
+        extends JpaRepository<TaskNodeExecParamEntity, Integer>, TaskNodeExecParamRepositoryCustom {
 
     @Query("select t from TaskNodeExecParamEntity t "
             + " where t.requestId = :requestId and t.paramName = :paramName and t.paramType = :paramType")
@@ -0,0 +1,17 @@
+package com.webank.wecube.platform.core.jpa.workflow;
+
+import java.util.List;
+
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecParamEntity;
+
+public interface TaskNodeExecParamRepositoryCustom {
+
+    /**
+     * Inserts all parameter rows with JDBC batches instead of one flush per
+     * row. Generated identifiers are NOT populated back to the entities.
+     * 
+     * @param paramEntities
+     * @return count of inserted rows
+     */
+    int batchInsert(List<TaskNodeExecParamEntity> paramEntities);
+}
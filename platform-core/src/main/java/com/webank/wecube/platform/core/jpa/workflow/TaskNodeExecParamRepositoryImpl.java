@@ -0,0 +1,76 @@
+package com.webank.wecube.platform.core.jpa.workflow;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Date;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecParamEntity;
+
+/**
+ * 
+ * @author gavin
+ *
+ */
+public class TaskNodeExecParamRepositoryImpl implements TaskNodeExecParamRepositoryCustom {
+    private static final Logger log = LoggerFactory.getLogger(TaskNodeExecParamRepositoryImpl.class);
+
+    private static final String SQL_INSERT = "insert into core_ru_task_node_exec_param "
+            + "(created_by, created_time, updated_by, updated_time, obj_id, param_data_type, param_data_value, "
+            + "param_name, param_type, req_id, entity_data_id, entity_type_id, is_sensitive) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PluginInvocationProperties pluginInvocationProperties;
+
+    @Override
+    public int batchInsert(List<TaskNodeExecParamEntity> paramEntities) {
+        if (paramEntities == null || paramEntities.isEmpty()) {
+            return 0;
+        }
+
+        long startTime = System.currentTimeMillis();
+        int batchSize = Math.max(1, pluginInvocationProperties.getParamBatchSize());
+
+        int[][] results = jdbcTemplate.batchUpdate(SQL_INSERT, paramEntities, batchSize, (ps, e) -> {
+            ps.setString(1, e.getCreatedBy());
+            ps.setTimestamp(2, toTimestamp(e.getCreatedTime()));
+            ps.setString(3, e.getUpdatedBy());
+            ps.setTimestamp(4, toTimestamp(e.getUpdatedTime()));
+            ps.setString(5, e.getObjectId());
+            ps.setString(6, e.getParamDataType());
+            ps.setString(7, e.getParamDataValue());
+            ps.setString(8, e.getParamName());
+            ps.setString(9, e.getParamType());
+            ps.setString(10, e.getRequestId());
+            ps.setString(11, e.getEntityDataId());
+            ps.setString(12, e.getEntityTypeId());
+            if (e.getSensitive() == null) {
+                ps.setNull(13, Types.BIT);
+            } else {
+                ps.setBoolean(13, e.getSensitive());
+            }
+        });
+
+        if (log.isDebugEnabled()) {
+            log.debug("inserted {} task node parameters in {} batches within {} ms", paramEntities.size(),
+                    results.length, (System.currentTimeMillis() - startTime));
+        }
+
+        return paramEntities.size();
+    }
+
+    private Timestamp toTimestamp(Date date) {
+        return date == null ? null : new Timestamp(date.getTime());
+    }
+
+}
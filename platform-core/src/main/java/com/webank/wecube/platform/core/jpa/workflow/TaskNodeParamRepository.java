@@ -12,6 +12,8 @@ public interface TaskNodeParamRepository extends JpaRepository<TaskNodeParamEnti
 
     List<TaskNodeParamEntity> findAllByProcDefId(String procDefId);
 
+    List<TaskNodeParamEntity> findAllByTaskNodeDefId(String taskNodeDefId);
+
     @Query("select t from TaskNodeParamEntity t " + " where t.procDefId = :procDefId and t.status = :status ")
     List<TaskNodeParamEntity> findAllByProcDefIdAndStatus(@Param("procDefId") String procDefId,
             @Param("status") String status);
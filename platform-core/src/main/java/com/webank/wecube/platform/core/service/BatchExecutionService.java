@@ -17,7 +17,21 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -25,13 +39,17 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Lists;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
+import com.webank.wecube.platform.core.commons.AuthenticationContextHolder;
+import com.webank.wecube.platform.core.commons.AuthenticationContextHolder.AuthenticatedUser;
 import com.webank.wecube.platform.core.commons.WecubeCoreException;
 import com.webank.wecube.platform.core.domain.BatchExecutionJob;
 import com.webank.wecube.platform.core.domain.ExecutionJob;
@@ -40,14 +58,19 @@ import com.webank.wecube.platform.core.domain.SystemVariable;
 import com.webank.wecube.platform.core.domain.plugin.PluginConfigInterface;
 import com.webank.wecube.platform.core.domain.plugin.PluginConfigInterfaceParameter;
 import com.webank.wecube.platform.core.domain.plugin.PluginInstance;
+import com.webank.wecube.platform.core.dto.BatchExecutionJobStatusDto;
 import com.webank.wecube.platform.core.dto.BatchExecutionRequestDto;
 import com.webank.wecube.platform.core.dto.ExecutionJobResponseDto;
 import com.webank.wecube.platform.core.dto.InputParameterDefinition;
 import com.webank.wecube.platform.core.jpa.BatchExecutionJobRepository;
+import com.webank.wecube.platform.core.jpa.ExecutionJobRepository;
 import com.webank.wecube.platform.core.jpa.PluginConfigInterfaceRepository;
+import com.webank.wecube.platform.core.service.dme.EntityDataUpdateBatch;
 import com.webank.wecube.platform.core.service.dme.EntityOperationRootCondition;
+import com.webank.wecube.platform.core.service.dme.EntityQueryResultCache.EntityQueryScope;
 import com.webank.wecube.platform.core.service.dme.StandardEntityOperationService;
-import com.webank.wecube.platform.core.service.plugin.PluginInstanceService;
+import com.webank.wecube.platform.core.service.plugin.PluginInstanceRegistry;
+import com.webank.wecube.platform.core.service.plugin.PluginInstanceRegistry.PluginInstanceLease;
 import com.webank.wecube.platform.core.service.workflow.SimpleEncryptionService;
 import com.webank.wecube.platform.core.support.plugin.PluginServiceStub;
 import com.webank.wecube.platform.core.support.plugin.dto.PluginResponse.ResultData;
@@ -57,13 +80,15 @@ import com.webank.wecube.platform.core.utils.JsonUtils;
 
 @Service
 public class BatchExecutionService {
+    private static final String SUPER_ADMIN_ROLE = "SUPER_ADMIN";
+
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
     @Autowired
     private PluginServiceStub pluginServiceStub;
 
     @Autowired
-    protected PluginInstanceService pluginInstanceService;
+    protected PluginInstanceRegistry pluginInstanceRegistry;
 
     @Autowired
     private SystemVariableService systemVariableService;
@@ -81,51 +106,266 @@ public class BatchExecutionService {
     @Autowired
     private SimpleEncryptionService encryptionService;
 
+    @Autowired
+    private ExecutionJobRepository executionJobRepository;
+
+    @Autowired
+    private PluginInvocationProperties pluginInvocationProperties;
+
     private ObjectMapper objectMapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
 
-    @Transactional
+    private ThreadPoolExecutor batchExecutionExecutor;
+
+    private final Map<String, BatchExecutionProgress> batchExecutionProgresses = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void afterPropertiesSet() {
+        int poolSize = Math.max(1, pluginInvocationProperties.getBatchExecutionPoolSize());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new CustomizableThreadFactory("batch-execution-"));
+        executor.allowCoreThreadTimeOut(true);
+        this.batchExecutionExecutor = executor;
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        if (batchExecutionExecutor != null) {
+            batchExecutionExecutor.shutdownNow();
+        }
+    }
+
     public Map<String, ExecutionJobResponseDto> handleBatchExecutionJob(BatchExecutionRequestDto batchExecutionRequest)
             throws IOException {
+        BatchExecutionProgress progress = startBatchExecutionJob(batchExecutionRequest);
+        int timeoutSeconds = pluginInvocationProperties.getBatchExecutionTimeoutSeconds();
+        boolean completed;
+        try {
+            completed = progress.awaitCompletion(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WecubeCoreException("3320", String.format(
+                    "Interrupted while waiting for batch execution job [%s] to complete.", progress.getBatchExecutionJobId()),
+                    progress.getBatchExecutionJobId());
+        }
+        if (!completed) {
+            log.warn("batch execution job {} did not complete within {} seconds", progress.getBatchExecutionJobId(),
+                    timeoutSeconds);
+            throw new WecubeCoreException("3323", String.format(
+                    "Batch execution job [%s] did not complete within %s seconds, poll its status instead.",
+                    progress.getBatchExecutionJobId(), timeoutSeconds), progress.getBatchExecutionJobId(),
+                    timeoutSeconds);
+        }
+        return new HashMap<>(progress.getResults());
+    }
+
+    /**
+     * Starts the batch execution job and returns its id immediately, the
+     * progress could be polled by {@link #getBatchExecutionJobStatus(String)}.
+     */
+    public String submitBatchExecutionJob(BatchExecutionRequestDto batchExecutionRequest) {
+        return startBatchExecutionJob(batchExecutionRequest).getBatchExecutionJobId();
+    }
+
+    public BatchExecutionJobStatusDto getBatchExecutionJobStatus(String batchExecutionJobId) {
+        BatchExecutionProgress progress = batchExecutionProgresses.get(batchExecutionJobId);
+        if (progress != null) {
+            AuthenticatedUser creator = progress.getAuthenticatedUser();
+            verifyBatchExecutionJobOwner(batchExecutionJobId, creator == null ? null : creator.getUsername());
+            return progress.toStatusDto();
+        }
+
+        Optional<BatchExecutionJob> batchExeJobOpt = batchExecutionJobRepository.findById(batchExecutionJobId);
+        if (!batchExeJobOpt.isPresent()) {
+            throw new WecubeCoreException("3321",
+                    String.format("Batch execution job [%s] is not found.", batchExecutionJobId), batchExecutionJobId);
+        }
+
+        BatchExecutionJob batchExeJob = batchExeJobOpt.get();
+        verifyBatchExecutionJobOwner(batchExecutionJobId, batchExeJob.getCreator());
+        return buildBatchExecutionJobStatus(batchExeJob);
+    }
+
+    /**
+     * Only the creator of a batch execution job and super admins could see its
+     * results.
+     */
+    private void verifyBatchExecutionJobOwner(String batchExecutionJobId, String creator) {
+        String currentUsername = AuthenticationContextHolder.getCurrentUsername();
+        if (creator == null || creator.equals(currentUsername)) {
+            return;
+        }
+
+        Set<String> currentUserRoles = AuthenticationContextHolder.getCurrentUserRoles();
+        if (currentUserRoles != null && currentUserRoles.contains(SUPER_ADMIN_ROLE)) {
+            return;
+        }
+
+        log.warn("user {} is not allowed to access batch execution job {} created by {}", currentUsername,
+                batchExecutionJobId, creator);
+        throw new WecubeCoreException("3324",
+                String.format("Batch execution job [%s] is not accessible.", batchExecutionJobId),
+                batchExecutionJobId);
+    }
+
+    @Scheduled(fixedDelay = 60000L)
+    public void evictExpiredBatchExecutionProgresses() {
+        long expireTime = System.currentTimeMillis()
+                - TimeUnit.SECONDS.toMillis(pluginInvocationProperties.getBatchExecutionStatusRetentionSeconds());
+        batchExecutionProgresses.values().removeIf(p -> p.isCompletedBefore(expireTime));
+    }
+
+    private BatchExecutionProgress startBatchExecutionJob(BatchExecutionRequestDto batchExecutionRequest) {
         verifyParameters(batchExecutionRequest.getInputParameterDefinitions());
         BatchExecutionJob batchExeJob = saveToDb(batchExecutionRequest);
 
-        Map<String, ExecutionJobResponseDto> exeResults = new HashMap<>();
-        for (ExecutionJob exeJob : batchExeJob.getJobs()) {
-            ResultData<?> exeResult = null;
-            try {
-                exeResult = performExecutionJob(exeJob);
-                if (exeResult == null) {
-                    if (exeJob.getPrepareException() != null) {
-                        exeResult = buildResultDataWithError(exeJob.getPrepareException().getMessage());
-                        Object resultObject = exeResult.getOutputs().get(0);
-                        ExecutionJobResponseDto respDataObj = new ExecutionJobResponseDto(RESULT_CODE_ERROR,
-                                resultObject);
-                        exeResults.put(exeJob.getBusinessKey(), respDataObj);
-                    }
-                } else {
-                    Object resultObject = exeResult.getOutputs().get(0);
-                    String errorCode = exeJob.getErrorCode() == null ? RESULT_CODE_ERROR : exeJob.getErrorCode();
-                    ExecutionJobResponseDto respDataObj = new ExecutionJobResponseDto(errorCode, resultObject);
-                    exeResults.put(exeJob.getBusinessKey(), respDataObj);
-                }
-            } catch (Exception e) {
+        int concurrency = pluginInvocationProperties.isBatchExecutionParallelEnabled()
+                ? Math.max(1, pluginInvocationProperties.getBatchExecutionConcurrency()) : 1;
+        BatchExecutionProgress progress = new BatchExecutionProgress(batchExeJob,
+                AuthenticationContextHolder.getCurrentUser());
+        batchExecutionProgresses.put(progress.getBatchExecutionJobId(), progress);
+
+        log.info("start batch execution job {} with {} jobs and concurrency {}", progress.getBatchExecutionJobId(),
+                progress.getTotalJobs(), concurrency);
+        if (progress.getTotalJobs() == 0) {
+            postProcessBatchExecutionJob(progress);
+            return progress;
+        }
+
+        for (int i = 0; i < concurrency; i++) {
+            if (!dispatchNextExecutionJob(progress)) {
+                break;
+            }
+        }
+        return progress;
+    }
+
+    private boolean dispatchNextExecutionJob(BatchExecutionProgress progress) {
+        ExecutionJob exeJob = progress.pollPendingJob();
+        if (exeJob == null) {
+            return false;
+        }
+        try {
+            batchExecutionExecutor.execute(() -> runExecutionJob(progress, exeJob));
+        } catch (RejectedExecutionException e) {
+            log.error("batch execution job {} rejected", progress.getBatchExecutionJobId(), e);
+            completeExecutionJob(progress, exeJob, buildErrorResponse(e.getMessage()));
+        }
+        return true;
+    }
+
+    /**
+     * Prepares the job on a batch execution thread and leaves it while the
+     * plugin is called, the response is handled on a batch execution thread
+     * again, which then dispatches the next pending job.
+     */
+    private void runExecutionJob(BatchExecutionProgress progress, ExecutionJob exeJob) {
+        AuthenticationContextHolder.clearCurrentUser();
+        AuthenticationContextHolder.setAuthenticatedUser(progress.getAuthenticatedUser());
+        CompletableFuture<ExecutionJobResponseDto> respDataFuture;
+        try {
+            respDataFuture = executeSingleJob(exeJob);
+        } finally {
+            AuthenticationContextHolder.clearCurrentUser();
+        }
+
+        respDataFuture.whenComplete((respDataObj, e) -> {
+            if (e != null) {
+                log.error("errors while completing execution job {}", exeJob.getId(), e);
+            }
+            completeExecutionJob(progress, exeJob, respDataObj);
+            dispatchNextExecutionJob(progress);
+        });
+    }
+
+    private CompletableFuture<ExecutionJobResponseDto> executeSingleJob(ExecutionJob exeJob) {
+        exeJob.setExecuteTime(String.valueOf(new Timestamp(System.currentTimeMillis())));
+        CompletableFuture<ResultData<?>> exeResultFuture;
+        try {
+            exeResultFuture = performExecutionJob(exeJob);
+        } catch (Exception e) {
+            exeResultFuture = new CompletableFuture<>();
+            exeResultFuture.completeExceptionally(e);
+        }
+
+        return exeResultFuture.handle((exeResult, e) -> {
+            if (e != null) {
+                Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
                 log.error("errors to run execution job,{} {} {}, errorMsg:{} ", exeJob.getPackageName(),
-                        exeJob.getEntityName(), exeJob.getRootEntityId(), e.getMessage());
-                exeResult = buildResultDataWithError(e.getMessage());
-                Object resultObject = exeResult.getOutputs().get(0);
-                ExecutionJobResponseDto respDataObj = new ExecutionJobResponseDto(RESULT_CODE_ERROR, resultObject);
+                        exeJob.getEntityName(), exeJob.getRootEntityId(), cause.getMessage());
+                ExecutionJobResponseDto respDataObj = buildErrorResponse(cause.getMessage());
                 log.info("biz key:{}, respDataObj:{}", exeJob.getBusinessKey(), respDataObj);
-                exeResults.put(exeJob.getBusinessKey(), respDataObj);
+                return respDataObj;
             }
 
-        }
+            if (exeResult == null) {
+                if (exeJob.getPrepareException() != null) {
+                    return buildErrorResponse(exeJob.getPrepareException().getMessage());
+                }
+                return null;
+            }
 
+            Object resultObject = exeResult.getOutputs().get(0);
+            String errorCode = exeJob.getErrorCode() == null ? RESULT_CODE_ERROR : exeJob.getErrorCode();
+            return new ExecutionJobResponseDto(errorCode, resultObject);
+        });
+    }
+
+    private void completeExecutionJob(BatchExecutionProgress progress, ExecutionJob exeJob,
+            ExecutionJobResponseDto respDataObj) {
+        exeJob.setCompleteTime(String.valueOf(new Timestamp(System.currentTimeMillis())));
         try {
-            postProcessBatchExecutionJob(batchExeJob);
+            executionJobRepository.save(exeJob);
         } catch (Exception e) {
-            log.error("errors while post processing batch execution job", e);
+            log.error("errors while saving execution job {}", exeJob.getId(), e);
+        }
+
+        if (progress.completeJob(exeJob.getBusinessKey(), respDataObj)) {
+            postProcessBatchExecutionJob(progress);
         }
-        return exeResults;
+    }
+
+    private ExecutionJobResponseDto buildErrorResponse(String errorMessage) {
+        Object resultObject = buildResultDataWithError(errorMessage).getOutputs().get(0);
+        return new ExecutionJobResponseDto(RESULT_CODE_ERROR, resultObject);
+    }
+
+    private BatchExecutionJobStatusDto buildBatchExecutionJobStatus(BatchExecutionJob batchExeJob) {
+        BatchExecutionJobStatusDto statusDto = new BatchExecutionJobStatusDto();
+        statusDto.setBatchExecutionJobId(batchExeJob.getId());
+        List<ExecutionJob> exeJobs = batchExeJob.getJobs() == null ? new ArrayList<>() : batchExeJob.getJobs();
+        statusDto.setTotalJobs(exeJobs.size());
+
+        int completedJobs = 0;
+        for (ExecutionJob exeJob : exeJobs) {
+            if (exeJob.getCompleteTime() == null && batchExeJob.getCompleteTimestamp() == null) {
+                continue;
+            }
+            completedJobs++;
+            if (exeJob.getErrorCode() == null) {
+                continue;
+            }
+            Object resultObject = null;
+            if (StringUtils.isNotBlank(exeJob.getReturnJson())) {
+                try {
+                    ResultData<Object> resultData = objectMapper.readValue(exeJob.getReturnJson(),
+                            new TypeReference<ResultData<Object>>() {
+                            });
+                    if (resultData.getOutputs() != null && !resultData.getOutputs().isEmpty()) {
+                        resultObject = resultData.getOutputs().get(0);
+                    }
+                } catch (IOException e) {
+                    log.info("cannot read return json of execution job {}", exeJob.getId());
+                }
+            }
+            if (resultObject == null && RESULT_CODE_ERROR.equals(exeJob.getErrorCode())) {
+                resultObject = buildResultDataWithError(exeJob.getErrorMessage()).getOutputs().get(0);
+            }
+            statusDto.getResults().put(exeJob.getBusinessKey(),
+                    new ExecutionJobResponseDto(exeJob.getErrorCode(), resultObject));
+        }
+        statusDto.setCompletedJobs(completedJobs);
+        statusDto.setCompleted(batchExeJob.getCompleteTimestamp() != null);
+        return statusDto;
     }
 
     private void verifyParameters(List<InputParameterDefinition> inputParameterDefinitions) {
@@ -144,6 +384,7 @@ public class BatchExecutionService {
 
     private BatchExecutionJob saveToDb(BatchExecutionRequestDto batchExeRequest) {
         BatchExecutionJob batchExeJob = new BatchExecutionJob();
+        batchExeJob.setCreator(AuthenticationContextHolder.getCurrentUsername());
         List<ExecutionJob> exeJobs = new ArrayList<ExecutionJob>();
         batchExeRequest.getResourceDatas().forEach(resourceData -> {
 
@@ -164,9 +405,15 @@ public class BatchExecutionService {
         return batchExecutionJobRepository.save(batchExeJob);
     }
 
-    private void postProcessBatchExecutionJob(BatchExecutionJob batchExeJob) {
-        batchExeJob.setCompleteTimestamp(new Timestamp(System.currentTimeMillis()));
-        batchExecutionJobRepository.save(batchExeJob);
+    private void postProcessBatchExecutionJob(BatchExecutionProgress progress) {
+        try {
+            batchExecutionJobRepository.updateCompleteTimestamp(progress.getBatchExecutionJobId(),
+                    new Timestamp(System.currentTimeMillis()));
+        } catch (Exception e) {
+            log.error("errors while post processing batch execution job", e);
+        }
+        progress.markCompleted();
+        log.info("batch execution job {} completed", progress.getBatchExecutionJobId());
     }
 
     private List<ExecutionJobParameter> transFromInputParameterDefinitionToExecutionJobParameter(
@@ -222,7 +469,7 @@ public class BatchExecutionService {
         return encryptionService.decodeFromAesBase64(cipherValue);
     }
 
-    protected ResultData<?> performExecutionJob(ExecutionJob exeJob) throws IOException {
+    protected CompletableFuture<ResultData<?>> performExecutionJob(ExecutionJob exeJob) {
         if (exeJob == null) {
             throw new WecubeCoreException("3002", "execution job as input argument cannot be null.");
         }
@@ -239,12 +486,14 @@ public class BatchExecutionService {
             log.error(errorMessage);
             exeJob.setErrorWithMessage(errorMessage);
 
-            return buildResultDataWithError(errorMessage);
+            return CompletableFuture.completedFuture(buildResultDataWithError(errorMessage));
         }
 
         PluginConfigInterface pluginConfigInterface = pluginConfigInterfaceOptional.get();
 
-        tryPrepareInputParamValues(exeJob, pluginConfigInterface);
+        try (EntityQueryScope queryScope = standardEntityOperationService.openQueryScope()) {
+            tryPrepareInputParamValues(exeJob, pluginConfigInterface);
+        }
 
         if (exeJob.getPrepareException() != null) {
             log.error("Errors to calculate input parameters", exeJob.getPrepareException());
@@ -272,18 +521,59 @@ public class BatchExecutionService {
 
         pluginInputParamMap.put(CALLBACK_PARAMETER_KEY, exeJob.getRootEntityId());
 
-        PluginInstance pluginInstance = pluginInstanceService
-                .getRunningPluginInstance(pluginConfigInterface.getPluginConfig().getPluginPackage().getName());
-        ResultData<Object> responseData = new ResultData<Object>();
+        AuthenticatedUser authenticatedUser = AuthenticationContextHolder.getCurrentUser();
+        PluginInstanceLease pluginInstanceLease = pluginInstanceRegistry
+                .acquireInstance(pluginConfigInterface.getPluginConfig().getPluginPackage().getName());
+        PluginInstance pluginInstance = pluginInstanceLease.getPluginInstance();
+        CompletableFuture<ResultData<Object>> responseDataFuture = callPluginInterface(
+                String.format("%s:%s", pluginInstance.getHost(), pluginInstance.getPort()),
+                pluginConfigInterface.getPath(), Lists.newArrayList(pluginInputParamMap),
+                "RequestId-" + Long.toString(System.currentTimeMillis()));
+
+        // the response is handled off the http client I/O threads as it
+        // updates entities with blocking calls
+        return responseDataFuture.whenComplete((r, e) -> pluginInstanceLease.release())
+                .handleAsync((responseData, e) -> {
+                    AuthenticationContextHolder.clearCurrentUser();
+                    AuthenticationContextHolder.setAuthenticatedUser(authenticatedUser);
+                    try {
+                        return handlePluginResponse(exeJob, pluginConfigInterface, pluginInstance,
+                                pluginInputParamMap, responseData, e);
+                    } catch (IOException ex) {
+                        throw new CompletionException(ex);
+                    } finally {
+                        AuthenticationContextHolder.clearCurrentUser();
+                    }
+                }, batchExecutionExecutor);
+    }
+
+    private CompletableFuture<ResultData<Object>> callPluginInterface(String instanceAddress, String path,
+            List<Map<String, Object>> parameters, String requestId) {
+        if (pluginServiceStub.isAsyncSupported()) {
+            return pluginServiceStub.callPluginInterfaceAsync(instanceAddress, path, parameters, requestId);
+        }
+
+        CompletableFuture<ResultData<Object>> responseDataFuture = new CompletableFuture<>();
         try {
-            responseData = pluginServiceStub.callPluginInterface(
-                    String.format("%s:%s", pluginInstance.getHost(), pluginInstance.getPort()),
-                    pluginConfigInterface.getPath(), Lists.newArrayList(pluginInputParamMap),
-                    "RequestId-" + Long.toString(System.currentTimeMillis()));
-            
-            
-            handleResultData(responseData, exeJob);
+            responseDataFuture
+                    .complete(pluginServiceStub.callPluginInterface(instanceAddress, path, parameters, requestId));
         } catch (Exception e) {
+            responseDataFuture.completeExceptionally(e);
+        }
+        return responseDataFuture;
+    }
+
+    private ResultData<?> handlePluginResponse(ExecutionJob exeJob, PluginConfigInterface pluginConfigInterface,
+            PluginInstance pluginInstance, Map<String, Object> pluginInputParamMap, ResultData<Object> responseData,
+            Throwable failure) throws IOException {
+        try {
+            if (failure != null) {
+                throw (failure instanceof CompletionException && failure.getCause() != null) ? failure.getCause()
+                        : failure;
+            }
+
+            handleResultData(responseData, exeJob);
+        } catch (Throwable e) {
             log.error("errors while call plugin interface", e);
             exeJob.setErrorWithMessage(e.getMessage());
             return buildResultDataWithError(e.getMessage());
@@ -361,6 +651,7 @@ public class BatchExecutionService {
 
         Set<PluginConfigInterfaceParameter> outputParameters = pluginConfigInterf.getOutputParameters();
 
+        EntityDataUpdateBatch updateBatch = new EntityDataUpdateBatch();
         for (PluginConfigInterfaceParameter pciParam : outputParameters) {
             String paramName = pciParam.getName();
             String paramExpr = pciParam.getMappingEntityExpression();
@@ -383,14 +674,14 @@ public class BatchExecutionService {
             }
 
             EntityOperationRootCondition condition = new EntityOperationRootCondition(paramExpr, rootEntityId);
+            updateBatch.addUpdate(condition, retVal);
+        }
 
-            try {
-                this.standardEntityOperationService.update(condition, retVal, this.userJwtSsoTokenRestTemplate);
-            } catch (Exception e) {
-                log.error("Exceptions while updating entity.But still keep going to update.", e);
-                throw new WecubeCoreException(e.getMessage());
-            }
-
+        try {
+            this.standardEntityOperationService.update(updateBatch, this.userJwtSsoTokenRestTemplate);
+        } catch (Exception e) {
+            log.error("Exceptions while updating entity.But still keep going to update.", e);
+            throw new WecubeCoreException(e.getMessage());
         }
     }
 
@@ -499,4 +790,75 @@ public class BatchExecutionService {
             parameter.setValue(paramValue);
         }
     }
+
+    private static class BatchExecutionProgress {
+        private final String batchExecutionJobId;
+        private final int totalJobs;
+        private final AuthenticatedUser authenticatedUser;
+        private final Queue<ExecutionJob> pendingJobs;
+        private final Map<String, ExecutionJobResponseDto> results = new ConcurrentHashMap<>();
+        private final AtomicInteger completedJobs = new AtomicInteger(0);
+        private final CountDownLatch completionLatch = new CountDownLatch(1);
+        private volatile long completeTime = -1L;
+
+        BatchExecutionProgress(BatchExecutionJob batchExeJob, AuthenticatedUser authenticatedUser) {
+            this.batchExecutionJobId = batchExeJob.getId();
+            this.authenticatedUser = authenticatedUser;
+            this.pendingJobs = new ConcurrentLinkedQueue<>(batchExeJob.getJobs());
+            this.totalJobs = batchExeJob.getJobs().size();
+        }
+
+        String getBatchExecutionJobId() {
+            return batchExecutionJobId;
+        }
+
+        int getTotalJobs() {
+            return totalJobs;
+        }
+
+        AuthenticatedUser getAuthenticatedUser() {
+            return authenticatedUser;
+        }
+
+        Map<String, ExecutionJobResponseDto> getResults() {
+            return results;
+        }
+
+        ExecutionJob pollPendingJob() {
+            return pendingJobs.poll();
+        }
+
+        /**
+         * @return true if it is the last job of this batch.
+         */
+        boolean completeJob(String businessKey, ExecutionJobResponseDto respDataObj) {
+            if (respDataObj != null && businessKey != null) {
+                results.put(businessKey, respDataObj);
+            }
+            return completedJobs.incrementAndGet() == totalJobs;
+        }
+
+        void markCompleted() {
+            completeTime = System.currentTimeMillis();
+            completionLatch.countDown();
+        }
+
+        boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+            return completionLatch.await(timeout, unit);
+        }
+
+        boolean isCompletedBefore(long timestamp) {
+            return completeTime > 0 && completeTime < timestamp;
+        }
+
+        BatchExecutionJobStatusDto toStatusDto() {
+            BatchExecutionJobStatusDto statusDto = new BatchExecutionJobStatusDto();
+            statusDto.setBatchExecutionJobId(batchExecutionJobId);
+            statusDto.setTotalJobs(totalJobs);
+            statusDto.setCompletedJobs(completedJobs.get());
+            statusDto.setCompleted(completeTime > 0);
+            statusDto.setResults(new HashMap<>(results));
+            return statusDto;
+        }
+    }
 }
@@ -17,13 +17,27 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.webank.wecube.platform.core.domain.plugin.PluginInstance;
 import com.webank.wecube.platform.core.domain.plugin.PluginPackage;
 import com.webank.wecube.platform.core.dto.PluginRouteItemDto;
 import com.webank.wecube.platform.core.jpa.PluginInstanceRepository;
 import com.webank.wecube.platform.core.jpa.PluginPackageRepository;
-
+import com.webank.wecube.platform.core.support.gateway.GatewayResponse;
+import com.webank.wecube.platform.core.support.gateway.GatewayServiceStub;
+import com.webank.wecube.platform.core.support.gateway.RegisterRouteItemsDto;
+import com.webank.wecube.platform.core.support.gateway.RouteItem;
+
+/**
+ * Calculates plugin route items and publishes their changes to the gateway.
+ * <p>
+ * Each change increases the route version and is pushed as a delta from the
+ * previous version. The gateway applies a delta only if it holds the
+ * previous version, and otherwise syncs all route items. The version is kept
+ * in the database, so that all core nodes share one sequence of versions.
+ */
 @Service
 public class PluginRouteItemService {
     private static final Logger log = LoggerFactory.getLogger(PluginRouteItemService.class);
@@ -39,6 +53,161 @@ public class PluginRouteItemService {
     @Autowired
     private EntityManager entityManager;
 
+    @Autowired
+    private GatewayServiceStub gatewayServiceStub;
+
+    @Autowired
+    private PluginRouteVersionService pluginRouteVersionService;
+
+    public long getRouteVersion() {
+        return pluginRouteVersionService.getRouteVersion();
+    }
+
+    /**
+     * Pushes the route items of a newly running instance to the gateway,
+     * returns false if the gateway failed to accept them.
+     * <p>
+     * Interface routes only point to instances of the latest active package,
+     * a delta could not retract those of other running versions, so the
+     * gateway is told to sync all route items instead.
+     */
+    public boolean publishPluginInstanceRouteItemsAdded(String packageId, String packageName, String host,
+            Integer port) {
+        if (hasRunningInstancesOfOtherVersions(packageId, packageName)) {
+            log.info("other versions of {} are running, refresh all route items", packageName);
+            publishRouteItemsRefreshed();
+            return true;
+        }
+
+        List<PluginRouteItemDto> routeItems = getPluginInstanceRouteItems(packageId, packageName, host, port);
+        return publishRouteItemsChange(packageName, RegisterRouteItemsDto.OPERATION_ADD, routeItems);
+    }
+
+    private boolean hasRunningInstancesOfOtherVersions(String packageId, String packageName) {
+        List<PluginInstance> runningInstances = pluginInstanceRepository
+                .findAllByContainerStatusAndInstanceName(PluginInstance.CONTAINER_STATUS_RUNNING, packageName);
+        if (runningInstances == null) {
+            return false;
+        }
+
+        for (PluginInstance instance : runningInstances) {
+            if (instance.getPluginPackage() != null && !packageId.equals(instance.getPluginPackage().getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tells the gateway to drop all route items pointing to the removed
+     * instance.
+     */
+    public boolean publishPluginInstanceRouteItemsRemoved(String packageName, String host, Integer port) {
+        PluginInstanceEntity pi = new PluginInstanceEntity();
+        pi.setPackageName(packageName);
+        pi.setHost(host);
+        pi.setPort(port);
+
+        List<PluginRouteItemDto> routeItems = new LinkedList<>();
+        routeItems.add(buildDefaultRouteItem(pi));
+        return publishRouteItemsChange(packageName, RegisterRouteItemsDto.OPERATION_REMOVE, routeItems);
+    }
+
+    /**
+     * Tells the gateway to sync all route items once the current transaction
+     * commits, for changes that are not worth a delta such as enabling a
+     * plugin config or registering a package.
+     */
+    public void publishRouteItemsRefreshed() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    publishRouteItemsChange(null, RegisterRouteItemsDto.OPERATION_REFRESH, new LinkedList<>());
+                }
+            });
+        } else {
+            publishRouteItemsChange(null, RegisterRouteItemsDto.OPERATION_REFRESH, new LinkedList<>());
+        }
+    }
+
+    /**
+     * Changes of this node are pushed one at a time so that the gateway
+     * receives them in version order. A failed push, or a push overtaken by
+     * another node, leaves the gateway behind and it syncs all route items
+     * instead.
+     */
+    private synchronized boolean publishRouteItemsChange(String context, String operation,
+            List<PluginRouteItemDto> routeItems) {
+        long version;
+        try {
+            version = pluginRouteVersionService.increaseRouteVersion();
+        } catch (Exception e) {
+            log.warn("failed to increase route version for {}", context, e);
+            return false;
+        }
+        long previousVersion = version - 1;
+
+        List<RouteItem> items = new ArrayList<>(routeItems.size());
+        for (PluginRouteItemDto d : routeItems) {
+            RouteItem item = new RouteItem(d.getContext(), d.getHttpScheme(), d.getHost(), d.getPort());
+            item.setHttpMethod(d.getHttpMethod());
+            item.setPath(d.getPath());
+            item.setWeight(d.getWeight());
+            items.add(item);
+        }
+
+        RegisterRouteItemsDto requestBody = new RegisterRouteItemsDto(context, items);
+        requestBody.setOperation(operation);
+        requestBody.setPreviousVersion(previousVersion);
+        requestBody.setVersion(version);
+
+        try {
+            GatewayResponse response = gatewayServiceStub.registerRoute(requestBody);
+            if (response != null && GatewayResponse.getStatusCodeOk().equals(response.getStatus())) {
+                return true;
+            }
+            log.warn("gateway failed to apply route version {} of {}: {}", version, context,
+                    response == null ? null : response.getMessage());
+        } catch (Exception e) {
+            log.warn("failed to push route version {} of {} to gateway", version, context, e);
+        }
+        return false;
+    }
+
+    /**
+     * Route items of one instance, the default route of its package and, if
+     * the package is the latest active one, the routes of its interfaces.
+     */
+    public List<PluginRouteItemDto> getPluginInstanceRouteItems(String packageId, String packageName, String host,
+            Integer port) {
+        PluginInstanceEntity pi = new PluginInstanceEntity();
+        pi.setPackageId(packageId);
+        pi.setPackageName(packageName);
+        pi.setHost(host);
+        pi.setPort(port);
+
+        List<PluginRouteItemDto> resultList = new LinkedList<>();
+        resultList.add(buildDefaultRouteItem(pi));
+
+        Map<String, List<PluginInstanceEntity>> pluginInstanceMap = new HashMap<>();
+        List<PluginInstanceEntity> pluginInstanceList = new ArrayList<>();
+        pluginInstanceList.add(pi);
+        pluginInstanceMap.put(packageId, pluginInstanceList);
+
+        Map<String, PluginPackageEntity> latestActivePluginPackageMap = new HashMap<>();
+        for (PluginPackageEntity pkg : fetchAllActivePluginPackageEntities()) {
+            if (pkg.getName().equals(packageName)) {
+                latestActivePluginPackageMap.put(pkg.getName(), pkg);
+                break;
+            }
+        }
+
+        tryCalculateInterfaceRoutes(resultList, pluginInstanceMap, latestActivePluginPackageMap);
+
+        return resultList;
+    }
+
     public List<PluginRouteItemDto> getAllPluginRouteItems() {
     	
     	long startTime = System.currentTimeMillis();
@@ -52,13 +221,7 @@ public class PluginRouteItemService {
         // 1 assemble default route for each context
         if (pluginInstances != null) {
             pluginInstances.forEach(pi -> {
-                PluginRouteItemDto d = new PluginRouteItemDto();
-                d.setHost(pi.getHost());
-                d.setHttpScheme(HTTP_SCHEME);
-                d.setPort(String.valueOf(pi.getPort()));
-                d.setContext(pi.getPackageName());
-
-                resultList.add(d);
+                resultList.add(buildDefaultRouteItem(pi));
 
                 String packageId = pi.getPackageId();
                 List<PluginInstanceEntity> pluginInstanceList = null;
@@ -95,6 +258,15 @@ public class PluginRouteItemService {
         return resultList;
     }
 
+    private PluginRouteItemDto buildDefaultRouteItem(PluginInstanceEntity pi) {
+        PluginRouteItemDto d = new PluginRouteItemDto();
+        d.setHost(pi.getHost());
+        d.setHttpScheme(HTTP_SCHEME);
+        d.setPort(String.valueOf(pi.getPort()));
+        d.setContext(pi.getPackageName());
+        return d;
+    }
+
     @SuppressWarnings("unchecked")
 	private List<PluginPackageEntity> fetchAllActivePluginPackageEntities() {
         Query pluginPackageQuery = entityManager.createNativeQuery(
@@ -0,0 +1,50 @@
+package com.webank.wecube.platform.core.service;
+
+import java.util.Date;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.webank.wecube.platform.core.entity.PluginRouteVersionEntity;
+import com.webank.wecube.platform.core.jpa.PluginRouteVersionRepository;
+
+/**
+ * Keeps the plugin route version in the database, so that route changes
+ * published by different core nodes are numbered in one sequence.
+ */
+@Service
+public class PluginRouteVersionService {
+
+    @Autowired
+    private PluginRouteVersionRepository pluginRouteVersionRepository;
+
+    @Transactional(readOnly = true)
+    public long getRouteVersion() {
+        return pluginRouteVersionRepository.findById(PluginRouteVersionEntity.DEFAULT_ID)
+                .map(PluginRouteVersionEntity::getVersion).orElse(0L);
+    }
+
+    /**
+     * Increases the version in its own transaction, the row lock is released
+     * right away instead of being held by the caller's transaction.
+     * 
+     * @return the increased version
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public long increaseRouteVersion() {
+        PluginRouteVersionEntity routeVersion = pluginRouteVersionRepository
+                .findForUpdate(PluginRouteVersionEntity.DEFAULT_ID);
+        if (routeVersion == null) {
+            routeVersion = new PluginRouteVersionEntity();
+            routeVersion.setId(PluginRouteVersionEntity.DEFAULT_ID);
+        }
+
+        routeVersion.setVersion(routeVersion.getVersion() + 1);
+        routeVersion.setUpdatedTime(new Date());
+        pluginRouteVersionRepository.saveAndFlush(routeVersion);
+
+        return routeVersion.getVersion();
+    }
+}
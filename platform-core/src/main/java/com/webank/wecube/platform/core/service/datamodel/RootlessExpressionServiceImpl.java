@@ -14,6 +14,7 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import com.webank.wecube.platform.core.commons.ApplicationProperties.EntityOperationProperties;
 import com.webank.wecube.platform.core.commons.WecubeCoreException;
 import com.webank.wecube.platform.core.dto.DmeFilterDto;
 import com.webank.wecube.platform.core.dto.DmeLinkFilterDto;
@@ -48,6 +49,9 @@ public class RootlessExpressionServiceImpl implements RootlessExpressionService
     @Autowired
     private EntityDataRouteFactory entityDataRouteFactory;
 
+    @Autowired
+    private EntityOperationProperties entityOperationProperties;
+
     public List<Object> fetchDataWithFilter(DmeFilterDto dmeFilterDto) {
         if (log.isInfoEnabled()) {
             log.info("start to fetch data with filter:{}", dmeFilterDto);
@@ -109,7 +113,9 @@ public class RootlessExpressionServiceImpl implements RootlessExpressionService
         ctx.setEntityQueryExprNodeInfos(exprNodeInfos);
         ctx.setOriginalEntityLinkExpression("");
         ctx.setOriginalEntityData(null);
-        ctx.setStandardEntityOperationRestClient(new StandardEntityOperationRestClient(userJwtSsoTokenRestTemplate));
+        ctx.setStandardEntityOperationRestClient(new StandardEntityOperationRestClient(userJwtSsoTokenRestTemplate)
+                .withRequestLogSampleRate(entityOperationProperties.getRequestLogSampleRate())
+                .withMaxLoggedPayloadLength(entityOperationProperties.getRequestLogMaxPayloadLength()));
         ctx.setHeadEntityQueryLinkNode(entityQueryExecutor.buildEntityQueryLinkNode(exprNodeInfos));
         ctx.setEntityDataRouteFactory(entityDataRouteFactory);
 
@@ -0,0 +1,58 @@
+package com.webank.wecube.platform.core.service.dme;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of leaf entity records, the head entities of expression are paged.
+ *
+ * @author gavin
+ *
+ */
+public class EntityDataPage {
+    private List<Map<String, Object>> records = new ArrayList<>();
+    private String nextCursor;
+
+    public EntityDataPage() {
+    }
+
+    public EntityDataPage(List<Map<String, Object>> records, String nextCursor) {
+        this.records = records;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Map<String, Object>> getRecords() {
+        return records;
+    }
+
+    public void setRecords(List<Map<String, Object>> records) {
+        this.records = records;
+    }
+
+    /**
+     * Cursor to query the next page with, or null if this is the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("[records=");
+        builder.append(records == null ? 0 : records.size());
+        builder.append(", nextCursor=");
+        builder.append(nextCursor);
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -1,26 +1,135 @@
 package com.webank.wecube.platform.core.service.dme;
 
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.EntityOperationProperties;
+import com.webank.wecube.platform.core.commons.WecubeCoreException;
+import com.webank.wecube.platform.core.domain.plugin.PluginInstance;
+import com.webank.wecube.platform.core.service.plugin.PluginInstanceRegistry;
 
+/**
+ * Resolves entity routes, by default through the gateway.
+ * <p>
+ * Packages listed in direct-route-packages are routed to one of their running
+ * instances directly, and fall back to the gateway if none is available or
+ * the selected one cannot be reached. Route descriptions are immutable and
+ * cached per package and entity, direct ones are dropped whenever the running
+ * instances of their package are invalidated.
+ */
 @Service
 public class EntityDataRouteFactory {
-    
+    private static final Logger log = LoggerFactory.getLogger(EntityDataRouteFactory.class);
+
+    private static final String KEY_DELIMITER = ":";
+
     @Autowired
     private ApplicationProperties applicationProperties;
 
-    public EntityRouteDescription deduceEntityDescription(String packageName, String entityName){
+    @Autowired
+    private EntityOperationProperties entityOperationProperties;
+
+    @Autowired
+    private PluginInstanceRegistry pluginInstanceRegistry;
+
+    private volatile GatewayRoutes gatewayRoutes;
+
+    private final Map<String, Map<String, EntityRouteDescription>> directRoutes = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void afterPropertiesSet() {
+        pluginInstanceRegistry.addInvalidationListener(directRoutes::remove);
+    }
+
+    public EntityRouteDescription deduceEntityDescription(String packageName, String entityName) {
+        if (isDirectRoutePackage(packageName)) {
+            EntityRouteDescription entityDef = tryDeduceDirectEntityDescription(packageName, entityName);
+            if (entityDef != null) {
+                return entityDef;
+            }
+        }
+
+        return getGatewayRoutes().getEntityDescription(packageName, entityName);
+    }
+
+    /**
+     * Returns the gateway route to retry with once the given route failed to
+     * connect, or {@code null} if it already goes through the gateway.
+     */
+    public EntityRouteDescription getGatewayFallback(EntityRouteDescription entityDef) {
+        EntityRouteDescription gatewayDef = getGatewayRoutes().getEntityDescription(entityDef.getPackageName(),
+                entityDef.getEntityName());
+        if (gatewayDef == entityDef) {
+            return null;
+        }
+        return gatewayDef;
+    }
+
+    private boolean isDirectRoutePackage(String packageName) {
+        List<String> directRoutePackages = entityOperationProperties.getDirectRoutePackages();
+        return directRoutePackages != null && directRoutePackages.contains(packageName);
+    }
+
+    private EntityRouteDescription tryDeduceDirectEntityDescription(String packageName, String entityName) {
+        PluginInstance instance;
+        try {
+            instance = pluginInstanceRegistry.selectInstance(packageName);
+        } catch (WecubeCoreException e) {
+            log.debug("no instance of {} to route directly, route through gateway instead", packageName);
+            return null;
+        }
+
+        if (StringUtils.isBlank(instance.getHost()) || instance.getPort() == null) {
+            return null;
+        }
+
+        String httpPort = String.valueOf(instance.getPort());
+        String key = entityName + "@" + instance.getHost() + KEY_DELIMITER + httpPort;
+        return directRoutes.computeIfAbsent(packageName, k -> new ConcurrentHashMap<>()).computeIfAbsent(key,
+                k -> new EntityRouteDescription(packageName, entityName, instance.getHost(), httpPort));
+    }
+
+    private GatewayRoutes getGatewayRoutes() {
         String gatewayUrl = applicationProperties.getGatewayUrl();
-        String [] parts = gatewayUrl.split(":");
-        EntityRouteDescription entityDef = new EntityRouteDescription();
-        entityDef.setEntityName(packageName);
-        entityDef.setHttpPort(parts[1]);
-        entityDef.setHttpHost(parts[0]);
-        entityDef.setHttpScheme("http");
-        entityDef.setPackageName(entityName);
-        
-        return entityDef;
+        GatewayRoutes routes = this.gatewayRoutes;
+        if (routes == null || !routes.gatewayUrl.equals(gatewayUrl)) {
+            routes = new GatewayRoutes(gatewayUrl);
+            this.gatewayRoutes = routes;
+        }
+        return routes;
+    }
+
+    private static class GatewayRoutes {
+        final String gatewayUrl;
+        final String httpHost;
+        final String httpPort;
+        final Map<String, EntityRouteDescription> entityDescriptions = new ConcurrentHashMap<>();
+
+        GatewayRoutes(String gatewayUrl) {
+            String[] parts = gatewayUrl.split(":");
+            this.gatewayUrl = gatewayUrl;
+            this.httpHost = parts[0];
+            this.httpPort = parts[1];
+        }
+
+        EntityRouteDescription getEntityDescription(String packageName, String entityName) {
+            String key = packageName + KEY_DELIMITER + entityName;
+            EntityRouteDescription entityDef = entityDescriptions.get(key);
+            if (entityDef != null) {
+                return entityDef;
+            }
+            return entityDescriptions.computeIfAbsent(key,
+                    k -> new EntityRouteDescription(packageName, entityName, httpHost, httpPort));
+        }
     }
 }
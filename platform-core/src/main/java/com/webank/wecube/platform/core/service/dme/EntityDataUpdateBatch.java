@@ -0,0 +1,71 @@
+package com.webank.wecube.platform.core.service.dme;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Attribute writes collected from one result set, which are resolved and
+ * then written back with one update request per entity type.
+ *
+ * @author gavin
+ *
+ */
+public class EntityDataUpdateBatch {
+    private List<EntityDataUpdate> updates = new ArrayList<>();
+
+    public EntityDataUpdateBatch addUpdate(EntityOperationRootCondition condition, Object attrValueToUpdate) {
+        this.updates.add(new EntityDataUpdate(condition, attrValueToUpdate));
+        return this;
+    }
+
+    public List<EntityDataUpdate> getUpdates() {
+        return Collections.unmodifiableList(updates);
+    }
+
+    public boolean isEmpty() {
+        return updates.isEmpty();
+    }
+
+    public int size() {
+        return updates.size();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("[updates=");
+        builder.append(updates);
+        builder.append("]");
+        return builder.toString();
+    }
+
+    public static class EntityDataUpdate {
+        private final EntityOperationRootCondition condition;
+        private final Object attrValueToUpdate;
+
+        public EntityDataUpdate(EntityOperationRootCondition condition, Object attrValueToUpdate) {
+            this.condition = condition;
+            this.attrValueToUpdate = attrValueToUpdate;
+        }
+
+        public EntityOperationRootCondition getCondition() {
+            return condition;
+        }
+
+        public Object getAttrValueToUpdate() {
+            return attrValueToUpdate;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            builder.append("[condition=");
+            builder.append(condition);
+            builder.append(", attrValueToUpdate=");
+            builder.append(attrValueToUpdate);
+            builder.append("]");
+            return builder.toString();
+        }
+    }
+}
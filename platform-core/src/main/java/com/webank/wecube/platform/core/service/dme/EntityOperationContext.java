@@ -19,6 +19,12 @@ public class EntityOperationContext {
     protected EntityQueryLinkNode currentEntityQueryLinkNode;
     
     protected EntityDataRouteFactory entityDataRouteFactory;
+
+    protected boolean leafAttributeValuesOnly;
+
+    protected Integer headEntityPageSize;
+    protected String headEntityCursor;
+    protected String nextHeadEntityCursor;
     
     public EntityQueryLinkNode getHeadEntityQueryLinkNode(){
         return headEntityQueryLinkNode;
@@ -101,4 +107,47 @@ public class EntityOperationContext {
     public void setEntityDataRouteFactory(EntityDataRouteFactory entityDataRouter) {
         this.entityDataRouteFactory = entityDataRouter;
     }
+
+    public boolean isLeafAttributeValuesOnly() {
+        return leafAttributeValuesOnly;
+    }
+
+    /**
+     * Set when the caller only needs attribute values of leaf entities, then
+     * only the attributes needed to resolve them are decoded from responses.
+     */
+    public void setLeafAttributeValuesOnly(boolean leafAttributeValuesOnly) {
+        this.leafAttributeValuesOnly = leafAttributeValuesOnly;
+    }
+
+    public Integer getHeadEntityPageSize() {
+        return headEntityPageSize;
+    }
+
+    /**
+     * Set to query one page of head entities only, the rest of the expression
+     * is resolved for that page.
+     */
+    public void setHeadEntityPageSize(Integer headEntityPageSize) {
+        this.headEntityPageSize = headEntityPageSize;
+    }
+
+    public String getHeadEntityCursor() {
+        return headEntityCursor;
+    }
+
+    public void setHeadEntityCursor(String headEntityCursor) {
+        this.headEntityCursor = headEntityCursor;
+    }
+
+    /**
+     * Cursor of the page after the queried one, or null if it is the last.
+     */
+    public String getNextHeadEntityCursor() {
+        return nextHeadEntityCursor;
+    }
+
+    public void setNextHeadEntityCursor(String nextHeadEntityCursor) {
+        this.nextHeadEntityCursor = nextHeadEntityCursor;
+    }
 }
@@ -4,6 +4,7 @@ import java.util.List;
 
 public interface EntityQueryExecutor {
     void executeUpdate(EntityOperationContext ctx, Object valueToUpdate);
+    void executeBatchUpdate(List<EntityOperationContext> ctxs, List<Object> valuesToUpdate);
     List<Object> executeQueryLeafAttributes(EntityOperationContext ctx);
     List<EntityDataDelegate> executeQueryLeafEntity(EntityOperationContext ctx);
     void performQuery(EntityOperationContext ctx, EntityQueryLinkNode linkNode);
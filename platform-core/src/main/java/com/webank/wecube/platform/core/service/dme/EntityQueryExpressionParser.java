@@ -7,6 +7,9 @@ import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 /**
  * 
  * @author gavin
@@ -16,18 +19,50 @@ import org.springframework.stereotype.Service;
 public class EntityQueryExpressionParser {
     public static final String PKG_DELIMITER = ":";
     public static final String REG_ENTITY_ID = "@@\\w+@@";
-    private Pattern entityIdPattern = Pattern.compile(REG_ENTITY_ID);
+    public static final int DEFAULT_MAX_COMPILED_PLANS = 1000;
+
+    private static final Pattern entityIdPattern = Pattern.compile(REG_ENTITY_ID);
+    private static final Pattern exprOpPattern = Pattern
+            .compile(String.format("[%s%s]", EntityLinkType.REF_TO.symbol(), EntityLinkType.REF_BY.symbol()));
+    private static final Pattern filterPattern = Pattern.compile("\\{([^}\t\r\n])*?\\}");
+    private static final Pattern singleFilterPattern = Pattern.compile("^\\{([^}\t\r\n])*?\\}$");
+    private static final Pattern splitPattern = Pattern.compile("\\s+");
+
+    private final Cache<String, EntityQueryExpressionPlan> compiledPlans;
+
+    public EntityQueryExpressionParser() {
+        this(DEFAULT_MAX_COMPILED_PLANS);
+    }
+
+    public EntityQueryExpressionParser(int maxCompiledPlans) {
+        this.compiledPlans = CacheBuilder.newBuilder().maximumSize(Math.max(0, maxCompiledPlans)).build();
+    }
 
     public List<EntityQueryExprNodeInfo> parse(String expr) {
-    	
+        return compile(expr).newExprNodeInfos();
+    }
+
+    /**
+     * Returns the compiled plan of given expression, recently used plans are
+     * kept in a bounded cache keyed by expression text.
+     */
+    public EntityQueryExpressionPlan compile(String expr) {
     	if(StringUtils.isBlank(expr)) {
     		throw new IllegalArgumentException("Expression to parse cannot be blank.");
     	}
 
-        String exprOpReg = String.format("[%s%s]", EntityLinkType.REF_TO.symbol(), EntityLinkType.REF_BY.symbol());
+        EntityQueryExpressionPlan plan = compiledPlans.getIfPresent(expr);
+        if (plan != null) {
+            return plan;
+        }
+
+        plan = new EntityQueryExpressionPlan(expr, doParse(expr));
+        compiledPlans.put(expr, plan);
+        return plan;
+    }
 
-        Pattern p = Pattern.compile(exprOpReg);
-        Matcher m = p.matcher(expr);
+    protected List<EntityQueryExprNodeInfo> doParse(String expr) {
+        Matcher m = exprOpPattern.matcher(expr);
         int start = 0;
 
         List<EntityQueryExprNodeInfo> queryNodeInfos = new ArrayList<>();
@@ -138,7 +173,6 @@ public class EntityQueryExpressionParser {
     }
     
     protected void parseAdditionalFilters(EntityQueryExprNodeInfo nodeInfo, String filtersExpr){
-        Pattern filterPattern = Pattern.compile("\\{([^}\t\r\n])*?\\}");
         Matcher filterMatcher = filterPattern.matcher(filtersExpr);
         
         while (filterMatcher.find()) {
@@ -149,7 +183,7 @@ public class EntityQueryExpressionParser {
     }
     
     public EntityQueryFilter buildEntityQueryFilter(String filterExpr) {
-        if (!Pattern.matches("^\\{([^}\t\r\n])*?\\}$", filterExpr)) {
+        if (!singleFilterPattern.matcher(filterExpr).matches()) {
             return null;
         }
 
@@ -162,9 +196,7 @@ public class EntityQueryExpressionParser {
             expr = expr.substring(0, expr.length() - 1);
         }
 
-        String splitReg = "\\s+";
-        Pattern p = Pattern.compile(splitReg);
-        Matcher m = p.matcher(expr);
+        Matcher m = splitPattern.matcher(expr);
 
         String attrName = null;
         int opStart = -1;
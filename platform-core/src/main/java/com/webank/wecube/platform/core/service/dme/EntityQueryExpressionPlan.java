@@ -0,0 +1,56 @@
+package com.webank.wecube.platform.core.service.dme;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compiled form of an entity query expression.
+ * <p>
+ * Instances are immutable and could be shared between threads, callers get
+ * their own node infos with {@link #newExprNodeInfos()} as node infos are
+ * mutable.
+ *
+ * @author gavin
+ *
+ */
+public final class EntityQueryExpressionPlan {
+    private final String expression;
+    private final List<EntityQueryExprNodeInfo> exprNodeInfos;
+
+    public EntityQueryExpressionPlan(String expression, List<EntityQueryExprNodeInfo> exprNodeInfos) {
+        this.expression = expression;
+        this.exprNodeInfos = Collections.unmodifiableList(copyExprNodeInfos(exprNodeInfos));
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public int getNodeCount() {
+        return exprNodeInfos.size();
+    }
+
+    public List<EntityQueryExprNodeInfo> newExprNodeInfos() {
+        return copyExprNodeInfos(exprNodeInfos);
+    }
+
+    private static List<EntityQueryExprNodeInfo> copyExprNodeInfos(List<EntityQueryExprNodeInfo> exprNodeInfos) {
+        List<EntityQueryExprNodeInfo> copiedExprNodeInfos = new ArrayList<>(exprNodeInfos.size());
+        for (EntityQueryExprNodeInfo nodeInfo : exprNodeInfos) {
+            copiedExprNodeInfos.add(nodeInfo.copy());
+        }
+        return copiedExprNodeInfos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("[expression=");
+        builder.append(expression);
+        builder.append(", exprNodeInfos=");
+        builder.append(exprNodeInfos);
+        builder.append("]");
+        return builder.toString();
+    }
+}
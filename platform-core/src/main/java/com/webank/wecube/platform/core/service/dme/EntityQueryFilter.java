@@ -1,5 +1,8 @@
 package com.webank.wecube.platform.core.service.dme;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.fasterxml.jackson.annotation.JsonInclude;
 
 /**
@@ -59,6 +62,18 @@ public class EntityQueryFilter {
         builder.append("]");
         return builder.toString();
     }
+
+    public EntityQueryFilter copy() {
+        EntityQueryFilter f = new EntityQueryFilter();
+        f.setAttrName(attrName);
+        f.setOp(op);
+        if (condition instanceof List) {
+            f.setCondition(new ArrayList<Object>((List<?>) condition));
+        } else {
+            f.setCondition(condition);
+        }
+        return f;
+    }
     
     
 }
@@ -0,0 +1,146 @@
+package com.webank.wecube.platform.core.service.dme;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.EntityOperationProperties;
+import com.webank.wecube.platform.core.commons.AuthenticationContextHolder;
+
+/**
+ * Memoizes the records returned by single hop queries.
+ * <p>
+ * Results are kept in the query scope bound to current thread, which is
+ * opened for one plugin invocation or batch execution job, and optionally
+ * in a shared cache living for query-cache-ttl-seconds.
+ *
+ * @author gavin
+ *
+ */
+@Component
+public class EntityQueryResultCache {
+    private static final Logger log = LoggerFactory.getLogger(EntityQueryResultCache.class);
+
+    private static final String KEY_DELIMITER = "|";
+
+    private static final ThreadLocal<Map<String, List<Map<String, Object>>>> scopedResults = new ThreadLocal<>();
+
+    @Autowired
+    private EntityOperationProperties entityOperationProperties;
+
+    private Cache<String, List<Map<String, Object>>> sharedResults;
+
+    @PostConstruct
+    public void afterPropertiesSet() {
+        int ttlSeconds = entityOperationProperties.getQueryCacheTtlSeconds();
+        if (ttlSeconds <= 0) {
+            log.info("shared entity query cache is disabled");
+            return;
+        }
+
+        this.sharedResults = CacheBuilder.newBuilder() //
+                .maximumSize(Math.max(1, entityOperationProperties.getQueryCacheMaxSize())) //
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS) //
+                .build();
+    }
+
+    /**
+     * Opens a query scope for current thread, the scope should be closed
+     * after use. Nested scopes share the outermost one.
+     */
+    public EntityQueryScope openScope() {
+        if (scopedResults.get() != null) {
+            return new EntityQueryScope(false);
+        }
+
+        scopedResults.set(new ConcurrentHashMap<>());
+        return new EntityQueryScope(true);
+    }
+
+    public String buildCacheKey(EntityRouteDescription entityDef, EntityQuerySpecification querySpec,
+            Set<String> resultAttrNames) {
+        String username = AuthenticationContextHolder.getCurrentUsername();
+        StringBuilder sb = new StringBuilder();
+        sb.append(entityDef.getPackageName()).append(KEY_DELIMITER);
+        sb.append(entityDef.getEntityName()).append(KEY_DELIMITER);
+        sb.append(username == null ? "" : username).append(KEY_DELIMITER);
+        sb.append(querySpec);
+        if (resultAttrNames != null) {
+            sb.append(KEY_DELIMITER).append(resultAttrNames);
+        }
+        return sb.toString();
+    }
+
+    public List<Map<String, Object>> get(String cacheKey) {
+        Map<String, List<Map<String, Object>>> results = scopedResults.get();
+        if (results != null) {
+            List<Map<String, Object>> recordMapList = results.get(cacheKey);
+            if (recordMapList != null) {
+                return recordMapList;
+            }
+        }
+
+        if (sharedResults == null) {
+            return null;
+        }
+
+        List<Map<String, Object>> recordMapList = sharedResults.getIfPresent(cacheKey);
+        if (recordMapList != null && results != null) {
+            results.put(cacheKey, recordMapList);
+        }
+        return recordMapList;
+    }
+
+    public List<Map<String, Object>> put(String cacheKey, List<Map<String, Object>> recordMapList) {
+        List<Map<String, Object>> unmodifiableRecordMapList = Collections.unmodifiableList(recordMapList);
+        Map<String, List<Map<String, Object>>> results = scopedResults.get();
+        if (results != null) {
+            results.put(cacheKey, unmodifiableRecordMapList);
+        }
+
+        if (sharedResults != null) {
+            sharedResults.put(cacheKey, unmodifiableRecordMapList);
+        }
+
+        return unmodifiableRecordMapList;
+    }
+
+    public void invalidate(String packageName, String entityName) {
+        String keyPrefix = packageName + KEY_DELIMITER + entityName + KEY_DELIMITER;
+        Map<String, List<Map<String, Object>>> results = scopedResults.get();
+        if (results != null) {
+            results.keySet().removeIf(k -> k.startsWith(keyPrefix));
+        }
+
+        if (sharedResults != null) {
+            sharedResults.asMap().keySet().removeIf(k -> k.startsWith(keyPrefix));
+        }
+    }
+
+    public static class EntityQueryScope implements AutoCloseable {
+        private final boolean owner;
+
+        EntityQueryScope(boolean owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public void close() {
+            if (owner) {
+                scopedResults.remove();
+            }
+        }
+    }
+}
@@ -16,6 +16,8 @@ public class EntityQuerySpecification {
 
     private EntityQueryCriteria criteria;
     private List<EntityQueryFilter> additionalFilters = new ArrayList<>();
+    private Integer pageSize;
+    private String cursor;
 
     public EntityQueryCriteria getCriteria() {
         return criteria;
@@ -33,6 +35,30 @@ public class EntityQuerySpecification {
         this.additionalFilters = additionalFilters;
     }
 
+    public Integer getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * At most so many records are returned, ordered by id, none means no
+     * paging.
+     */
+    public void setPageSize(Integer pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Id of the last record of previous page, only records after it are
+     * returned.
+     */
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
     public EntityQuerySpecification addAdditionalFilters(EntityQueryFilter... additionalFilters) {
         if (this.additionalFilters == null) {
             this.additionalFilters = new ArrayList<>();
@@ -52,6 +78,12 @@ public class EntityQuerySpecification {
         builder.append(criteria);
         builder.append(", additionalFilters=");
         builder.append(additionalFilters);
+        if (pageSize != null) {
+            builder.append(", pageSize=");
+            builder.append(pageSize);
+            builder.append(", cursor=");
+            builder.append(cursor);
+        }
         builder.append("]");
         return builder.toString();
     }
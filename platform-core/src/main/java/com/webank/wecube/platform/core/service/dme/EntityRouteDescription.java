@@ -1,52 +1,51 @@
 package com.webank.wecube.platform.core.service.dme;
 
-public class EntityRouteDescription {
-    private String packageName;
-    private String entityName;
-    private String httpScheme = "http";
-    private String httpHost;
-    private String httpPort;
+/**
+ * Where the data of an entity is served, immutable and cached by
+ * {@link EntityDataRouteFactory}.
+ */
+public final class EntityRouteDescription {
+    public static final String DEFAULT_HTTP_SCHEME = "http";
 
-    public String getPackageName() {
-        return packageName;
+    private final String packageName;
+    private final String entityName;
+    private final String httpScheme;
+    private final String httpHost;
+    private final String httpPort;
+
+    public EntityRouteDescription(String packageName, String entityName, String httpHost, String httpPort) {
+        this(packageName, entityName, DEFAULT_HTTP_SCHEME, httpHost, httpPort);
     }
 
-    public void setPackageName(String packageName) {
+    public EntityRouteDescription(String packageName, String entityName, String httpScheme, String httpHost,
+            String httpPort) {
         this.packageName = packageName;
+        this.entityName = entityName;
+        this.httpScheme = httpScheme;
+        this.httpHost = httpHost;
+        this.httpPort = httpPort;
     }
 
-    public String getEntityName() {
-        return entityName;
+    public String getPackageName() {
+        return packageName;
     }
 
-    public void setEntityName(String entityName) {
-        this.entityName = entityName;
+    public String getEntityName() {
+        return entityName;
     }
 
     public String getHttpScheme() {
         return httpScheme;
     }
 
-    public void setHttpScheme(String httpScheme) {
-        this.httpScheme = httpScheme;
-    }
-
     public String getHttpHost() {
         return httpHost;
     }
 
-    public void setHttpHost(String httpHost) {
-        this.httpHost = httpHost;
-    }
-
     public String getHttpPort() {
         return httpPort;
     }
 
-    public void setHttpPort(String httpPort) {
-        this.httpPort = httpPort;
-    }
-
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
@@ -1,16 +1,26 @@
 package com.webank.wecube.platform.core.service.dme;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.RestTemplate;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class StandardEntityOperationRestClient {
@@ -20,6 +30,8 @@ public class StandardEntityOperationRestClient {
 	private String updateUriTemplate = "/{package-name}/entities/{entity-name}/update";
 	private RestTemplate restTemplate;
 	private ObjectMapper objectMapper = new ObjectMapper();
+	private double requestLogSampleRate = 0.1D;
+	private int maxLoggedPayloadLength = 4096;
 
 	public StandardEntityOperationRestClient() {
 	}
@@ -36,12 +48,44 @@ public class StandardEntityOperationRestClient {
 				entityDef.getEntityName());
 
 		long timeMilliSeconds = System.currentTimeMillis();
-		if (log.isInfoEnabled()) {
-			log.info("SEND QUERY post [{}] url={}, request={}", timeMilliSeconds, requestUri.toString(), toJson(querySpec));
+		boolean sampled = isRequestLogSampled();
+		if (sampled) {
+			log.info("SEND QUERY post [{}] url={}, request={}", timeMilliSeconds, requestUri, lazyJson(querySpec));
 		}
 		StandardEntityOperationResponseDto result = getRestTemplate().postForObject(requestUri, querySpec,
 				StandardEntityOperationResponseDto.class);
-		if (log.isDebugEnabled()) {
+		if (sampled && log.isDebugEnabled()) {
+			log.debug("RECEIVE QUERY post [{}] url={},result={}", timeMilliSeconds, requestUri.toString(), result);
+		}
+		return result;
+	}
+
+	/**
+	 * Queries entities and decodes the response in a streaming way, only the
+	 * given attributes of each record are kept.
+	 */
+	public StandardEntityOperationResponseDto query(EntityRouteDescription entityDef,
+			EntityQuerySpecification querySpec, Set<String> resultAttrNames) {
+		if (resultAttrNames == null) {
+			return query(entityDef, querySpec);
+		}
+		String baseUri = buildBaseRequestUri(entityDef);
+		String requestUriStr = buildRequestUri(baseUri, getQueryUriTemplate());
+		URI requestUri = getRestTemplate().getUriTemplateHandler().expand(requestUriStr, entityDef.getPackageName(),
+				entityDef.getEntityName());
+
+		long timeMilliSeconds = System.currentTimeMillis();
+		boolean sampled = isRequestLogSampled();
+		if (sampled) {
+			log.info("SEND QUERY post [{}] url={}, request={}, attributes={}", timeMilliSeconds, requestUri,
+					lazyJson(querySpec), resultAttrNames);
+		}
+		StandardEntityOperationResponseDto result = getRestTemplate().execute(requestUri, HttpMethod.POST,
+				request -> {
+					request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+					objectMapper.writeValue(StreamUtils.nonClosing(request.getBody()), querySpec);
+				}, response -> readQueryResponse(response.getBody(), resultAttrNames));
+		if (sampled && log.isDebugEnabled()) {
 			log.debug("RECEIVE QUERY post [{}] url={},result={}", timeMilliSeconds, requestUri.toString(), result);
 		}
 		return result;
@@ -57,10 +101,16 @@ public class StandardEntityOperationRestClient {
 
 		List<Map<String, Object>> requestBody = convertToMapList(recordsToUpdate);
 		long timeMilliSeconds = System.currentTimeMillis();
-		log.info("SEND UPDATE post [{}] url={}, request={}", timeMilliSeconds, requestUri.toString(), toJson(requestBody));
+		boolean sampled = isRequestLogSampled();
+		if (sampled) {
+			log.info("SEND UPDATE post [{}] url={}, records={}, request={}", timeMilliSeconds, requestUri,
+					requestBody == null ? 0 : requestBody.size(), lazyJson(requestBody));
+		}
 		StandardEntityOperationResponseDto result = getRestTemplate().postForObject(requestUri, requestBody,
 				StandardEntityOperationResponseDto.class);
-		log.debug("RECEIVE UPDATE post [{}] url={},result={}", timeMilliSeconds, requestUri.toString(), result);
+		if (sampled && log.isDebugEnabled()) {
+			log.debug("RECEIVE UPDATE post [{}] url={},result={}", timeMilliSeconds, requestUri.toString(), result);
+		}
 		return result;
 	}
 
@@ -79,6 +129,23 @@ public class StandardEntityOperationRestClient {
 		return this;
 	}
 
+	/**
+	 * Fraction of requests, from 0 to 1, whose request log is emitted.
+	 */
+	public StandardEntityOperationRestClient withRequestLogSampleRate(double requestLogSampleRate) {
+		this.requestLogSampleRate = requestLogSampleRate;
+		return this;
+	}
+
+	/**
+	 * Logged payloads are truncated to this length, no truncation if it is
+	 * not positive.
+	 */
+	public StandardEntityOperationRestClient withMaxLoggedPayloadLength(int maxLoggedPayloadLength) {
+		this.maxLoggedPayloadLength = maxLoggedPayloadLength;
+		return this;
+	}
+
 	public String getQueryUriTemplate() {
 		return queryUriTemplate;
 	}
@@ -130,6 +197,77 @@ public class StandardEntityOperationRestClient {
 		return mapList;
 	}
 	
+	private StandardEntityOperationResponseDto readQueryResponse(InputStream body, Set<String> resultAttrNames)
+			throws IOException {
+		try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				return null;
+			}
+
+			StandardEntityOperationResponseDto result = new StandardEntityOperationResponseDto();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String fieldName = parser.getCurrentName();
+				parser.nextToken();
+				if ("status".equals(fieldName)) {
+					result.setStatus(parser.getValueAsString());
+				} else if ("message".equals(fieldName)) {
+					result.setMessage(parser.getValueAsString());
+				} else if ("data".equals(fieldName)) {
+					result.setData(readQueryResponseData(parser, resultAttrNames));
+				} else {
+					parser.skipChildren();
+				}
+			}
+			return result;
+		}
+	}
+
+	private Object readQueryResponseData(JsonParser parser, Set<String> resultAttrNames) throws IOException {
+		if (parser.currentToken() == JsonToken.START_OBJECT) {
+			return readRecord(parser, resultAttrNames);
+		}
+
+		if (parser.currentToken() != JsonToken.START_ARRAY) {
+			return objectMapper.readValue(parser, Object.class);
+		}
+
+		List<Object> records = new ArrayList<>();
+		while (parser.nextToken() != JsonToken.END_ARRAY) {
+			if (parser.currentToken() == JsonToken.START_OBJECT) {
+				records.add(readRecord(parser, resultAttrNames));
+			} else {
+				records.add(objectMapper.readValue(parser, Object.class));
+			}
+		}
+		return records;
+	}
+
+	private Map<String, Object> readRecord(JsonParser parser, Set<String> resultAttrNames) throws IOException {
+		Map<String, Object> record = new HashMap<>();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String attrName = parser.getCurrentName();
+			parser.nextToken();
+			if (resultAttrNames.contains(attrName)) {
+				record.put(attrName, objectMapper.readValue(parser, Object.class));
+			} else {
+				parser.skipChildren();
+			}
+		}
+		return record;
+	}
+
+	private boolean isRequestLogSampled() {
+		if (!log.isInfoEnabled() || requestLogSampleRate <= 0D) {
+			return false;
+		}
+
+		return requestLogSampleRate >= 1D || ThreadLocalRandom.current().nextDouble() < requestLogSampleRate;
+	}
+
+	private Object lazyJson(Object value) {
+		return new LazyJsonPayload(value);
+	}
+
 	private String toJson(Object value) {
 		try {
 			String json = objectMapper.writeValueAsString(value);
@@ -140,4 +278,83 @@ public class StandardEntityOperationRestClient {
 		}
 	}
 
+	/**
+	 * Serializes the payload only when the log record is actually written,
+	 * and only up to the logged length.
+	 */
+	private class LazyJsonPayload {
+		private final Object value;
+
+		LazyJsonPayload(Object value) {
+			this.value = value;
+		}
+
+		@Override
+		public String toString() {
+			if (maxLoggedPayloadLength <= 0) {
+				return toJson(value);
+			}
+
+			BoundedWriter writer = new BoundedWriter(maxLoggedPayloadLength);
+			try {
+				objectMapper.writeValue(writer, value);
+			} catch (IOException e) {
+				if (!writer.isTruncated()) {
+					log.info("errors to convert json object", e);
+					return "";
+				}
+			}
+
+			if (writer.isTruncated()) {
+				return writer.toString() + "...(truncated)";
+			}
+			return writer.toString();
+		}
+	}
+
+	/**
+	 * Keeps the first maxLength chars and then fails the serialization, so a
+	 * large payload is never serialized as a whole just to be cut off.
+	 */
+	private static class BoundedWriter extends Writer {
+		private final StringBuilder buffer;
+		private final int maxLength;
+		private boolean truncated;
+
+		BoundedWriter(int maxLength) {
+			this.maxLength = maxLength;
+			this.buffer = new StringBuilder(Math.min(maxLength, 1024));
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException {
+			int remaining = maxLength - buffer.length();
+			if (len <= remaining) {
+				buffer.append(cbuf, off, len);
+				return;
+			}
+
+			buffer.append(cbuf, off, remaining);
+			truncated = true;
+			throw new IOException("payload exceeds " + maxLength + " chars");
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+
+		boolean isTruncated() {
+			return truncated;
+		}
+
+		@Override
+		public String toString() {
+			return buffer.toString();
+		}
+	}
+
 }
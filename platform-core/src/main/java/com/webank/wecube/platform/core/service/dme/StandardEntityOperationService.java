@@ -2,8 +2,10 @@ package com.webank.wecube.platform.core.service.dme;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,6 +14,10 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import com.webank.wecube.platform.core.commons.ApplicationProperties.EntityOperationProperties;
+import com.webank.wecube.platform.core.service.dme.EntityDataUpdateBatch.EntityDataUpdate;
+import com.webank.wecube.platform.core.service.dme.EntityQueryResultCache.EntityQueryScope;
+
 @Service("standardEntityOperationService")
 public class StandardEntityOperationService {
     private static final Logger log = LoggerFactory.getLogger(StandardEntityOperationService.class);
@@ -28,6 +34,21 @@ public class StandardEntityOperationService {
     
     @Autowired
     private EntityDataRouteFactory entityDataRouteFactory;
+
+    @Autowired
+    private EntityQueryResultCache entityQueryResultCache;
+
+    @Autowired
+    private EntityOperationProperties entityOperationProperties;
+
+    /**
+     * Opens a query scope in which the results of identical hop queries are
+     * fetched once, typically around all entity operations of one plugin
+     * invocation.
+     */
+    public EntityQueryScope openQueryScope() {
+        return entityQueryResultCache.openScope();
+    }
     
     public List<Map<String,Object>> queryAttributeValuesOfLeafNode(EntityOperationRootCondition condition){
         return queryAttributeValuesOfLeafNode(condition, jwtSsoRestTemplate);
@@ -42,6 +63,39 @@ public class StandardEntityOperationService {
         ctx.setEntityOperationType(EntityOperationType.QUERY);
         
         List<EntityDataDelegate> entityDelegates = standardEntityQueryExcutor.executeQueryLeafEntity(ctx);
+        return buildRecordMaps(entityDelegates);
+    }
+
+    /**
+     * Queries the leaf records of one page of head entities, starting after
+     * the cursor, or from the first page if cursor is null.
+     */
+    public EntityDataPage queryAttributeValuesOfLeafNode(EntityOperationRootCondition condition, int pageSize,
+            String cursor, RestTemplate restTemplate) {
+        if (log.isDebugEnabled()) {
+            log.debug("query attribute values of leaf node for condition {} with page size {} after {}", condition,
+                    pageSize, cursor);
+        }
+
+        EntityOperationContext ctx = buildEntityOperationContext(condition, restTemplate);
+        ctx.setEntityOperationType(EntityOperationType.QUERY);
+        ctx.setHeadEntityPageSize(Math.max(1, pageSize));
+        ctx.setHeadEntityCursor(cursor);
+
+        List<EntityDataDelegate> entityDelegates = standardEntityQueryExcutor.executeQueryLeafEntity(ctx);
+        return new EntityDataPage(buildRecordMaps(entityDelegates), ctx.getNextHeadEntityCursor());
+    }
+
+    /**
+     * Pages through the leaf records, each page is queried on demand so only
+     * one page is held in memory at a time.
+     */
+    public Iterator<EntityDataPage> iterateAttributeValuesOfLeafNode(EntityOperationRootCondition condition,
+            int pageSize, RestTemplate restTemplate) {
+        return new EntityDataPageIterator(condition, pageSize, restTemplate);
+    }
+
+    private List<Map<String, Object>> buildRecordMaps(List<EntityDataDelegate> entityDelegates) {
         List<Map<String,Object>> result = new ArrayList<>();
         if(entityDelegates == null) {
         	return result;
@@ -65,6 +119,7 @@ public class StandardEntityOperationService {
 
         EntityOperationContext ctx = buildEntityOperationContext(condition, jwtSsoRestTemplate);
         ctx.setEntityOperationType(EntityOperationType.QUERY);
+        ctx.setLeafAttributeValuesOnly(true);
         return standardEntityQueryExcutor.executeQueryLeafAttributes(ctx);
     }
     
@@ -75,6 +130,7 @@ public class StandardEntityOperationService {
 
         EntityOperationContext ctx = buildEntityOperationContext(condition, restTemplate);
         ctx.setEntityOperationType(EntityOperationType.QUERY);
+        ctx.setLeafAttributeValuesOnly(true);
         return standardEntityQueryExcutor.executeQueryLeafAttributes(ctx);
     }
     
@@ -95,6 +151,38 @@ public class StandardEntityOperationService {
         update(condition,attrValueToUpdate, jwtSsoRestTemplate);
         return;
     }
+
+    public void update(EntityDataUpdateBatch updateBatch) {
+        update(updateBatch, jwtSsoRestTemplate);
+    }
+
+    /**
+     * Writes all the collected attributes with one update request per entity
+     * type, expressions sharing path prefixes are traversed once.
+     */
+    public void update(EntityDataUpdateBatch updateBatch, RestTemplate restTemplate) {
+        if (updateBatch == null || updateBatch.isEmpty()) {
+            return;
+        }
+
+        if (log.isInfoEnabled()) {
+            log.info("update entities with {} attribute writes", updateBatch.size());
+        }
+
+        List<EntityOperationContext> ctxs = new ArrayList<>();
+        List<Object> valuesToUpdate = new ArrayList<>();
+        for (EntityDataUpdate update : updateBatch.getUpdates()) {
+            EntityOperationContext ctx = buildEntityOperationContext(update.getCondition(), restTemplate);
+            ctx.setEntityOperationType(EntityOperationType.UPDATE);
+
+            ctxs.add(ctx);
+            valuesToUpdate.add(update.getAttrValueToUpdate());
+        }
+
+        try (EntityQueryScope queryScope = openQueryScope()) {
+            standardEntityQueryExcutor.executeBatchUpdate(ctxs, valuesToUpdate);
+        }
+    }
     
     public EntityTreeNodesOverview generateEntityLinkOverview(EntityOperationRootCondition condition){
         return generateEntityLinkOverview(condition, jwtSsoRestTemplate);
@@ -128,7 +216,9 @@ public class StandardEntityOperationService {
         ctx.setEntityQueryExprNodeInfos(exprNodeInfos);
         ctx.setOriginalEntityLinkExpression(condition.getEntityLinkExpr());
         ctx.setOriginalEntityData(condition.getEntityIdentity());
-        ctx.setStandardEntityOperationRestClient(new StandardEntityOperationRestClient(restTemplate));
+        ctx.setStandardEntityOperationRestClient(new StandardEntityOperationRestClient(restTemplate)
+                .withRequestLogSampleRate(entityOperationProperties.getRequestLogSampleRate())
+                .withMaxLoggedPayloadLength(entityOperationProperties.getRequestLogMaxPayloadLength()));
         ctx.setHeadEntityQueryLinkNode(standardEntityQueryExcutor.buildEntityQueryLinkNode(exprNodeInfos));
         ctx.setEntityDataRouteFactory(entityDataRouteFactory);
 
@@ -140,4 +230,35 @@ public class StandardEntityOperationService {
         return jwtSsoRestTemplate;
     }
 
+    private class EntityDataPageIterator implements Iterator<EntityDataPage> {
+        private final EntityOperationRootCondition condition;
+        private final int pageSize;
+        private final RestTemplate restTemplate;
+        private String nextCursor;
+        private boolean started;
+
+        EntityDataPageIterator(EntityOperationRootCondition condition, int pageSize, RestTemplate restTemplate) {
+            this.condition = condition;
+            this.pageSize = pageSize;
+            this.restTemplate = restTemplate;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !started || nextCursor != null;
+        }
+
+        @Override
+        public EntityDataPage next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            EntityDataPage page = queryAttributeValuesOfLeafNode(condition, pageSize, nextCursor, restTemplate);
+            started = true;
+            nextCursor = page.getNextCursor();
+            return page;
+        }
+    }
+
 }
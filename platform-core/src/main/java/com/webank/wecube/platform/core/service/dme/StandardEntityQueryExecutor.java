@@ -1,13 +1,40 @@
 package com.webank.wecube.platform.core.service.dme;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.google.common.collect.Lists;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.EntityOperationProperties;
+import com.webank.wecube.platform.core.commons.AuthenticationContextHolder;
+import com.webank.wecube.platform.core.commons.AuthenticationContextHolder.AuthenticatedUser;
 
 /**
  * 
@@ -18,6 +45,32 @@ import org.springframework.stereotype.Service;
 public class StandardEntityQueryExecutor implements EntityQueryExecutor {
     private static final Logger log = LoggerFactory.getLogger(StandardEntityQueryExecutor.class);
 
+    @Autowired
+    private EntityOperationProperties entityOperationProperties;
+
+    @Autowired
+    private EntityQueryResultCache entityQueryResultCache;
+
+    private ExecutorService queryExecutor;
+
+    private final Map<String, Semaphore> packageQueryPermits = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void afterPropertiesSet() {
+        int poolSize = Math.max(1, entityOperationProperties.getQueryPoolSize());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new CustomizableThreadFactory("entity-query-"));
+        executor.allowCoreThreadTimeOut(true);
+        this.queryExecutor = executor;
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        if (queryExecutor != null) {
+            queryExecutor.shutdownNow();
+        }
+    }
+
     @Override
     public EntityTreeNodesOverview generateEntityLinkOverview(EntityOperationContext ctx) {
         doExecuteQuery(ctx);
@@ -34,80 +87,122 @@ public class StandardEntityQueryExecutor implements EntityQueryExecutor {
         return generateHierarchicalEntityTreeNodes(ctx);
     }
 
-    private void pupolateTreeNodeWithLinkNode(List<TreeNode> result, EntityQueryLinkNode linkNode) {
+    private void pupolateTreeNodeWithLinkNode(TreeNodeIndex treeNodeIndex, EntityQueryLinkNode linkNode) {
         for (EntityDataDelegate delegate : linkNode.getEntityDataDelegates()) {
-
-            TreeNode currTreeNode = findTreeNode(result, delegate.getPackageName(), delegate.getEntityName(),
-                    delegate.getId());
-            if (currTreeNode == null) {
-                currTreeNode = new TreeNode();
-                currTreeNode.setRootId(delegate.getId());
-                currTreeNode.setDisplayName(delegate.getDisplayName());
-                currTreeNode.setEntityName(delegate.getEntityName());
-                currTreeNode.setPackageName(delegate.getPackageName());
-
-                result.add(currTreeNode);
-            }
+            TreeNode currTreeNode = treeNodeIndex.findOrCreateTreeNode(delegate);
 
             EntityDataDelegate prevDelegate = delegate.getPreviousEntity();
             if (prevDelegate != null) {
-                TreeNode prevTreeNode = findTreeNode(result, prevDelegate.getPackageName(),
-                        prevDelegate.getEntityName(), prevDelegate.getId());
-                if (prevTreeNode == null) {
-                    prevTreeNode = new TreeNode();
-                    prevTreeNode.setRootId(prevDelegate.getId());
-                    prevTreeNode.setDisplayName(prevDelegate.getDisplayName());
-                    prevTreeNode.setEntityName(prevDelegate.getEntityName());
-                    prevTreeNode.setPackageName(prevDelegate.getPackageName());
-
-                    result.add(prevTreeNode);
-                }
-
-                currTreeNode.setParent(prevTreeNode);
-                prevTreeNode.addChildren(currTreeNode);
+                TreeNode prevTreeNode = treeNodeIndex.findOrCreateTreeNode(prevDelegate);
+                treeNodeIndex.link(prevTreeNode, currTreeNode);
             }
 
             for (EntityDataDelegate succeedingDelegate : delegate.getSucceedingEntities()) {
-                TreeNode succeedingTreeNode = findTreeNode(result, succeedingDelegate.getPackageName(),
-                        succeedingDelegate.getEntityName(), succeedingDelegate.getId());
-                if (succeedingTreeNode == null) {
-                    succeedingTreeNode = new TreeNode();
-                    succeedingTreeNode.setRootId(succeedingDelegate.getId());
-                    succeedingTreeNode.setDisplayName(succeedingDelegate.getDisplayName());
-                    succeedingTreeNode.setEntityName(succeedingDelegate.getEntityName());
-                    succeedingTreeNode.setPackageName(succeedingDelegate.getPackageName());
-
-                    result.add(succeedingTreeNode);
+                TreeNode succeedingTreeNode = treeNodeIndex.findOrCreateTreeNode(succeedingDelegate);
+                treeNodeIndex.link(currTreeNode, succeedingTreeNode);
+            }
+        }
+    }
+
+    public void executeUpdate(EntityOperationContext ctx, Object valueToUpdate) {
+        List<EntityDataDelegate> entitiesToUpdate = executeQueryLeafEntity(ctx);
+        List<EntityDataRecord> entityDataRecordsToUpdate = buildEntityDataRecords(entitiesToUpdate, valueToUpdate);
+
+        EntityRouteDescription entityDef = deduceLeafEntityDescription(ctx);
+
+        StandardEntityOperationRestClient restClient = ctx.getStandardEntityOperationRestClient();
+        restClient.update(entityDef, entityDataRecordsToUpdate);
+        entityQueryResultCache.invalidate(entityDef.getPackageName(), entityDef.getEntityName());
+    }
+
+    /**
+     * Resolves the leaf entities of all contexts first, merges the attributes
+     * to write by entity id and then sends one update request per entity
+     * type. Failed writes do not stop the others, the first failure is thrown
+     * after all the others have been written.
+     */
+    public void executeBatchUpdate(List<EntityOperationContext> ctxs, List<Object> valuesToUpdate) {
+        if (ctxs.size() != valuesToUpdate.size()) {
+            throw new IllegalArgumentException("Each entity operation context should have one value to update.");
+        }
+
+        Map<String, EntityRouteDescription> entityDefsByType = new LinkedHashMap<>();
+        Map<String, StandardEntityOperationRestClient> restClientsByType = new HashMap<>();
+        Map<String, Map<String, EntityDataRecord>> recordsByType = new LinkedHashMap<>();
+        RuntimeException failure = null;
+
+        for (int i = 0; i < ctxs.size(); i++) {
+            EntityOperationContext ctx = ctxs.get(i);
+            try {
+                List<EntityDataDelegate> entitiesToUpdate = executeQueryLeafEntity(ctx);
+                List<EntityDataRecord> entityDataRecordsToUpdate = buildEntityDataRecords(entitiesToUpdate,
+                        valuesToUpdate.get(i));
+
+                EntityRouteDescription entityDef = deduceLeafEntityDescription(ctx);
+                String entityType = entityDef.getPackageName() + ":" + entityDef.getEntityName();
+                entityDefsByType.putIfAbsent(entityType, entityDef);
+                restClientsByType.putIfAbsent(entityType, ctx.getStandardEntityOperationRestClient());
+
+                Map<String, EntityDataRecord> recordsById = recordsByType.computeIfAbsent(entityType,
+                        k -> new LinkedHashMap<>());
+                for (EntityDataRecord record : entityDataRecordsToUpdate) {
+                    mergeEntityDataRecord(recordsById, record);
                 }
+            } catch (RuntimeException e) {
+                log.warn("Errors while resolving entities to update for {}", ctx.getOriginalEntityLinkExpression(), e);
+                failure = addFailure(failure, e);
+            }
+        }
+
+        for (Map.Entry<String, Map<String, EntityDataRecord>> entry : recordsByType.entrySet()) {
+            EntityRouteDescription entityDef = entityDefsByType.get(entry.getKey());
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
 
-                succeedingTreeNode.setParent(currTreeNode);
-                currTreeNode.addChildren(succeedingTreeNode);
+            try {
+                StandardEntityOperationRestClient restClient = restClientsByType.get(entry.getKey());
+                restClient.update(entityDef, new ArrayList<>(entry.getValue().values()));
+            } catch (RuntimeException e) {
+                log.warn("Errors while updating {} records of {}", entry.getValue().size(), entry.getKey(), e);
+                failure = addFailure(failure, e);
+            } finally {
+                entityQueryResultCache.invalidate(entityDef.getPackageName(), entityDef.getEntityName());
             }
         }
+
+        if (failure != null) {
+            throw failure;
+        }
     }
 
-    private TreeNode findTreeNode(List<TreeNode> nodes, String packageName, String entityName, String id) {
-        for (TreeNode n : nodes) {
-            if (n.getPackageName().equals(packageName) && n.getEntityName().equals(entityName)
-                    && n.getRootId().equals(id)) {
-                return n;
-            }
+    private RuntimeException addFailure(RuntimeException failure, RuntimeException e) {
+        if (failure == null) {
+            return e;
         }
 
-        return null;
+        failure.addSuppressed(e);
+        return failure;
     }
 
-    public void executeUpdate(EntityOperationContext ctx, Object valueToUpdate) {
-        List<EntityDataDelegate> entitiesToUpdate = executeQueryLeafEntity(ctx);
-        List<EntityDataRecord> entityDataRecordsToUpdate = buildEntityDataRecords(entitiesToUpdate, valueToUpdate);
+    private void mergeEntityDataRecord(Map<String, EntityDataRecord> recordsById, EntityDataRecord record) {
+        EntityDataRecord existingRecord = recordsById.get(record.getId());
+        if (existingRecord == null) {
+            recordsById.put(record.getId(), record);
+            return;
+        }
 
+        for (EntityDataAttr attr : record.getAttrs()) {
+            existingRecord.getAttrs().removeIf(a -> a.getAttrName().equals(attr.getAttrName()));
+            existingRecord.addAttrs(attr);
+        }
+    }
+
+    private EntityRouteDescription deduceLeafEntityDescription(EntityOperationContext ctx) {
         EntityQueryLinkNode leafLinkNode = ctx.getTailEntityQueryLinkNode();
         EntityQueryExprNodeInfo nodeInfo = leafLinkNode.getExprNodeInfo();
-        EntityRouteDescription entityDef = ctx.getEntityDataRouteFactory()
-                .deduceEntityDescription(nodeInfo.getEntityName(), nodeInfo.getPackageName());
-
-        StandardEntityOperationRestClient restClient = ctx.getStandardEntityOperationRestClient();
-        restClient.update(entityDef, entityDataRecordsToUpdate);
+        return ctx.getEntityDataRouteFactory().deduceEntityDescription(nodeInfo.getPackageName(),
+                nodeInfo.getEntityName());
     }
 
     public EntityQueryLinkNode buildEntityQueryLinkNode(List<EntityQueryExprNodeInfo> exprNodeInfos) {
@@ -155,7 +250,7 @@ public class StandardEntityQueryExecutor implements EntityQueryExecutor {
 
         EntityQueryExprNodeInfo nodeInfo = linkNode.getExprNodeInfo();
         EntityRouteDescription entityDef = ctx.getEntityDataRouteFactory()
-                .deduceEntityDescription(nodeInfo.getEntityName(), nodeInfo.getPackageName());
+                .deduceEntityDescription(nodeInfo.getPackageName(), nodeInfo.getEntityName());
 
         doPerformQuery(ctx, linkNode, entityDef);
     }
@@ -223,13 +318,62 @@ public class StandardEntityQueryExecutor implements EntityQueryExecutor {
 
         EntityQueryLinkNode previousLinkNode = linkNode.getPreviousNode();
         List<EntityDataDelegate> prevEntityDataDelegates = previousLinkNode.getEntityDataDelegates();
+        if (prevEntityDataDelegates == null || prevEntityDataDelegates.isEmpty()) {
+            return;
+        }
 
-        if (prevEntityDataDelegates != null) {
-            for (EntityDataDelegate prevEntityDataDelegate : prevEntityDataDelegates) {
-                EntityQuerySpecification querySpec = buildRefByEntityQuerySpecification(ctx, linkNode, entityDef,
-                        exprNodeInfo, previousLinkNode, prevEntityDataDelegate);
+        Set<String> prevIds = new LinkedHashSet<>();
+        for (EntityDataDelegate prevEntityDataDelegate : prevEntityDataDelegates) {
+            if (prevEntityDataDelegate != null && prevEntityDataDelegate.getId() != null) {
+                prevIds.add(prevEntityDataDelegate.getId());
+            }
+        }
+
+        List<List<String>> prevIdsChunks = partitionIds(new ArrayList<>(prevIds));
+        List<EntityQuerySpecification> querySpecs = new ArrayList<>();
+        for (List<String> prevIdsChunk : prevIdsChunks) {
+            querySpecs.add(buildRefByEntityQuerySpecification(exprNodeInfo, prevIdsChunk));
+        }
+        List<List<Map<String, Object>>> chunkRecordMapLists = queryEntityData(ctx, entityDef, querySpecs,
+                buildResultAttrNames(ctx, exprNodeInfo));
+
+        Map<String, List<Map<String, Object>>> recordMapsByPrevId = new HashMap<>();
+        for (int i = 0; i < prevIdsChunks.size(); i++) {
+            List<String> prevIdsChunk = prevIdsChunks.get(i);
+            List<Map<String, Object>> recordMapList = chunkRecordMapLists.get(i);
+
+            if (prevIdsChunk.size() == 1) {
+                recordMapsByPrevId.computeIfAbsent(prevIdsChunk.get(0), k -> new ArrayList<>()).addAll(recordMapList);
+                continue;
+            }
+
+            Set<String> prevIdsInChunk = new HashSet<>(prevIdsChunk);
+            for (Map<String, Object> recordMap : recordMapList) {
+                boolean attached = false;
+                for (String refId : parseReferenceIds(recordMap.get(exprNodeInfo.getRefByAttrName()))) {
+                    if (prevIdsInChunk.contains(refId)) {
+                        recordMapsByPrevId.computeIfAbsent(refId, k -> new ArrayList<>()).add(recordMap);
+                        attached = true;
+                    }
+                }
+
+                if (!attached) {
+                    log.warn("Cannot attach {} {} to any previous entity by attribute {}.", entityDef.getEntityName(),
+                            recordMap.get(EntityDataDelegate.UNIQUE_IDENTIFIER), exprNodeInfo.getRefByAttrName());
+                }
+            }
+        }
 
-                performRestOperation(ctx, linkNode, entityDef, prevEntityDataDelegate, querySpec);
+        for (EntityDataDelegate prevEntityDataDelegate : prevEntityDataDelegates) {
+            if (prevEntityDataDelegate == null || prevEntityDataDelegate.getId() == null) {
+                continue;
+            }
+            List<Map<String, Object>> recordMapList = recordMapsByPrevId.get(prevEntityDataDelegate.getId());
+            if (recordMapList == null) {
+                continue;
+            }
+            for (Map<String, Object> recordMap : recordMapList) {
+                linkNode.addEntityDataDelegates(buildEntityDataDelegate(prevEntityDataDelegate, recordMap, linkNode));
             }
         }
     }
@@ -242,25 +386,10 @@ public class StandardEntityQueryExecutor implements EntityQueryExecutor {
         }
     }
 
-    private EntityQuerySpecification buildRefByEntityQuerySpecification(EntityOperationContext ctx,
-            EntityQueryLinkNode linkNode, EntityRouteDescription entityDef, EntityQueryExprNodeInfo exprNodeInfo,
-            EntityQueryLinkNode previousLinkNode, EntityDataDelegate prevEntityDataDelegate) {
-        EntityQuerySpecification querySpec = new EntityQuerySpecification();
-        EntityQueryCriteria criteria = new EntityQueryCriteria();
-        criteria.setAttrName(exprNodeInfo.getRefByAttrName());
-        criteria.setCondition(String.valueOf(prevEntityDataDelegate.getId()));
-
-        if (exprNodeInfo.getAdditionalFilters() != null) {
-            for (EntityQueryFilter f : exprNodeInfo.getAdditionalFilters()) {
-                EntityQueryFilter queryFilter = new EntityQueryFilter();
-                queryFilter.setAttrName(f.getAttrName());
-                queryFilter.setOp(f.getOp());
-                queryFilter.setCondition(f.getCondition());
-                querySpec.addAdditionalFilters(queryFilter);
-            }
-        }
-
-        querySpec.setCriteria(criteria);
+    private EntityQuerySpecification buildRefByEntityQuerySpecification(EntityQueryExprNodeInfo exprNodeInfo,
+            List<String> prevIds) {
+        EntityQuerySpecification querySpec = buildIdsQuerySpecification(exprNodeInfo.getRefByAttrName(), prevIds);
+        copyAdditionalFilters(exprNodeInfo, querySpec);
 
         return querySpec;
     }
@@ -272,84 +401,153 @@ public class StandardEntityQueryExecutor implements EntityQueryExecutor {
                     linkNode.getExprNodeInfo().getEntityQueryNodeExpr());
         }
 
+        EntityQueryExprNodeInfo exprNodeInfo = linkNode.getExprNodeInfo();
+
         EntityQueryLinkNode previousLinkNode = linkNode.getPreviousNode();
         List<EntityDataDelegate> prevEntityDataDelegates = previousLinkNode.getEntityDataDelegates();
-        if (prevEntityDataDelegates != null) {
-            for (EntityDataDelegate prevEntityDataDelegate : prevEntityDataDelegates) {
-                if (prevEntityDataDelegate == null) {
+        if (prevEntityDataDelegates == null || prevEntityDataDelegates.isEmpty()) {
+            return;
+        }
+
+        List<List<String>> refIdsOfPrevEntities = new ArrayList<>();
+        Set<String> refIds = new LinkedHashSet<>();
+        for (EntityDataDelegate prevEntityDataDelegate : prevEntityDataDelegates) {
+            List<String> prevRefIds = prevEntityDataDelegate == null ? Collections.emptyList()
+                    : parseReferenceIds(prevEntityDataDelegate.getQueryAttrValue());
+            refIdsOfPrevEntities.add(prevRefIds);
+            refIds.addAll(prevRefIds);
+        }
+
+        if (log.isInfoEnabled() && (refIds.size() > 1)) {
+            log.info("performing multi-ref-to querying for {} {} with {} ids", exprNodeInfo.getPackageName(),
+                    exprNodeInfo.getEntityName(), refIds.size());
+        }
+
+        List<List<String>> refIdsChunks = partitionIds(new ArrayList<>(refIds));
+        List<EntityQuerySpecification> querySpecs = new ArrayList<>();
+        for (List<String> refIdsChunk : refIdsChunks) {
+            querySpecs.add(buildRefToEntityQuerySpecification(exprNodeInfo, refIdsChunk));
+        }
+        List<List<Map<String, Object>>> chunkRecordMapLists = queryEntityData(ctx, entityDef, querySpecs,
+                buildResultAttrNames(ctx, exprNodeInfo));
+
+        Map<String, List<Map<String, Object>>> recordMapsById = new HashMap<>();
+        for (int i = 0; i < refIdsChunks.size(); i++) {
+            List<String> refIdsChunk = refIdsChunks.get(i);
+            List<Map<String, Object>> recordMapList = chunkRecordMapLists.get(i);
+
+            if (refIdsChunk.size() == 1) {
+                recordMapsById.computeIfAbsent(refIdsChunk.get(0), k -> new ArrayList<>()).addAll(recordMapList);
+                continue;
+            }
+
+            for (Map<String, Object> recordMap : recordMapList) {
+                Object id = recordMap.get(EntityDataDelegate.UNIQUE_IDENTIFIER);
+                if (id == null) {
                     continue;
                 }
+                recordMapsById.computeIfAbsent(String.valueOf(id), k -> new ArrayList<>()).add(recordMap);
+            }
+        }
 
-                performRefToEntityDataDelegate(ctx, linkNode, entityDef, prevEntityDataDelegate, previousLinkNode);
+        for (int i = 0; i < prevEntityDataDelegates.size(); i++) {
+            EntityDataDelegate prevEntityDataDelegate = prevEntityDataDelegates.get(i);
+            for (String refId : refIdsOfPrevEntities.get(i)) {
+                List<Map<String, Object>> recordMapList = recordMapsById.get(refId);
+                if (recordMapList == null) {
+                    continue;
+                }
+                for (Map<String, Object> recordMap : recordMapList) {
+                    linkNode.addEntityDataDelegates(buildEntityDataDelegate(prevEntityDataDelegate, recordMap, linkNode));
+                }
             }
         }
     }
 
-    private void performRefToEntityDataDelegate(EntityOperationContext ctx, EntityQueryLinkNode linkNode,
-            EntityRouteDescription entityDef, EntityDataDelegate prevEntityDataDelegate,
-            EntityQueryLinkNode previousLinkNode) {
-        List<EntityQuerySpecification> querySpecs = buildRefToEntityQuerySpecifications(ctx, linkNode, entityDef,
-                linkNode.getExprNodeInfo(), previousLinkNode, prevEntityDataDelegate);
+    private EntityQuerySpecification buildRefToEntityQuerySpecification(EntityQueryExprNodeInfo exprNodeInfo,
+            List<String> refIds) {
+        EntityQuerySpecification querySpec = buildIdsQuerySpecification(EntityDataDelegate.UNIQUE_IDENTIFIER,
+                refIds);
+        copyAdditionalFilters(exprNodeInfo, querySpec);
 
-        if (log.isInfoEnabled() && (querySpecs.size() > 1)) {
-            log.info("performing multi-ref-to querying for {} {}", linkNode.getExprNodeInfo().getPackageName(),
-                    linkNode.getExprNodeInfo().getEntityName());
-        }
+        return querySpec;
+    }
 
-        for (EntityQuerySpecification querySpec : querySpecs) {
-            performRestOperation(ctx, linkNode, entityDef, prevEntityDataDelegate, querySpec);
+    /**
+     * Single id keeps the plain criteria while the others go with an "in"
+     * filter.
+     */
+    private EntityQuerySpecification buildIdsQuerySpecification(String attrName, List<String> ids) {
+        EntityQuerySpecification querySpec = new EntityQuerySpecification();
+        if (ids.size() == 1) {
+            EntityQueryCriteria criteria = new EntityQueryCriteria();
+            criteria.setAttrName(attrName);
+            criteria.setCondition(ids.get(0));
+            querySpec.setCriteria(criteria);
+            return querySpec;
         }
 
+        EntityQueryFilter idsFilter = new EntityQueryFilter();
+        idsFilter.setAttrName(attrName);
+        idsFilter.setOp(EntityQueryFilter.OP_IN);
+        idsFilter.setCondition(new ArrayList<>(ids));
+        querySpec.addAdditionalFilters(idsFilter);
+
+        return querySpec;
     }
 
-    private List<EntityQuerySpecification> buildRefToEntityQuerySpecifications(EntityOperationContext ctx,
-            EntityQueryLinkNode linkNode, EntityRouteDescription entityDef, EntityQueryExprNodeInfo exprNodeInfo,
-            EntityQueryLinkNode previousLinkNode, EntityDataDelegate prevEntityDataDelegate) {
-        List<EntityQuerySpecification> specs = new ArrayList<EntityQuerySpecification>();
-        if (prevEntityDataDelegate.getQueryAttrValue() == null) {
-            return specs;
+    private void copyAdditionalFilters(EntityQueryExprNodeInfo exprNodeInfo, EntityQuerySpecification querySpec) {
+        if (exprNodeInfo.getAdditionalFilters() == null) {
+            return;
         }
 
-        String queryAttrValueStr = String.valueOf(prevEntityDataDelegate.getQueryAttrValue());
-        if (queryAttrValueStr.trim().length() <= 0) {
-            return specs;
+        for (EntityQueryFilter f : exprNodeInfo.getAdditionalFilters()) {
+            EntityQueryFilter queryFilter = new EntityQueryFilter();
+            queryFilter.setAttrName(f.getAttrName());
+            queryFilter.setOp(f.getOp());
+            queryFilter.setCondition(f.getCondition());
+            querySpec.addAdditionalFilters(queryFilter);
         }
+    }
 
-        queryAttrValueStr = stripHeadAndTailChar(queryAttrValueStr, "[");
-        queryAttrValueStr = stripHeadAndTailChar(queryAttrValueStr, "]");
-
-        String[] queryAttrValueParts = queryAttrValueStr.split(",");
+    private List<List<String>> partitionIds(List<String> ids) {
+        int batchSize = Math.max(1, entityOperationProperties.getQueryBatchSize());
+        return Lists.partition(ids, batchSize);
+    }
 
-        for (String queryAttrValuePart : queryAttrValueParts) {
-            EntityQuerySpecification spec = buildRefToEntityQuerySpecification(ctx, linkNode, entityDef, exprNodeInfo,
-                    previousLinkNode, prevEntityDataDelegate, queryAttrValuePart);
-            specs.add(spec);
+    @SuppressWarnings("unchecked")
+    private List<String> parseReferenceIds(Object refValue) {
+        List<String> refIds = new ArrayList<>();
+        if (refValue == null) {
+            return refIds;
         }
 
-        return specs;
-    }
-
-    private EntityQuerySpecification buildRefToEntityQuerySpecification(EntityOperationContext ctx,
-            EntityQueryLinkNode linkNode, EntityRouteDescription entityDef, EntityQueryExprNodeInfo exprNodeInfo,
-            EntityQueryLinkNode previousLinkNode, EntityDataDelegate prevEntityDataDelegate, String queryAttrValueStr) {
-        EntityQuerySpecification querySpec = new EntityQuerySpecification();
-        EntityQueryCriteria criteria = new EntityQueryCriteria();
-        criteria.setAttrName(EntityDataDelegate.UNIQUE_IDENTIFIER);
-        criteria.setCondition(queryAttrValueStr.trim());
+        if (refValue instanceof Collection) {
+            for (Object refElement : (Collection<Object>) refValue) {
+                refIds.addAll(parseReferenceIds(refElement));
+            }
+            return refIds;
+        }
 
-        if (exprNodeInfo.getAdditionalFilters() != null) {
-            for (EntityQueryFilter f : exprNodeInfo.getAdditionalFilters()) {
-                EntityQueryFilter queryFilter = new EntityQueryFilter();
-                queryFilter.setAttrName(f.getAttrName());
-                queryFilter.setOp(f.getOp());
-                queryFilter.setCondition(f.getCondition());
-                querySpec.addAdditionalFilters(queryFilter);
+        if (refValue instanceof Map) {
+            Object id = ((Map<String, Object>) refValue).get(EntityDataDelegate.UNIQUE_IDENTIFIER);
+            if (id != null) {
+                refIds.add(String.valueOf(id));
             }
+            return refIds;
         }
 
-        querySpec.setCriteria(criteria);
+        String refValueStr = String.valueOf(refValue).trim();
+        refValueStr = stripHeadAndTailChar(refValueStr, "[");
+        refValueStr = stripHeadAndTailChar(refValueStr, "]");
+        for (String refValuePart : refValueStr.split(",")) {
+            String refId = refValuePart.trim();
+            if (refId.length() > 0) {
+                refIds.add(refId);
+            }
+        }
 
-        return querySpec;
+        return refIds;
     }
 
     private void doPerformHeadEntityLinkNodeQuery(EntityOperationContext ctx, EntityQueryLinkNode linkNode,
@@ -368,32 +566,212 @@ public class StandardEntityQueryExecutor implements EntityQueryExecutor {
             criteria.setCondition(ctx.getOriginalEntityData());
         }
 
-        if (exprNodeInfo.getAdditionalFilters() != null) {
-            for (EntityQueryFilter f : exprNodeInfo.getAdditionalFilters()) {
-                EntityQueryFilter queryFilter = new EntityQueryFilter();
-                queryFilter.setAttrName(f.getAttrName());
-                queryFilter.setOp(f.getOp());
-                queryFilter.setCondition(f.getCondition());
-                querySpec.addAdditionalFilters(queryFilter);
-            }
-        }
+        copyAdditionalFilters(exprNodeInfo, querySpec);
 
         if (criteria != null) {
             querySpec.setCriteria(criteria);
         }
 
-        performRestOperation(ctx, linkNode, entityDef, null, querySpec);
+        if (ctx.getHeadEntityPageSize() == null) {
+            performRestOperation(ctx, linkNode, entityDef, null, querySpec);
+            return;
+        }
 
+        performHeadEntityPageQuery(ctx, linkNode, entityDef, querySpec);
+    }
+
+    /**
+     * Queries one page of head entities after the cursor of context. A plugin
+     * not supporting paging returns all records, which are taken as the last
+     * page, or the records of first page again, which is detected by the
+     * cursor record and taken as end of data.
+     */
+    private void performHeadEntityPageQuery(EntityOperationContext ctx, EntityQueryLinkNode linkNode,
+            EntityRouteDescription entityDef, EntityQuerySpecification querySpec) {
+        int pageSize = ctx.getHeadEntityPageSize();
+        String cursor = ctx.getHeadEntityCursor();
+        querySpec.setPageSize(pageSize);
+        querySpec.setCursor(cursor);
+
+        List<Map<String, Object>> recordMapList = queryEntityData(ctx, entityDef,
+                Collections.singletonList(querySpec), buildResultAttrNames(ctx, linkNode.getExprNodeInfo())).get(0);
+
+        ctx.setNextHeadEntityCursor(null);
+        if (cursor != null) {
+            for (Map<String, Object> recordMap : recordMapList) {
+                if (cursor.equals(recordMap.get(EntityDataDelegate.UNIQUE_IDENTIFIER))) {
+                    log.warn("paging is not supported by {}, stop paging at cursor {}", entityDef.getPackageName(),
+                            cursor);
+                    return;
+                }
+            }
+        }
+
+        performEntityDataExtraction(ctx, linkNode, null, recordMapList);
+
+        if (recordMapList.size() == pageSize) {
+            Map<String, Object> lastRecordMap = recordMapList.get(recordMapList.size() - 1);
+            ctx.setNextHeadEntityCursor((String) lastRecordMap.get(EntityDataDelegate.UNIQUE_IDENTIFIER));
+        }
     }
 
     private void performRestOperation(EntityOperationContext ctx, EntityQueryLinkNode linkNode,
             EntityRouteDescription entityDef, EntityDataDelegate prevEntityDataDelegate,
             EntityQuerySpecification querySpec) {
+        List<Map<String, Object>> recordMapList = queryEntityData(ctx, entityDef,
+                Collections.singletonList(querySpec), buildResultAttrNames(ctx, linkNode.getExprNodeInfo())).get(0);
+        performEntityDataExtraction(ctx, linkNode, prevEntityDataDelegate, recordMapList);
+    }
+
+    /**
+     * Attributes of each record which are needed to link and extract leaf
+     * attribute values, or null if whole records are needed.
+     */
+    private Set<String> buildResultAttrNames(EntityOperationContext ctx, EntityQueryExprNodeInfo exprNodeInfo) {
+        if (!ctx.isLeafAttributeValuesOnly()) {
+            return null;
+        }
+
+        Set<String> resultAttrNames = new TreeSet<>();
+        resultAttrNames.add(EntityDataDelegate.UNIQUE_IDENTIFIER);
+        resultAttrNames.add(EntityDataDelegate.VISUAL_FIELD);
+        if (exprNodeInfo.getQueryAttrName() != null) {
+            resultAttrNames.add(exprNodeInfo.getQueryAttrName());
+        }
+        if (exprNodeInfo.getRefByAttrName() != null) {
+            resultAttrNames.add(exprNodeInfo.getRefByAttrName());
+        }
+        return resultAttrNames;
+    }
+
+    /**
+     * Results already memoized in the current query scope or the shared query
+     * cache are reused, only the remaining queries go to the plugin, results
+     * are returned in the same order as the query specifications.
+     */
+    private List<List<Map<String, Object>>> queryEntityData(EntityOperationContext ctx,
+            EntityRouteDescription entityDef, List<EntityQuerySpecification> querySpecs,
+            Set<String> resultAttrNames) {
+        List<List<Map<String, Object>>> chunkRecordMapLists = new ArrayList<>();
+        List<String> missedCacheKeys = new ArrayList<>();
+        List<Integer> missedIndexes = new ArrayList<>();
+        List<EntityQuerySpecification> missedQuerySpecs = new ArrayList<>();
+        for (int i = 0; i < querySpecs.size(); i++) {
+            EntityQuerySpecification querySpec = querySpecs.get(i);
+            String cacheKey = entityQueryResultCache.buildCacheKey(entityDef, querySpec, resultAttrNames);
+            List<Map<String, Object>> recordMapList = entityQueryResultCache.get(cacheKey);
+            if (recordMapList == null) {
+                missedCacheKeys.add(cacheKey);
+                missedIndexes.add(i);
+                missedQuerySpecs.add(querySpec);
+            }
+            chunkRecordMapLists.add(recordMapList);
+        }
+
+        if (missedQuerySpecs.isEmpty()) {
+            return chunkRecordMapLists;
+        }
+
+        List<List<Map<String, Object>>> missedRecordMapLists = doQueryEntityData(ctx, entityDef, missedQuerySpecs,
+                resultAttrNames);
+        for (int i = 0; i < missedRecordMapLists.size(); i++) {
+            List<Map<String, Object>> recordMapList = entityQueryResultCache.put(missedCacheKeys.get(i),
+                    missedRecordMapLists.get(i));
+            chunkRecordMapLists.set(missedIndexes.get(i), recordMapList);
+        }
+
+        return chunkRecordMapLists;
+    }
+
+    /**
+     * Performs the given queries either one by one or concurrently with at
+     * most max-concurrency-per-package queries in flight to the same package,
+     * results are returned in the same order as the query specifications.
+     */
+    private List<List<Map<String, Object>>> doQueryEntityData(EntityOperationContext ctx,
+            EntityRouteDescription entityDef, List<EntityQuerySpecification> querySpecs,
+            Set<String> resultAttrNames) {
+        List<List<Map<String, Object>>> chunkRecordMapLists = new ArrayList<>();
+        if (!entityOperationProperties.isParallelQueryEnabled() || querySpecs.size() <= 1) {
+            for (EntityQuerySpecification querySpec : querySpecs) {
+                chunkRecordMapLists.add(queryEntityData(ctx, entityDef, querySpec, resultAttrNames));
+            }
+            return chunkRecordMapLists;
+        }
+
+        Semaphore packagePermits = packageQueryPermits.computeIfAbsent(entityDef.getPackageName(),
+                k -> new Semaphore(Math.max(1, entityOperationProperties.getMaxConcurrencyPerPackage())));
+        AuthenticatedUser currentUser = AuthenticationContextHolder.getCurrentUser();
+        List<Future<List<Map<String, Object>>>> futures = new ArrayList<>();
+        try {
+            for (EntityQuerySpecification querySpec : querySpecs) {
+                packagePermits.acquire();
+                try {
+                    futures.add(queryExecutor.submit(() -> {
+                        AuthenticationContextHolder.clearCurrentUser();
+                        AuthenticationContextHolder.setAuthenticatedUser(currentUser);
+                        try {
+                            return queryEntityData(ctx, entityDef, querySpec, resultAttrNames);
+                        } finally {
+                            AuthenticationContextHolder.clearCurrentUser();
+                            packagePermits.release();
+                        }
+                    }));
+                } catch (RejectedExecutionException e) {
+                    packagePermits.release();
+                    throw e;
+                }
+            }
+
+            for (Future<List<Map<String, Object>>> future : futures) {
+                chunkRecordMapLists.add(future.get());
+            }
+            return chunkRecordMapLists;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw buildQueryFailedException(entityDef, "interrupted");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw buildQueryFailedException(entityDef, cause.getMessage());
+        }
+    }
+
+    private EntityOperationException buildQueryFailedException(EntityRouteDescription entityDef, String errorMsg) {
+        String msg = String.format("Errors occurred while fetching data from %s: %s.", entityDef.getPackageName(),
+                errorMsg);
+        return new EntityOperationException("3322", msg, entityDef.getPackageName(), errorMsg);
+    }
+
+    private List<Map<String, Object>> queryEntityData(EntityOperationContext ctx, EntityRouteDescription entityDef,
+            EntityQuerySpecification querySpec, Set<String> resultAttrNames) {
+        StandardEntityOperationResponseDto responseDto = queryRemoteEntity(ctx, entityDef, querySpec,
+                resultAttrNames);
+        return extractEntityDataFromResponse(responseDto.getData());
+    }
+
+    private StandardEntityOperationResponseDto queryRemoteEntity(EntityOperationContext ctx,
+            EntityRouteDescription entityDef, EntityQuerySpecification querySpec, Set<String> resultAttrNames) {
         StandardEntityOperationRestClient restClient = ctx.getStandardEntityOperationRestClient();
-        StandardEntityOperationResponseDto responseDto = restClient.query(entityDef, querySpec);
+        StandardEntityOperationResponseDto responseDto;
+        try {
+            responseDto = restClient.query(entityDef, querySpec, resultAttrNames);
+        } catch (ResourceAccessException e) {
+            EntityRouteDescription gatewayDef = ctx.getEntityDataRouteFactory() == null ? null
+                    : ctx.getEntityDataRouteFactory().getGatewayFallback(entityDef);
+            if (gatewayDef == null) {
+                throw e;
+            }
+
+            log.warn("cannot reach {} directly, query through gateway instead", entityDef, e);
+            entityDef = gatewayDef;
+            responseDto = restClient.query(entityDef, querySpec, resultAttrNames);
+        }
 
         if (StandardEntityOperationResponseDto.STATUS_OK.equalsIgnoreCase(responseDto.getStatus())) {
-            performEntityDataExtraction(ctx, linkNode, prevEntityDataDelegate, responseDto.getData());
+            return responseDto;
         } else {
             log.error("Error status met {} with message {}", responseDto.getStatus(), responseDto.getMessage());
             String msg = String.format("Errors met while fetching data from %s due to status %s.",
@@ -484,17 +862,17 @@ public class StandardEntityQueryExecutor implements EntityQueryExecutor {
     }
 
     protected List<TreeNode> generateHierarchicalEntityTreeNodes(EntityOperationContext ctx) {
-        List<TreeNode> result = new ArrayList<>();
+        TreeNodeIndex treeNodeIndex = new TreeNodeIndex();
 
         EntityQueryLinkNode headEntityQueryLinkNode = ctx.getHeadEntityQueryLinkNode();
         EntityQueryLinkNode linkNode = headEntityQueryLinkNode;
 
         while (linkNode != null) {
-            pupolateTreeNodeWithLinkNode(result, linkNode);
+            pupolateTreeNodeWithLinkNode(treeNodeIndex, linkNode);
             linkNode = linkNode.getSucceedingNode();
         }
 
-        return result;
+        return treeNodeIndex.getTreeNodes();
     }
 
     protected EntityTreeNodesOverview buildEntityTreeNodesOverview(List<TreeNode> hierarchicalEntityNodes,
@@ -549,4 +927,37 @@ public class StandardEntityQueryExecutor implements EntityQueryExecutor {
         return data;
     }
 
+    /**
+     * Tree nodes indexed by package, entity and id, which are the identity of
+     * tree node, to assemble the tree in linear time.
+     */
+    private static class TreeNodeIndex {
+        private final List<TreeNode> treeNodes = new ArrayList<>();
+        private final Map<TreeNode, TreeNode> treeNodesByKey = new HashMap<>();
+        private final Map<TreeNode, Set<TreeNode>> childrenByParent = new HashMap<>();
+
+        TreeNode findOrCreateTreeNode(EntityDataDelegate delegate) {
+            TreeNode key = new TreeNode(delegate.getPackageName(), delegate.getEntityName(), delegate.getId());
+            TreeNode treeNode = treeNodesByKey.get(key);
+            if (treeNode == null) {
+                treeNode = key;
+                treeNode.setDisplayName(delegate.getDisplayName());
+
+                treeNodesByKey.put(treeNode, treeNode);
+                treeNodes.add(treeNode);
+            }
+            return treeNode;
+        }
+
+        void link(TreeNode parent, TreeNode child) {
+            child.setParent(parent);
+            if (childrenByParent.computeIfAbsent(parent, k -> new HashSet<>()).add(child)) {
+                parent.getChildren().add(child);
+            }
+        }
+
+        List<TreeNode> getTreeNodes() {
+            return treeNodes;
+        }
+    }
 }
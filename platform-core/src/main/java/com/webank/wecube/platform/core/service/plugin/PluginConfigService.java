@@ -48,7 +48,9 @@ import com.webank.wecube.platform.core.jpa.PluginConfigRepository;
 import com.webank.wecube.platform.core.jpa.PluginPackageDataModelRepository;
 import com.webank.wecube.platform.core.jpa.PluginPackageEntityRepository;
 import com.webank.wecube.platform.core.jpa.PluginPackageRepository;
+import com.webank.wecube.platform.core.service.PluginRouteItemService;
 import com.webank.wecube.platform.core.service.user.UserManagementServiceImpl;
+import com.webank.wecube.platform.core.service.workflow.ProcDefMetadataCache;
 import com.webank.wecube.platform.core.utils.CollectionUtils;
 
 @Service
@@ -73,6 +75,12 @@ public class PluginConfigService {
     @Autowired
     private UserManagementServiceImpl userManagementService;
 
+    @Autowired
+    private ProcDefMetadataCache procDefMetadataCache;
+
+    @Autowired
+    private PluginRouteItemService pluginRouteItemService;
+
     public List<PluginConfigInterface> getPluginConfigInterfaces(String pluginConfigId) {
         return pluginConfigRepository.findAllPluginConfigInterfacesByConfigIdAndFetchParameters(pluginConfigId);
     }
@@ -447,7 +455,10 @@ public class PluginConfigService {
         checkMandatoryParameters(pluginConfig);
 
         pluginConfig.setStatus(ENABLED);
-        return PluginConfigDto.fromDomain(pluginConfigRepository.save(pluginConfig));
+        PluginConfigDto result = PluginConfigDto.fromDomain(pluginConfigRepository.save(pluginConfig));
+        procDefMetadataCache.invalidatePluginConfigInterfaces();
+        pluginRouteItemService.publishRouteItemsRefreshed();
+        return result;
     }
 
     private void checkMandatoryParameters(PluginConfig pluginConfig) {
@@ -503,7 +514,10 @@ public class PluginConfigService {
         validateCurrentUserPermission(pluginConfigId, PluginAuthEntity.PERM_TYPE_MGMT);
 
         pluginConfig.setStatus(DISABLED);
-        return PluginConfigDto.fromDomain(pluginConfigRepository.save(pluginConfig));
+        PluginConfigDto result = PluginConfigDto.fromDomain(pluginConfigRepository.save(pluginConfig));
+        procDefMetadataCache.invalidatePluginConfigInterfaces();
+        pluginRouteItemService.publishRouteItemsRefreshed();
+        return result;
     }
 
     public PluginConfigInterface getPluginConfigInterfaceByServiceName(String serviceName) {
@@ -746,6 +760,8 @@ public class PluginConfigService {
             List<PluginConfig> pluginConfigs = pluginConfigsOptional.get();
             pluginConfigs.forEach(pluginConfig -> pluginConfig.setStatus(DISABLED));
             pluginConfigRepository.saveAll(pluginConfigs);
+            procDefMetadataCache.invalidatePluginConfigInterfaces();
+            pluginRouteItemService.publishRouteItemsRefreshed();
         }
     }
 
@@ -0,0 +1,294 @@
+package com.webank.wecube.platform.core.service.plugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
+import com.webank.wecube.platform.core.commons.WecubeCoreException;
+import com.webank.wecube.platform.core.domain.plugin.PluginInstance;
+import com.webank.wecube.platform.core.domain.plugin.PluginPackage;
+import com.webank.wecube.platform.core.jpa.PluginInstanceRepository;
+import com.webank.wecube.platform.core.jpa.PluginPackageRepository;
+
+/**
+ * In-memory view of running plugin instances per plugin package, refreshed
+ * periodically and on instance changes of this node.
+ * <p>
+ * Instances are selected with one of the strategies below:
+ * <ul>
+ * <li>round-robin, the default</li>
+ * <li>weighted, smooth weighted round-robin with weights configured per
+ * {@code host:port}</li>
+ * <li>least-outstanding, the instance with the fewest requests in
+ * progress</li>
+ * </ul>
+ * 
+ * @author gavin
+ *
+ */
+@Component
+public class PluginInstanceRegistry {
+    private static final Logger log = LoggerFactory.getLogger(PluginInstanceRegistry.class);
+
+    public static final String STRATEGY_ROUND_ROBIN = "round-robin";
+    public static final String STRATEGY_WEIGHTED = "weighted";
+    public static final String STRATEGY_LEAST_OUTSTANDING = "least-outstanding";
+
+    @Autowired
+    private PluginInstanceRepository pluginInstanceRepository;
+
+    @Autowired
+    private PluginPackageRepository pluginPackageRepository;
+
+    @Autowired
+    private PluginInvocationProperties pluginInvocationProperties;
+
+    private final Map<String, PluginInstanceGroup> instanceGroups = new ConcurrentHashMap<>();
+
+    private final List<Consumer<String>> invalidationListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Selects a running instance without tracking the request, suitable when
+     * the request is routed by the gateway.
+     */
+    public PluginInstance selectInstance(String pluginName) {
+        return chooseEndpoint(pluginName).getPluginInstance();
+    }
+
+    /**
+     * Selects a running instance and counts the request as outstanding until
+     * {@link PluginInstanceLease#release()} is called.
+     */
+    public PluginInstanceLease acquireInstance(String pluginName) {
+        PluginInstanceEndpoint endpoint = chooseEndpoint(pluginName);
+        endpoint.outstandingRequests.incrementAndGet();
+        return new PluginInstanceLease(endpoint);
+    }
+
+    public List<PluginInstance> getRunningInstances(String pluginName) {
+        PluginInstanceGroup group = getInstanceGroup(pluginName);
+        List<PluginInstance> instances = new ArrayList<>(group.endpoints.size());
+        for (PluginInstanceEndpoint endpoint : group.endpoints) {
+            instances.add(endpoint.getPluginInstance());
+        }
+        return instances;
+    }
+
+    public void invalidate(String pluginName) {
+        if (StringUtils.isBlank(pluginName)) {
+            return;
+        }
+        instanceGroups.remove(pluginName);
+        notifyInvalidated(pluginName);
+    }
+
+    /**
+     * Registers a listener called with the plugin name whenever the running
+     * instances of a plugin are dropped, so that state derived from them can
+     * be dropped as well.
+     */
+    public void addInvalidationListener(Consumer<String> listener) {
+        invalidationListeners.add(listener);
+    }
+
+    private void notifyInvalidated(String pluginName) {
+        for (Consumer<String> listener : invalidationListeners) {
+            try {
+                listener.accept(pluginName);
+            } catch (Exception e) {
+                log.warn("invalidation listener failed for plugin {}", pluginName, e);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${wecube.core.plugin-invocation.instance-refresh-interval-millis:10000}")
+    public void refreshInstanceGroups() {
+        for (String pluginName : new ArrayList<>(instanceGroups.keySet())) {
+            try {
+                PluginInstanceGroup previous = instanceGroups.get(pluginName);
+                instanceGroups.put(pluginName, loadInstanceGroup(pluginName, previous));
+            } catch (Exception e) {
+                log.warn("failed to refresh running instances of plugin {}", pluginName, e);
+                instanceGroups.remove(pluginName);
+                notifyInvalidated(pluginName);
+            }
+        }
+    }
+
+    private PluginInstanceEndpoint chooseEndpoint(String pluginName) {
+        PluginInstanceGroup group = getInstanceGroup(pluginName);
+        if (group.endpoints.isEmpty()) {
+            instanceGroups.remove(pluginName, group);
+            throw new WecubeCoreException("3069",
+                    String.format("No instance for plugin [%s] is available.", pluginName));
+        }
+
+        String strategy = pluginInvocationProperties.getInstanceSelectionStrategy();
+        if (STRATEGY_LEAST_OUTSTANDING.equalsIgnoreCase(strategy)) {
+            return group.chooseLeastOutstanding();
+        } else if (STRATEGY_WEIGHTED.equalsIgnoreCase(strategy)) {
+            return group.chooseWeighted();
+        } else {
+            return group.chooseRoundRobin();
+        }
+    }
+
+    private PluginInstanceGroup getInstanceGroup(String pluginName) {
+        PluginInstanceGroup group = instanceGroups.get(pluginName);
+        if (group != null) {
+            return group;
+        }
+
+        return instanceGroups.computeIfAbsent(pluginName, k -> loadInstanceGroup(k, null));
+    }
+
+    private PluginInstanceGroup loadInstanceGroup(String pluginName, PluginInstanceGroup previous) {
+        List<PluginPackage> activePluginPackages = pluginPackageRepository
+                .findLatestActiveVersionPluginPackagesByName(pluginName);
+        if (activePluginPackages == null || activePluginPackages.isEmpty()) {
+            throw new WecubeCoreException("3068", String.format("Plugin package [%s] not found.", pluginName),
+                    pluginName);
+        }
+
+        List<PluginInstance> runningInstances = new ArrayList<PluginInstance>();
+        for (PluginPackage pkg : activePluginPackages) {
+            List<PluginInstance> instances = pluginInstanceRepository
+                    .findByContainerStatusAndPluginPackage_Id(PluginInstance.CONTAINER_STATUS_RUNNING, pkg.getId());
+            if (instances != null && (!instances.isEmpty())) {
+                runningInstances.addAll(instances);
+            }
+
+            if (runningInstances.size() > 0) {
+                break;
+            }
+        }
+
+        Map<String, PluginInstanceEndpoint> previousEndpoints = new HashMap<>();
+        if (previous != null) {
+            for (PluginInstanceEndpoint endpoint : previous.endpoints) {
+                previousEndpoints.put(endpoint.getPluginInstance().getId(), endpoint);
+            }
+        }
+
+        List<PluginInstanceEndpoint> endpoints = new ArrayList<>(runningInstances.size());
+        for (PluginInstance instance : runningInstances) {
+            PluginInstanceEndpoint previousEndpoint = previousEndpoints.get(instance.getId());
+            // keep counters of known instances so that refreshing does not
+            // reset the load seen by least-outstanding selection
+            AtomicInteger outstandingRequests = previousEndpoint == null ? new AtomicInteger(0)
+                    : previousEndpoint.outstandingRequests;
+            endpoints.add(new PluginInstanceEndpoint(instance, getInstanceWeight(instance), outstandingRequests));
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("loaded {} running instances of plugin {}", endpoints.size(), pluginName);
+        }
+        return new PluginInstanceGroup(endpoints);
+    }
+
+    private int getInstanceWeight(PluginInstance instance) {
+        Map<String, Integer> instanceWeights = pluginInvocationProperties.getInstanceWeights();
+        if (instanceWeights == null) {
+            return 1;
+        }
+
+        Integer weight = instanceWeights.get(String.format("%s:%s", instance.getHost(), instance.getPort()));
+        if (weight == null || weight <= 0) {
+            return 1;
+        }
+        return weight;
+    }
+
+    private static class PluginInstanceGroup {
+        private final List<PluginInstanceEndpoint> endpoints;
+        private final AtomicInteger nextIndex = new AtomicInteger(0);
+
+        PluginInstanceGroup(List<PluginInstanceEndpoint> endpoints) {
+            this.endpoints = Collections.unmodifiableList(endpoints);
+        }
+
+        PluginInstanceEndpoint chooseRoundRobin() {
+            int index = Math.floorMod(nextIndex.getAndIncrement(), endpoints.size());
+            return endpoints.get(index);
+        }
+
+        synchronized PluginInstanceEndpoint chooseWeighted() {
+            int totalWeight = 0;
+            PluginInstanceEndpoint best = null;
+            for (PluginInstanceEndpoint endpoint : endpoints) {
+                endpoint.currentWeight += endpoint.weight;
+                totalWeight += endpoint.weight;
+                if (best == null || endpoint.currentWeight > best.currentWeight) {
+                    best = endpoint;
+                }
+            }
+
+            best.currentWeight -= totalWeight;
+            return best;
+        }
+
+        PluginInstanceEndpoint chooseLeastOutstanding() {
+            // start from a rotating offset so that ties are spread evenly
+            int size = endpoints.size();
+            int offset = Math.floorMod(nextIndex.getAndIncrement(), size);
+            PluginInstanceEndpoint best = null;
+            for (int i = 0; i < size; i++) {
+                PluginInstanceEndpoint endpoint = endpoints.get((offset + i) % size);
+                if (best == null || endpoint.outstandingRequests.get() < best.outstandingRequests.get()) {
+                    best = endpoint;
+                }
+            }
+            return best;
+        }
+    }
+
+    private static class PluginInstanceEndpoint {
+        private final PluginInstance pluginInstance;
+        private final int weight;
+        private final AtomicInteger outstandingRequests;
+        private int currentWeight;
+
+        PluginInstanceEndpoint(PluginInstance pluginInstance, int weight, AtomicInteger outstandingRequests) {
+            this.pluginInstance = pluginInstance;
+            this.weight = weight;
+            this.outstandingRequests = outstandingRequests;
+        }
+
+        PluginInstance getPluginInstance() {
+            return pluginInstance;
+        }
+    }
+
+    public static class PluginInstanceLease {
+        private final PluginInstanceEndpoint endpoint;
+        private final AtomicInteger released = new AtomicInteger(0);
+
+        private PluginInstanceLease(PluginInstanceEndpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        public PluginInstance getPluginInstance() {
+            return endpoint.getPluginInstance();
+        }
+
+        public void release() {
+            if (released.compareAndSet(0, 1)) {
+                endpoint.outstandingRequests.decrementAndGet();
+            }
+        }
+    }
+}
@@ -61,16 +61,14 @@ import com.webank.wecube.platform.core.jpa.ResourceItemRepository;
 import com.webank.wecube.platform.core.jpa.ResourceServerRepository;
 import com.webank.wecube.platform.core.propenc.RsaEncryptor;
 import com.webank.wecube.platform.core.service.CommandService;
+import com.webank.wecube.platform.core.service.PluginRouteItemService;
 import com.webank.wecube.platform.core.service.ScpService;
 import com.webank.wecube.platform.core.service.SystemVariableService;
 import com.webank.wecube.platform.core.service.resource.ResourceItemType;
 import com.webank.wecube.platform.core.service.resource.ResourceManagementService;
 import com.webank.wecube.platform.core.service.resource.ResourceServerType;
+import com.webank.wecube.platform.core.service.workflow.ProcDefMetadataCache;
 import com.webank.wecube.platform.core.support.S3Client;
-import com.webank.wecube.platform.core.support.gateway.GatewayResponse;
-import com.webank.wecube.platform.core.support.gateway.GatewayServiceStub;
-import com.webank.wecube.platform.core.support.gateway.RegisterRouteItemsDto;
-import com.webank.wecube.platform.core.support.gateway.RouteItem;
 import com.webank.wecube.platform.core.utils.EncryptionUtils;
 import com.webank.wecube.platform.core.utils.JsonUtils;
 import com.webank.wecube.platform.core.utils.StringUtilsEx;
@@ -108,7 +106,7 @@ public class PluginInstanceService {
     @Autowired
     private ResourceProperties resourceProperties;
     @Autowired
-    GatewayServiceStub gatewayServiceStub;
+    PluginRouteItemService pluginRouteItemService;
     @Autowired
     SystemVariableService systemVariableService;
 
@@ -116,6 +114,10 @@ public class PluginInstanceService {
     private ResourceManagementService resourceManagementService;
     @Autowired
     private ResourceItemRepository resourceItemRepository;
+    @Autowired
+    private PluginInstanceRegistry pluginInstanceRegistry;
+    @Autowired
+    private ProcDefMetadataCache procDefMetadataCache;
 
     private static final int PLUGIN_DEFAULT_START_PORT = 20000;
     private static final int PLUGIN_DEFAULT_END_PORT = 30000;
@@ -171,11 +173,7 @@ public class PluginInstanceService {
     }
 
     public PluginInstance getRunningPluginInstance(String pluginName) {
-        List<PluginInstance> instances = getRunningPluginInstances(pluginName);
-        if (instances.size() > 0) {
-            return instances.get(0);
-        }
-        return null;
+        return pluginInstanceRegistry.selectInstance(pluginName);
     }
 
     public List<PluginInstance> getRunningPluginInstances(String pluginName) {
@@ -610,10 +608,13 @@ public class PluginInstanceService {
         // 4. insert to DB
         instance.setContainerStatus(PluginInstance.CONTAINER_STATUS_RUNNING);
         pluginInstanceRepository.save(instance);
+        pluginInstanceRegistry.invalidate(pluginPackage.getName());
+        // a launch may bring a newer version of the interfaces online
+        procDefMetadataCache.invalidatePluginConfigInterfaces();
 
         // 6. register route
-        GatewayResponse response = registerRoute(pluginPackage.getName(), hostIp, String.valueOf(port));
-        if (!response.getStatus().equals(GatewayResponse.getStatusCodeOk())) {
+        if (!pluginRouteItemService.publishPluginInstanceRouteItemsAdded(pluginPackage.getId(),
+                pluginPackage.getName(), hostIp, port)) {
             logger.error("Launch instance has done, but register routing information is failed, please check");
         }
     }
@@ -917,6 +918,11 @@ public class PluginInstanceService {
         removeDockerInstanceDto.setId(instance.getDockerInstanceResourceId());
         resourceManagementService.deleteItems(Lists.newArrayList(removeDockerInstanceDto));
         pluginInstanceRepository.deleteById(instanceId);
+        if (instance.getPluginPackage() != null) {
+            pluginInstanceRegistry.invalidate(instance.getPluginPackage().getName());
+            pluginRouteItemService.publishPluginInstanceRouteItemsRemoved(instance.getPluginPackage().getName(),
+                    instance.getHost(), instance.getPort());
+        }
     }
 
     private boolean isHostIpAvailable(String hostIp) {
@@ -991,9 +997,4 @@ public class PluginInstanceService {
             return resourceItemId;
         }
     }
-
-    private GatewayResponse registerRoute(String name, String host, String port) {
-        return gatewayServiceStub.registerRoute(
-                new RegisterRouteItemsDto(name, Lists.newArrayList(new RouteItem(name, "http", host, port))));
-    }
 }
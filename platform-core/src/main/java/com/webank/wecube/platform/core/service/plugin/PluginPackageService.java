@@ -91,10 +91,12 @@ import com.webank.wecube.platform.core.parser.PluginPackageValidator;
 import com.webank.wecube.platform.core.parser.PluginPackageXmlParser;
 import com.webank.wecube.platform.core.service.CommandService;
 import com.webank.wecube.platform.core.service.PluginPackageDataModelService;
+import com.webank.wecube.platform.core.service.PluginRouteItemService;
 import com.webank.wecube.platform.core.service.ScpService;
 import com.webank.wecube.platform.core.service.plugin.PluginArtifactOperationExecutor.PluginArtifactPullContext;
 import com.webank.wecube.platform.core.service.user.RoleMenuService;
 import com.webank.wecube.platform.core.service.user.UserManagementService;
+import com.webank.wecube.platform.core.service.workflow.ProcDefMetadataCache;
 import com.webank.wecube.platform.core.support.S3Client;
 import com.webank.wecube.platform.core.support.authserver.AsAuthorityDto;
 import com.webank.wecube.platform.core.support.authserver.AsRoleAuthoritiesDto;
@@ -160,6 +162,12 @@ public class PluginPackageService {
     @Autowired
     private PluginConfigService pluginConfigService;
 
+    @Autowired
+    private PluginRouteItemService pluginRouteItemService;
+
+    @Autowired
+    private ProcDefMetadataCache procDefMetadataCache;
+
     @Autowired
     private UserManagementService userManagementService;
 
@@ -564,7 +572,12 @@ public class PluginPackageService {
 
         pluginPackage.setStatus(REGISTERED);
 
-        return pluginPackageRepository.save(pluginPackage);
+        PluginPackage registeredPluginPackage = pluginPackageRepository.save(pluginPackage);
+        // the latest active package of its name, and so its interface routes,
+        // may have changed
+        pluginRouteItemService.publishRouteItemsRefreshed();
+        procDefMetadataCache.invalidatePluginConfigInterfaces();
+        return registeredPluginPackage;
     }
 
     private void validatePackageDependencies(PluginPackage pluginPackage) {
@@ -998,6 +1011,8 @@ public class PluginPackageService {
         pluginPackage.setStatus(DECOMMISSIONED);
 
         pluginPackageRepository.save(pluginPackage);
+        pluginRouteItemService.publishRouteItemsRefreshed();
+        procDefMetadataCache.invalidatePluginConfigInterfaces();
 
         return pluginPackage;
     }
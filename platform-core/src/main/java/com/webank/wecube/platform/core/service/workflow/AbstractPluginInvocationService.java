@@ -62,6 +62,9 @@ public abstract class AbstractPluginInvocationService extends AbstractWorkflowSe
     @Autowired
     protected PluginConfigService pluginConfigService;
 
+    @Autowired
+    protected ProcDefMetadataCache procDefMetadataCache;
+
     @Autowired
     protected StandardEntityOperationService entityOperationService;
     
@@ -1,5 +1,6 @@
 package com.webank.wecube.platform.core.service.workflow;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -91,18 +92,23 @@ public class AsyncPluginInvocationService extends AbstractPluginInvocationServic
 	protected void doHandleAsyncInvocationResult(String resultCode, String resultMessage, List<Object> resultData,
 			PluginInterfaceInvocationContext ctx) {
 
-		Optional<TaskNodeDefInfoEntity> nodeDefEntityOpt = taskNodeDefInfoRepository
-				.findById(ctx.getTaskNodeInstEntity().getNodeDefId());
-		if (!nodeDefEntityOpt.isPresent()) {
-			log.error("such task node definition does not exist for {} {}", ctx.getTaskNodeInstEntity().getNodeDefId(),
-					ctx.getRequestId());
-			throw new WecubeCoreException("3157","Task node definition does not exist.");
-		}
+		TaskNodeInstInfoEntity nodeInstEntity = ctx.getTaskNodeInstEntity();
+		TaskNodeDefInfoEntity nodeDefEntity = procDefMetadataCache.getDeployedTaskNodeDef(nodeInstEntity.getProcDefId(),
+				nodeInstEntity.getNodeId());
+		if (nodeDefEntity == null || !nodeDefEntity.getId().equals(nodeInstEntity.getNodeDefId())) {
+			Optional<TaskNodeDefInfoEntity> nodeDefEntityOpt = taskNodeDefInfoRepository
+					.findById(nodeInstEntity.getNodeDefId());
+			if (!nodeDefEntityOpt.isPresent()) {
+				log.error("such task node definition does not exist for {} {}", nodeInstEntity.getNodeDefId(),
+						ctx.getRequestId());
+				throw new WecubeCoreException("3157","Task node definition does not exist.");
+			}
 
-		TaskNodeDefInfoEntity nodeDefEntity = nodeDefEntityOpt.get();
+			nodeDefEntity = nodeDefEntityOpt.get();
+		}
 
-		PluginConfigInterface pluginConfigInterface = pluginConfigService
-				.getPluginConfigInterfaceByServiceName(nodeDefEntity.getServiceId());
+		PluginConfigInterface pluginConfigInterface = procDefMetadataCache.getPluginConfigInterface(
+				nodeDefEntity.getProcDefId(), nodeDefEntity.getNodeId(), nodeDefEntity.getServiceId());
 
 		if (pluginConfigInterface == null) {
 			log.error("Plugin config interface does not exist for {}", nodeDefEntity.getServiceId());
@@ -296,16 +302,19 @@ public class AsyncPluginInvocationService extends AbstractPluginInvocationServic
 
 	private void storeOutputParameterMaps(PluginInterfaceInvocationContext ctx,
 			List<Map<String, Object>> outputParameterMaps) {
+		List<TaskNodeExecParamEntity> paramEntities = new ArrayList<TaskNodeExecParamEntity>();
 		int count = 0;
 		for (Map<String, Object> outputParameterMap : outputParameterMaps) {
 			String objectId = String.valueOf(count);
-			storeSingleOutputParameterMap(ctx, outputParameterMap, objectId);
+			storeSingleOutputParameterMap(ctx, outputParameterMap, objectId, paramEntities);
 			count++;
 		}
+
+		taskNodeExecParamRepository.batchInsert(paramEntities);
 	}
 
 	private void storeSingleOutputParameterMap(PluginInterfaceInvocationContext ctx,
-			Map<String, Object> outputParameterMap, String objectId) {
+			Map<String, Object> outputParameterMap, String objectId, List<TaskNodeExecParamEntity> paramEntities) {
 
 		String entityTypeId = null;
 		String entityDataId = null;
@@ -360,7 +369,7 @@ public class AsyncPluginInvocationService extends AbstractPluginInvocationServic
 			paramEntity.setParamDataValue(paramDataValue);
 			paramEntity.setRequestId(requestId);
 
-			taskNodeExecParamRepository.saveAndFlush(paramEntity);
+			paramEntities.add(paramEntity);
 		}
 	}
 
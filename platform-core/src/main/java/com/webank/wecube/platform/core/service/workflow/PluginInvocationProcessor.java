@@ -2,15 +2,31 @@ package com.webank.wecube.platform.core.service.workflow;
 
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
 import com.webank.wecube.platform.core.domain.plugin.PluginConfigInterface;
 import com.webank.wecube.platform.core.entity.workflow.ProcExecBindingEntity;
 import com.webank.wecube.platform.core.entity.workflow.ProcInstInfoEntity;
@@ -18,11 +34,28 @@ import com.webank.wecube.platform.core.entity.workflow.TaskNodeDefInfoEntity;
 import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecRequestEntity;
 import com.webank.wecube.platform.core.entity.workflow.TaskNodeInstInfoEntity;
 import com.webank.wecube.platform.core.model.workflow.PluginInvocationCommand;
+import com.webank.wecube.platform.core.service.plugin.PluginInstanceRegistry.PluginInstanceLease;
 import com.webank.wecube.platform.core.support.plugin.PluginInvocationRestClient;
 import com.webank.wecube.platform.core.support.plugin.dto.PluginResponse;
 import com.webank.wecube.platform.core.support.plugin.dto.PluginResponse.ResultData;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 /**
+ * Dispatches plugin invocations to a bounded worker pool.
+ * <p>
+ * Concurrency is limited per plugin package, invocations beyond the package
+ * limit are queued per package and dispatched in order as permits are
+ * released, so the submitting thread never waits for a permit. Those waiting
+ * longer than the permit timeout are rejected. The submitting thread is
+ * blocked (back-pressure) only once the pool queue is exhausted, so a large
+ * fan-out of task nodes cannot exhaust platform threads.
+ * Asynchronous invocations hold the package permit only until the request is
+ * sent, requests awaiting their responses are bounded by the connections of
+ * the async http client instead. Their responses are handled on a separate
+ * callback pool, never on the http client I/O threads.
  * 
  * @author gavin
  *
@@ -34,18 +67,249 @@ public class PluginInvocationProcessor {
 
     private static final String DEF_DUE_DATE = "30";
 
-    private ExecutorService executorService = Executors.newCachedThreadPool();
+    private static final String UNKNOWN_PACKAGE_NAME = "unknown";
+
+    private static final String METRIC_PREFIX = "wecube.plugin.invocation";
+
+    @Autowired
+    private PluginInvocationProperties pluginInvocationProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executorService;
+
+    private ThreadPoolExecutor callbackExecutorService;
+
+    private final Map<String, PackageInvocationGate> packageGates = new ConcurrentHashMap<>();
+
+    private final AtomicInteger inFlightInvocations = new AtomicInteger(0);
+
+    private Timer waitTimer;
+
+    @PostConstruct
+    public void afterPropertiesSet() {
+        executorService = new ThreadPoolExecutor(pluginInvocationProperties.getCorePoolSize(),
+                pluginInvocationProperties.getMaxPoolSize(), pluginInvocationProperties.getKeepAliveSeconds(),
+                TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(pluginInvocationProperties.getQueueCapacity()),
+                new CustomizableThreadFactory("plugin-invocation-"), new ThreadPoolExecutor.CallerRunsPolicy());
+        // callbacks are bounded by the connections of the async http client,
+        // so the queue is only rejecting after shutdown and the rejection
+        // completes the callback future exceptionally
+        int callbackPoolSize = Math.max(1, pluginInvocationProperties.getCallbackPoolSize());
+        callbackExecutorService = new ThreadPoolExecutor(callbackPoolSize, callbackPoolSize, 0L,
+                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+                new CustomizableThreadFactory("plugin-invocation-callback-"), new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder(METRIC_PREFIX + ".queued", executorService, e -> e.getQueue().size())
+                .description("plugin invocations waiting for a worker").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".inflight", inFlightInvocations, AtomicInteger::get)
+                .description("plugin invocations currently in progress").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".workers", executorService, ThreadPoolExecutor::getPoolSize)
+                .description("plugin invocation worker threads").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".callbacks.queued", callbackExecutorService, e -> e.getQueue().size())
+                .description("plugin responses waiting for a callback worker").register(meterRegistry);
+        waitTimer = Timer.builder(METRIC_PREFIX + ".wait")
+                .description("time between submission and start of plugin invocations").register(meterRegistry);
+
+        log.info("{} is ready with pool size {}-{} and queue capacity {}",
+                PluginInvocationProcessor.class.getSimpleName(), pluginInvocationProperties.getCorePoolSize(),
+                pluginInvocationProperties.getMaxPoolSize(), pluginInvocationProperties.getQueueCapacity());
+    }
+
+    @PreDestroy
+    public void preDestroy() {
+        log.info("try to destroy {} ", PluginInvocationProcessor.class.getSimpleName());
+        if (executorService != null) {
+            executorService.shutdown();
+        }
+
+        if (callbackExecutorService != null) {
+            callbackExecutorService.shutdown();
+        }
+    }
 
     public void process(PluginInvocationOperation operation) {
+        String packageName = operation.getPluginPackageName();
+        getPackageGate(packageName).submit(operation);
+    }
+
+    private boolean isAsyncInvocation(PluginInvocationOperation operation) {
+        return pluginInvocationProperties.isAsyncEnabled() && operation.getPluginInvocationRestClient() != null
+                && operation.getPluginInvocationRestClient().isAsyncSupported();
+    }
+
+    private PackageInvocationGate getPackageGate(String packageName) {
+        return packageGates.computeIfAbsent(packageName, this::createPackageGate);
+    }
+
+    private PackageInvocationGate createPackageGate(String packageName) {
+        int maxConcurrency = pluginInvocationProperties.getMaxConcurrencyOfPackage(packageName);
+        PackageInvocationGate gate = new PackageInvocationGate(packageName, maxConcurrency);
+
+        Gauge.builder(METRIC_PREFIX + ".package.inflight", gate.permits, p -> maxConcurrency - p.availablePermits())
+                .tag("package", packageName).register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".package.waiting", gate.pendingInvocations, ConcurrentLinkedQueue::size)
+                .tag("package", packageName).register(meterRegistry);
+
+        log.info("max concurrency of plugin package {} is {}", packageName, maxConcurrency);
+        return gate;
+    }
+
+    /**
+     * Permits and pending invocations of one plugin package.
+     * <p>
+     * Every invocation is queued first and dispatched by whichever thread
+     * holds a free permit, the submitting thread or the one releasing a
+     * permit, so no thread ever waits for a permit and invocations of a
+     * package start in submission order.
+     */
+    private class PackageInvocationGate {
+        private final String packageName;
+        private final Semaphore permits;
+        private final ConcurrentLinkedQueue<PendingInvocation> pendingInvocations = new ConcurrentLinkedQueue<>();
+        // a task run by the caller of a full pool releases its permit inside
+        // dispatchPending, the outer loop then takes care of what is pending
+        private final ThreadLocal<Boolean> dispatching = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+        PackageInvocationGate(String packageName, int maxConcurrency) {
+            this.packageName = packageName;
+            this.permits = new Semaphore(maxConcurrency);
+        }
+
+        void submit(PluginInvocationOperation operation) {
+            rejectExpiredInvocations();
+            pendingInvocations.offer(new PendingInvocation(operation, System.nanoTime()));
+            dispatchPending();
+        }
+
+        void release() {
+            permits.release();
+            dispatchPending();
+        }
+
+        private void dispatchPending() {
+            if (dispatching.get()) {
+                return;
+            }
+
+            dispatching.set(Boolean.TRUE);
+            try {
+                while (!pendingInvocations.isEmpty() && permits.tryAcquire()) {
+                    PendingInvocation pending = pendingInvocations.poll();
+                    if (pending == null || !dispatch(pending)) {
+                        // checked again by the loop, an invocation queued
+                        // while this thread held the permit is not left behind
+                        permits.release();
+                    }
+                }
+            } finally {
+                dispatching.set(Boolean.FALSE);
+            }
+        }
+
+        private boolean dispatch(PendingInvocation pending) {
+            PluginInvocationOperation operation = pending.operation;
+            if (pending.isExpired()) {
+                rejectExpired(pending);
+                return false;
+            }
+
+            try {
+                executorService.execute(new PluginInvocationTask(operation, this, pending.submitTime));
+                return true;
+            } catch (RejectedExecutionException e) {
+                log.warn("plugin invocation rejected for {}", operation.getRequestId(), e);
+                operation.reject("Plugin invocation rejected:" + e.getMessage());
+                return false;
+            }
+        }
+
+        /**
+         * Rejects the invocations that have been waiting too long, oldest
+         * first, so they are not kept while every permit stays taken.
+         */
+        private void rejectExpiredInvocations() {
+            PendingInvocation head = pendingInvocations.peek();
+            while (head != null && head.isExpired()) {
+                if (pendingInvocations.remove(head)) {
+                    rejectExpired(head);
+                }
+                head = pendingInvocations.peek();
+            }
+        }
+
+        private void rejectExpired(PendingInvocation pending) {
+            log.warn("cannot acquire invocation permit of {} for {}", packageName, pending.operation.getRequestId());
+            pending.operation
+                    .reject(String.format("Too many concurrent invocations of plugin package [%s].", packageName));
+        }
+    }
 
-        executorService.execute(new Runnable() {
+    private class PendingInvocation {
+        private final PluginInvocationOperation operation;
+        private final long submitTime;
 
-            @Override
-            public void run() {
+        PendingInvocation(PluginInvocationOperation operation, long submitTime) {
+            this.operation = operation;
+            this.submitTime = submitTime;
+        }
+
+        boolean isExpired() {
+            long timeoutNanos = TimeUnit.SECONDS.toNanos(pluginInvocationProperties.getAcquirePermitTimeoutSecs());
+            return System.nanoTime() - submitTime > timeoutNanos;
+        }
+    }
+
+    private class PluginInvocationTask implements Runnable {
+        private final PluginInvocationOperation operation;
+        private final PackageInvocationGate gate;
+        private final long submitTime;
+
+        PluginInvocationTask(PluginInvocationOperation operation, PackageInvocationGate gate, long submitTime) {
+            this.operation = operation;
+            this.gate = gate;
+            this.submitTime = submitTime;
+        }
+
+        @Override
+        public void run() {
+            waitTimer.record(System.nanoTime() - submitTime, TimeUnit.NANOSECONDS);
+            inFlightInvocations.incrementAndGet();
+
+            if (isAsyncInvocation(operation)) {
+                // the permit only covers sending the request, this worker and
+                // the permit are free for the next invocation right away
+                CompletableFuture<Void> callbackFuture = null;
+                try {
+                    callbackFuture = operation.operateAsync(callbackExecutorService);
+                } catch (Exception e) {
+                    log.error("errors while operating {}", operation.getRequestId(), e);
+                    releaseInvocation();
+                    return;
+                }
+
+                gate.release();
+                callbackFuture.whenComplete((r, e) -> {
+                    if (e != null) {
+                        log.warn("callback of {} failed or was rejected", operation.getRequestId(), e);
+                    }
+                    inFlightInvocations.decrementAndGet();
+                });
+                return;
+            }
+
+            try {
                 operation.operate();
+            } finally {
+                releaseInvocation();
             }
+        }
 
-        });
+        private void releaseInvocation() {
+            inFlightInvocations.decrementAndGet();
+            gate.release();
+        }
     }
 
     public static class PluginInvocationOperation implements PluginOperation {
@@ -145,6 +409,31 @@ public class PluginInvocationProcessor {
             return this;
         }
 
+        public String getPluginPackageName() {
+            if (pluginInterfaceInvocationContext == null) {
+                return UNKNOWN_PACKAGE_NAME;
+            }
+
+            PluginConfigInterface pluginConfigInterface = pluginInterfaceInvocationContext.getPluginConfigInterface();
+            if (pluginConfigInterface == null || pluginConfigInterface.getPluginConfig() == null
+                    || pluginConfigInterface.getPluginConfig().getPluginPackage() == null) {
+                return UNKNOWN_PACKAGE_NAME;
+            }
+
+            String packageName = pluginConfigInterface.getPluginConfig().getPluginPackage().getName();
+            return StringUtils.isBlank(packageName) ? UNKNOWN_PACKAGE_NAME : packageName;
+        }
+
+        public void reject(String errMsg) {
+            PluginInterfaceInvocationResult errResult = new PluginInterfaceInvocationResult();
+            errResult.setErrMsg(errMsg);
+            errResult.setSuccess(false);
+            errResult.setResultData(null);
+            errResult.setResultCode(PluginResponse.RESULT_CODE_FAIL);
+
+            handleResult(errResult);
+        }
+
         @Override
         public void operate() {
             if (log.isDebugEnabled()) {
@@ -158,18 +447,55 @@ public class PluginInvocationProcessor {
                 response = getPluginInvocationRestClient().callPluginService(getInstanceHost(), getInterfacePath(),
                         getPluginParameters(), this.requestId, allowedOptions, getDueDate());
             } catch (Exception e) {
-                log.warn("errors while operating {} {}", getInstanceHost(), getInterfacePath(), e);
-                PluginInterfaceInvocationResult errResult = new PluginInterfaceInvocationResult();
-                errResult.setErrMsg(e.getMessage());
-                errResult.setSuccess(false);
-                errResult.setResultData(null);
-                errResult.setResultCode(PluginResponse.RESULT_CODE_FAIL);
+                handleError(e);
+                return;
+            }
 
-                handleResult(errResult);
+            handleResponse(response);
+        }
 
-                return;
+        /**
+         * Sends the request without waiting for the plugin, the callback is
+         * run on {@code callbackExecutor} once the response arrives.
+         */
+        public CompletableFuture<Void> operateAsync(Executor callbackExecutor) {
+            if (log.isDebugEnabled()) {
+                log.debug("call async {} {} - {}", getInstanceHost(), getInterfacePath(),
+                        Thread.currentThread().getName());
+            }
+
+            CompletableFuture<PluginResponse<Object>> responseFuture = null;
+            try {
+                List<String> allowedOptions = getAllowedOptions();
+                responseFuture = getPluginInvocationRestClient().callPluginServiceAsync(getInstanceHost(),
+                        getInterfacePath(), getPluginParameters(), this.requestId, allowedOptions, getDueDate());
+            } catch (Exception e) {
+                handleError(e);
+                return CompletableFuture.completedFuture(null);
             }
 
+            return responseFuture.handleAsync((response, e) -> {
+                if (e != null) {
+                    handleError(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                } else {
+                    handleResponse(response);
+                }
+                return null;
+            }, callbackExecutor);
+        }
+
+        private void handleError(Throwable e) {
+            log.warn("errors while operating {} {}", getInstanceHost(), getInterfacePath(), e);
+            PluginInterfaceInvocationResult errResult = new PluginInterfaceInvocationResult();
+            errResult.setErrMsg(e.getMessage());
+            errResult.setSuccess(false);
+            errResult.setResultData(null);
+            errResult.setResultCode(PluginResponse.RESULT_CODE_FAIL);
+
+            handleResult(errResult);
+        }
+
+        private void handleResponse(PluginResponse<Object> response) {
             if (response == null) {
                 log.warn("Plugin call failure due to no response.");
                 PluginInterfaceInvocationResult errResult = new PluginInterfaceInvocationResult();
@@ -280,6 +606,7 @@ public class PluginInvocationProcessor {
         private TaskNodeExecRequestEntity taskNodeExecRequestEntity;
         private TaskNodeDefInfoEntity taskNodeDefEntity;
         private PluginInvocationCommand pluginInvocationCommand;
+        private PluginInstanceLease pluginInstanceLease;
 
         public ProcInstInfoEntity getProcInstEntity() {
             return procInstEntity;
@@ -411,6 +738,24 @@ public class PluginInvocationProcessor {
             return this;
         }
 
+        public PluginInstanceLease getPluginInstanceLease() {
+            return pluginInstanceLease;
+        }
+
+        public void setPluginInstanceLease(PluginInstanceLease pluginInstanceLease) {
+            this.pluginInstanceLease = pluginInstanceLease;
+        }
+
+        /**
+         * Stops counting the invocation as outstanding on the selected
+         * instance, safe to call more than once.
+         */
+        public void releasePluginInstanceLease() {
+            if (pluginInstanceLease != null) {
+                pluginInstanceLease.release();
+            }
+        }
+
     }
 
     public static class PluginInterfaceInvocationResult {
@@ -25,7 +25,6 @@ import com.webank.wecube.platform.core.domain.SystemVariable;
 import com.webank.wecube.platform.core.domain.plugin.PluginConfig;
 import com.webank.wecube.platform.core.domain.plugin.PluginConfigInterface;
 import com.webank.wecube.platform.core.domain.plugin.PluginConfigInterfaceParameter;
-import com.webank.wecube.platform.core.domain.plugin.PluginInstance;
 import com.webank.wecube.platform.core.domain.plugin.PluginPackage;
 import com.webank.wecube.platform.core.entity.workflow.ProcExecBindingEntity;
 import com.webank.wecube.platform.core.entity.workflow.ProcInstInfoEntity;
@@ -37,15 +36,17 @@ import com.webank.wecube.platform.core.entity.workflow.TaskNodeParamEntity;
 import com.webank.wecube.platform.core.jpa.workflow.ProcExecBindingRepository;
 import com.webank.wecube.platform.core.jpa.workflow.ProcInstInfoRepository;
 import com.webank.wecube.platform.core.jpa.workflow.TaskNodeExecRequestRepository;
-import com.webank.wecube.platform.core.jpa.workflow.TaskNodeParamRepository;
 import com.webank.wecube.platform.core.model.workflow.InputParamAttr;
 import com.webank.wecube.platform.core.model.workflow.InputParamObject;
 import com.webank.wecube.platform.core.model.workflow.PluginInvocationCommand;
 import com.webank.wecube.platform.core.model.workflow.PluginInvocationResult;
 import com.webank.wecube.platform.core.model.workflow.WorkflowNotifyEvent;
 import com.webank.wecube.platform.core.service.SystemVariableService;
+import com.webank.wecube.platform.core.service.dme.EntityDataUpdateBatch;
 import com.webank.wecube.platform.core.service.dme.EntityOperationRootCondition;
-import com.webank.wecube.platform.core.service.plugin.PluginInstanceService;
+import com.webank.wecube.platform.core.service.dme.EntityQueryResultCache.EntityQueryScope;
+import com.webank.wecube.platform.core.service.plugin.PluginInstanceRegistry;
+import com.webank.wecube.platform.core.service.plugin.PluginInstanceRegistry.PluginInstanceLease;
 import com.webank.wecube.platform.core.service.workflow.PluginInvocationProcessor.PluginInterfaceInvocationContext;
 import com.webank.wecube.platform.core.service.workflow.PluginInvocationProcessor.PluginInterfaceInvocationResult;
 import com.webank.wecube.platform.core.service.workflow.PluginInvocationProcessor.PluginInvocationOperation;
@@ -66,19 +67,20 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
     private PluginInvocationProcessor pluginInvocationProcessor;
 
     @Autowired
-    private ProcInstInfoRepository procInstInfoRepository;
+    private ProcInstCreationRegistry procInstCreationRegistry;
 
     @Autowired
-    protected PluginInstanceService pluginInstanceService;
+    private PluginInstanceRegistry pluginInstanceRegistry;
 
     @Autowired
-    private ProcExecBindingRepository procExecBindingRepository;
+    private ProcInstInfoRepository procInstInfoRepository;
+
 
     @Autowired
-    private SystemVariableService systemVariableService;
+    private ProcExecBindingRepository procExecBindingRepository;
 
     @Autowired
-    private TaskNodeParamRepository taskNodeParamRepository;
+    private SystemVariableService systemVariableService;
 
     @Autowired
     private TaskNodeExecRequestRepository taskNodeExecRequestRepository;
@@ -94,23 +96,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 
         Date currTime = new Date();
 
-        ProcInstInfoEntity procInstEntity = null;
-        int times = 0;
-
-        while (times < 20) {
-            procInstEntity = procInstInfoRepository.findOneByProcInstKernelId(cmd.getProcInstId());
-            if (procInstEntity != null) {
-                break;
-            }
-
-            try {
-                Thread.sleep(300);
-            } catch (InterruptedException e) {
-                log.info("exceptions while handling end event.", e.getMessage());
-            }
-
-            times++;
-        }
+        ProcInstInfoEntity procInstEntity = procInstCreationRegistry.awaitCreated(cmd.getProcInstId());
 
         if (procInstEntity == null) {
             log.warn("Cannot find process instance entity currently for {}", cmd.getProcInstId());
@@ -214,8 +200,11 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
         List<ProcExecBindingEntity> nodeObjectBindings = retrieveProcExecBindingEntities(taskNodeInstEntity);
         PluginConfigInterface pluginConfigInterface = retrievePluginConfigInterface(taskNodeDefEntity, cmd.getNodeId());
 
-        List<InputParamObject> inputParamObjs = calculateInputParamObjects(procInstEntity, taskNodeInstEntity,
-                taskNodeDefEntity, nodeObjectBindings, pluginConfigInterface);
+        List<InputParamObject> inputParamObjs = null;
+        try (EntityQueryScope queryScope = entityOperationService.openQueryScope()) {
+            inputParamObjs = calculateInputParamObjects(procInstEntity, taskNodeInstEntity, taskNodeDefEntity,
+                    nodeObjectBindings, pluginConfigInterface);
+        }
 
         if (inputParamObjs == null || inputParamObjs.isEmpty()) {
             inputParamObjs = tryCalculateInputParamObjectsFromSystem(procInstEntity, taskNodeInstEntity,
@@ -232,20 +221,26 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 
         parsePluginInstance(ctx);
 
-        buildTaskNodeExecRequestEntity(ctx);
-        List<Map<String, Object>> pluginParameters = calculateInputParameters(ctx, inputParamObjs, ctx.getRequestId(),
-                procInstEntity.getOperator());
-
-        PluginInvocationOperation operation = new PluginInvocationOperation() //
-                .withCallback(this::handlePluginInterfaceInvocationResult) //
-                .withPluginInvocationRestClient(this.pluginInvocationRestClient) //
-                .withPluginParameters(pluginParameters) //
-                .withInstanceHost(ctx.getInstanceHost()) //
-                .withInterfacePath(ctx.getInterfacePath()) //
-                .withPluginInterfaceInvocationContext(ctx) //
-                .withRequestId(ctx.getRequestId());
-
-        pluginInvocationProcessor.process(operation);
+        try {
+            buildTaskNodeExecRequestEntity(ctx);
+            List<Map<String, Object>> pluginParameters = calculateInputParameters(ctx, inputParamObjs,
+                    ctx.getRequestId(), procInstEntity.getOperator());
+
+            PluginInvocationOperation operation = new PluginInvocationOperation() //
+                    .withCallback(this::handlePluginInterfaceInvocationResult) //
+                    .withPluginInvocationRestClient(this.pluginInvocationRestClient) //
+                    .withPluginParameters(pluginParameters) //
+                    .withInstanceHost(ctx.getInstanceHost()) //
+                    .withInterfacePath(ctx.getInterfacePath()) //
+                    .withPluginInterfaceInvocationContext(ctx) //
+                    .withRequestId(ctx.getRequestId());
+
+            pluginInvocationProcessor.process(operation);
+        } catch (RuntimeException e) {
+            // the callback never runs for an invocation that was not sent
+            ctx.releasePluginInstanceLease();
+            throw e;
+        }
     }
 
     private List<InputParamObject> tryCalculateInputParamObjectsFromSystem(ProcInstInfoEntity procInstEntity,
@@ -359,9 +354,9 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 
     private void parsePluginInstance(PluginInterfaceInvocationContext ctx) {
         PluginConfigInterface pluginConfigInterface = ctx.getPluginConfigInterface();
-        PluginInstance pluginInstance = retrieveAvailablePluginInstance(pluginConfigInterface);
+        PluginInstanceLease pluginInstanceLease = retrieveAvailablePluginInstance(pluginConfigInterface);
         String interfacePath = pluginConfigInterface.getPath();
-        if (pluginInstance == null) {
+        if (pluginInstanceLease == null || pluginInstanceLease.getPluginInstance() == null) {
             log.warn("cannot find an available plugin instance for {}", pluginConfigInterface.getServiceName());
             throw new WecubeCoreException("3169", "Cannot find an available plugin instance.");
         }
@@ -369,6 +364,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
         String instanceHostAndPort = applicationProperties.getGatewayUrl();
         ctx.setInstanceHost(instanceHostAndPort);
         ctx.setInterfacePath(interfacePath);
+        ctx.setPluginInstanceLease(pluginInstanceLease);
     }
 
     private List<InputParamObject> calculateInputParamObjects(ProcInstInfoEntity procInstEntity,
@@ -460,8 +456,8 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
         }
         // #1993
         String curTaskNodeDefId = taskNodeDefEntity.getId();
-        TaskNodeParamEntity nodeParamEntity = taskNodeParamRepository
-                .findOneByTaskNodeDefIdAndParamName(curTaskNodeDefId, paramName);
+        TaskNodeParamEntity nodeParamEntity = procDefMetadataCache
+                .getTaskNodeParam(taskNodeDefEntity.getProcDefId(), curTaskNodeDefId, paramName);
 
         if (nodeParamEntity == null) {
             log.error("mapping type is {} but node parameter entity is null for {}", mappingType, curTaskNodeDefId);
@@ -654,8 +650,8 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
             List<Object> objectVals) {
         if (MAPPING_TYPE_CONSTANT.equals(mappingType)) {
             String curTaskNodeDefId = taskNodeDefEntity.getId();
-            TaskNodeParamEntity nodeParamEntity = taskNodeParamRepository
-                    .findOneByTaskNodeDefIdAndParamName(curTaskNodeDefId, paramName);
+            TaskNodeParamEntity nodeParamEntity = procDefMetadataCache
+                    .getTaskNodeParam(taskNodeDefEntity.getProcDefId(), curTaskNodeDefId, paramName);
 
             if (nodeParamEntity == null) {
                 log.error("mapping type is {} but node parameter entity is null for {}", mappingType, curTaskNodeDefId);
@@ -712,8 +708,8 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
     private PluginConfigInterface retrievePluginConfigInterface(TaskNodeDefInfoEntity taskNodeDefEntity,
             String nodeId) {
         String serviceId = retrieveServiceId(taskNodeDefEntity, nodeId);
-        PluginConfigInterface pluginConfigInterface = pluginConfigService
-                .getPluginConfigInterfaceByServiceName(serviceId);
+        PluginConfigInterface pluginConfigInterface = procDefMetadataCache
+                .getPluginConfigInterface(taskNodeDefEntity.getProcDefId(), nodeId, serviceId);
 
         if (pluginConfigInterface == null) {
             log.error("Plugin config interface does not exist for {} {} {}", taskNodeDefEntity.getId(), nodeId,
@@ -786,8 +782,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
     }
 
     private TaskNodeDefInfoEntity retrieveTaskNodeDefInfoEntity(String procDefId, String nodeId) {
-        TaskNodeDefInfoEntity taskNodeDefEntity = taskNodeDefInfoRepository
-                .findOneWithProcessIdAndNodeIdAndStatus(procDefId, nodeId, TaskNodeDefInfoEntity.DEPLOYED_STATUS);
+        TaskNodeDefInfoEntity taskNodeDefEntity = procDefMetadataCache.getDeployedTaskNodeDef(procDefId, nodeId);
 
         if (taskNodeDefEntity == null) {
             log.warn("Task node definition does not exist for {} {} {}", procDefId, nodeId,
@@ -805,22 +800,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
     private ProcInstInfoEntity doRetrieveProcInstInfoEntity(PluginInvocationCommand cmd) {
         String procInstKernelId = cmd.getProcInstId();
 
-        ProcInstInfoEntity procInstEntity = null;
-        int round = 0;
-        while (round < 15) {
-            procInstEntity = procInstInfoRepository.findOneByProcInstKernelId(procInstKernelId);
-
-            if (procInstEntity != null) {
-                break;
-            }
-
-            try {
-                Thread.sleep(200);
-            } catch (InterruptedException e) {
-            }
-
-            round++;
-        }
+        ProcInstInfoEntity procInstEntity = procInstCreationRegistry.awaitCreated(procInstKernelId);
 
         if (procInstEntity == null) {
             log.error("Process instance info does not exist for id:{}", procInstKernelId);
@@ -847,6 +827,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
     private List<Map<String, Object>> calculateInputParameters(PluginInterfaceInvocationContext ctx,
             List<InputParamObject> inputParamObjs, String requestId, String operator) {
         List<Map<String, Object>> pluginParameters = new ArrayList<Map<String, Object>>();
+        List<TaskNodeExecParamEntity> paramEntities = new ArrayList<TaskNodeExecParamEntity>();
 
         int objectId = 0;
 
@@ -871,7 +852,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
             p.setEntityDataId(entityDataId);
             p.setEntityTypeId(entityTypeId);
 
-            taskNodeExecParamRepository.saveAndFlush(p);
+            paramEntities.add(p);
 
             inputMap.put(INPUT_PARAMETER_KEY_OPERATOR, operator);
 
@@ -888,7 +869,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 
                 e.setSensitive(attr.isSensitive());
 
-                taskNodeExecParamRepository.saveAndFlush(e);
+                paramEntities.add(e);
 
                 inputMap.put(attr.getName(), attr.getExpectedValue());
             }
@@ -898,6 +879,8 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
             objectId++;
         }
 
+        taskNodeExecParamRepository.batchInsert(paramEntities);
+
         return pluginParameters;
     }
     
@@ -915,19 +898,18 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
     }
     
 
-    private PluginInstance retrieveAvailablePluginInstance(PluginConfigInterface itf) {
+    private PluginInstanceLease retrieveAvailablePluginInstance(PluginConfigInterface itf) {
         PluginConfig config = itf.getPluginConfig();
         PluginPackage pkg = config.getPluginPackage();
         String pluginName = pkg.getName();
 
-        List<PluginInstance> instances = pluginInstanceService.getRunningPluginInstances(pluginName);
-
-        return instances.get(0);
+        return pluginInstanceRegistry.acquireInstance(pluginName);
 
     }
 
     public void handlePluginInterfaceInvocationResult(PluginInterfaceInvocationResult pluginInvocationResult,
             PluginInterfaceInvocationContext ctx) {
+        ctx.releasePluginInstanceLease();
         if (log.isDebugEnabled()) {
             log.debug("handle plugin interface invocation result");
         }
@@ -1037,8 +1019,15 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
         if (log.isDebugEnabled()) {
             log.debug("about to process output parameters for {}", ctx.getPluginConfigInterface().getServiceName());
         }
+        EntityDataUpdateBatch updateBatch = new EntityDataUpdateBatch();
         for (Map<String, Object> outputParameterMap : outputParameterMaps) {
-            handleSingleOutputMap(pluginInvocationResult, ctx, outputParameterMap);
+            handleSingleOutputMap(pluginInvocationResult, ctx, outputParameterMap, updateBatch);
+        }
+
+        try {
+            this.entityOperationService.update(updateBatch);
+        } catch (Exception e) {
+            log.warn("Exceptions while updating entity.But still keep going to update.", e);
         }
 
         if (log.isDebugEnabled()) {
@@ -1051,16 +1040,19 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
 
     private void storeOutputParameterMaps(PluginInterfaceInvocationContext ctx,
             List<Map<String, Object>> outputParameterMaps) {
+        List<TaskNodeExecParamEntity> paramEntities = new ArrayList<TaskNodeExecParamEntity>();
         int count = 0;
         for (Map<String, Object> outputParameterMap : outputParameterMaps) {
             String objectId = String.valueOf(count);
-            storeSingleOutputParameterMap(ctx, outputParameterMap, objectId);
+            storeSingleOutputParameterMap(ctx, outputParameterMap, objectId, paramEntities);
             count++;
         }
+
+        taskNodeExecParamRepository.batchInsert(paramEntities);
     }
 
     private void storeSingleOutputParameterMap(PluginInterfaceInvocationContext ctx,
-            Map<String, Object> outputParameterMap, String objectId) {
+            Map<String, Object> outputParameterMap, String objectId, List<TaskNodeExecParamEntity> paramEntities) {
 
         String entityTypeId = null;
         String entityDataId = null;
@@ -1118,12 +1110,13 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
             paramEntity.setRequestId(requestId);
             paramEntity.setSensitive(isSensitiveData);
 
-            taskNodeExecParamRepository.saveAndFlush(paramEntity);
+            paramEntities.add(paramEntity);
         }
     }
 
     private void handleSingleOutputMap(PluginInterfaceInvocationResult pluginInvocationResult,
-            PluginInterfaceInvocationContext ctx, Map<String, Object> outputParameterMap) {
+            PluginInterfaceInvocationContext ctx, Map<String, Object> outputParameterMap,
+            EntityDataUpdateBatch updateBatch) {
 
         PluginConfigInterface pci = ctx.getPluginConfigInterface();
         Set<PluginConfigInterfaceParameter> outputParameters = pci.getOutputParameters();
@@ -1169,13 +1162,7 @@ public class PluginInvocationService extends AbstractPluginInvocationService {
             }
 
             EntityOperationRootCondition condition = new EntityOperationRootCondition(paramExpr, nodeEntityId);
-
-            try {
-                this.entityOperationService.update(condition, retVal);
-            } catch (Exception e) {
-                log.warn("Exceptions while updating entity.But still keep going to update.", e);
-            }
-
+            updateBatch.addUpdate(condition, retVal);
         }
     }
 
@@ -0,0 +1,236 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
+import com.webank.wecube.platform.core.domain.plugin.PluginConfig;
+import com.webank.wecube.platform.core.domain.plugin.PluginConfigInterface;
+import com.webank.wecube.platform.core.domain.plugin.PluginConfigInterfaceParameter;
+import com.webank.wecube.platform.core.domain.plugin.PluginPackage;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeDefInfoEntity;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeParamEntity;
+import com.webank.wecube.platform.core.jpa.PluginConfigRepository;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeDefInfoRepository;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeParamRepository;
+
+/**
+ * Read-through cache of deployed process definition metadata used while
+ * invoking plugins.
+ * <p>
+ * Task node definitions and parameters never change once deployed, entries
+ * are scoped by process definition and dropped when the definition is
+ * deployed or removed. Plugin config interfaces may be changed by plugin
+ * registration, they are dropped on such changes and all entries expire
+ * after a while in case the change happened on another node.
+ * <p>
+ * Entries are detached snapshots rather than the entities of the loading
+ * persistence context, and every caller gets its own copy of a snapshot, so
+ * changes made by one invocation are neither seen by others nor flushed.
+ * 
+ * @author gavin
+ *
+ */
+@Service
+public class ProcDefMetadataCache {
+    private static final Logger log = LoggerFactory.getLogger(ProcDefMetadataCache.class);
+
+    @Autowired
+    private TaskNodeDefInfoRepository taskNodeDefInfoRepository;
+
+    @Autowired
+    private TaskNodeParamRepository taskNodeParamRepository;
+
+    @Autowired
+    private PluginConfigRepository pluginConfigRepository;
+
+    @Autowired
+    private PluginInvocationProperties pluginInvocationProperties;
+
+    private final Map<String, ProcDefMetadata> procDefMetadatas = new ConcurrentHashMap<>();
+
+    public TaskNodeDefInfoEntity getDeployedTaskNodeDef(String procDefId, String nodeId) {
+        if (StringUtils.isBlank(procDefId) || StringUtils.isBlank(nodeId)) {
+            return null;
+        }
+
+        ProcDefMetadata metadata = getProcDefMetadata(procDefId);
+        TaskNodeDefInfoEntity taskNodeDef = metadata.taskNodeDefs.get(nodeId);
+        if (taskNodeDef != null) {
+            return copyTaskNodeDef(taskNodeDef);
+        }
+
+        taskNodeDef = taskNodeDefInfoRepository.findOneWithProcessIdAndNodeIdAndStatus(procDefId, nodeId,
+                TaskNodeDefInfoEntity.DEPLOYED_STATUS);
+        if (taskNodeDef == null) {
+            return null;
+        }
+
+        TaskNodeDefInfoEntity snapshot = copyTaskNodeDef(taskNodeDef);
+        metadata.taskNodeDefs.put(nodeId, snapshot);
+        return copyTaskNodeDef(snapshot);
+    }
+
+    public TaskNodeParamEntity getTaskNodeParam(String procDefId, String taskNodeDefId, String paramName) {
+        if (StringUtils.isBlank(taskNodeDefId) || StringUtils.isBlank(paramName)) {
+            return null;
+        }
+
+        ProcDefMetadata metadata = getProcDefMetadata(StringUtils.defaultString(procDefId));
+        Map<String, TaskNodeParamEntity> taskNodeParams = metadata.taskNodeParams.computeIfAbsent(taskNodeDefId,
+                this::loadTaskNodeParams);
+
+        TaskNodeParamEntity taskNodeParam = taskNodeParams.get(paramName);
+        return taskNodeParam == null ? null : copyTaskNodeParam(taskNodeParam);
+    }
+
+    public PluginConfigInterface getPluginConfigInterface(String procDefId, String nodeId, String serviceId) {
+        if (StringUtils.isBlank(serviceId)) {
+            return null;
+        }
+
+        ProcDefMetadata metadata = getProcDefMetadata(StringUtils.defaultString(procDefId));
+        String cacheKey = nodeId + ":" + serviceId;
+        PluginConfigInterface pluginConfigInterface = metadata.pluginConfigInterfaces.get(cacheKey);
+        if (pluginConfigInterface != null) {
+            return copyPluginConfigInterface(pluginConfigInterface);
+        }
+
+        Optional<PluginConfigInterface> pluginConfigInterfaceOpt = pluginConfigRepository
+                .findLatestOnlinePluginConfigInterfaceByServiceNameAndFetchParameters(serviceId);
+        if (!pluginConfigInterfaceOpt.isPresent()) {
+            return null;
+        }
+
+        PluginConfigInterface snapshot = copyPluginConfigInterface(pluginConfigInterfaceOpt.get());
+        metadata.pluginConfigInterfaces.put(cacheKey, snapshot);
+        return copyPluginConfigInterface(snapshot);
+    }
+
+    public void invalidateProcDef(String procDefId) {
+        if (StringUtils.isBlank(procDefId)) {
+            return;
+        }
+
+        if (procDefMetadatas.remove(procDefId) != null) {
+            log.info("cached metadata of process definition {} was invalidated", procDefId);
+        }
+    }
+
+    public void invalidatePluginConfigInterfaces() {
+        for (ProcDefMetadata metadata : procDefMetadatas.values()) {
+            metadata.pluginConfigInterfaces.clear();
+        }
+        log.info("cached plugin config interfaces were invalidated");
+    }
+
+    public void invalidateAll() {
+        procDefMetadatas.clear();
+    }
+
+    private ProcDefMetadata getProcDefMetadata(String procDefId) {
+        long expireMillis = TimeUnit.SECONDS.toMillis(pluginInvocationProperties.getProcDefCacheExpireSeconds());
+        return procDefMetadatas.compute(procDefId, (k, v) -> {
+            if (v == null || (expireMillis > 0 && v.isExpired(expireMillis))) {
+                return new ProcDefMetadata();
+            }
+            return v;
+        });
+    }
+
+    private Map<String, TaskNodeParamEntity> loadTaskNodeParams(String taskNodeDefId) {
+        List<TaskNodeParamEntity> paramEntities = taskNodeParamRepository.findAllByTaskNodeDefId(taskNodeDefId);
+        if (paramEntities == null || paramEntities.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, TaskNodeParamEntity> taskNodeParams = new HashMap<>();
+        for (TaskNodeParamEntity paramEntity : paramEntities) {
+            taskNodeParams.putIfAbsent(paramEntity.getParamName(), copyTaskNodeParam(paramEntity));
+        }
+
+        return taskNodeParams;
+    }
+
+    private static TaskNodeDefInfoEntity copyTaskNodeDef(TaskNodeDefInfoEntity source) {
+        TaskNodeDefInfoEntity copy = new TaskNodeDefInfoEntity();
+        BeanUtils.copyProperties(source, copy);
+        return copy;
+    }
+
+    private static TaskNodeParamEntity copyTaskNodeParam(TaskNodeParamEntity source) {
+        TaskNodeParamEntity copy = new TaskNodeParamEntity();
+        BeanUtils.copyProperties(source, copy);
+        return copy;
+    }
+
+    /**
+     * Copies the interface with its parameters, plugin config and plugin
+     * package, leaving out the associations plugin invocation never reads.
+     */
+    private static PluginConfigInterface copyPluginConfigInterface(PluginConfigInterface source) {
+        PluginConfigInterface copy = new PluginConfigInterface();
+        BeanUtils.copyProperties(source, copy, "pluginConfig", "inputParameters", "outputParameters");
+        copy.setPluginConfig(copyPluginConfig(source.getPluginConfig()));
+        copy.setInputParameters(copyParameters(source.getInputParameters(), copy));
+        copy.setOutputParameters(copyParameters(source.getOutputParameters(), copy));
+        return copy;
+    }
+
+    private static PluginConfig copyPluginConfig(PluginConfig source) {
+        if (source == null) {
+            return null;
+        }
+
+        PluginConfig copy = new PluginConfig();
+        BeanUtils.copyProperties(source, copy, "pluginPackage", "interfaces", "roleBinds");
+
+        PluginPackage pkg = source.getPluginPackage();
+        if (pkg != null) {
+            copy.setPluginPackage(new PluginPackage(pkg.getId(), pkg.getName(), pkg.getVersion(), pkg.getStatus(),
+                    pkg.getUploadTimestamp(), pkg.isUiPackageIncluded()));
+        }
+        return copy;
+    }
+
+    private static Set<PluginConfigInterfaceParameter> copyParameters(Set<PluginConfigInterfaceParameter> source,
+            PluginConfigInterface owner) {
+        if (source == null) {
+            return null;
+        }
+
+        Set<PluginConfigInterfaceParameter> copies = new LinkedHashSet<>();
+        for (PluginConfigInterfaceParameter param : source) {
+            PluginConfigInterfaceParameter copy = new PluginConfigInterfaceParameter();
+            BeanUtils.copyProperties(param, copy, "pluginConfigInterface");
+            copy.setPluginConfigInterface(owner);
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    private static class ProcDefMetadata {
+        private final long createdTime = System.currentTimeMillis();
+        private final Map<String, TaskNodeDefInfoEntity> taskNodeDefs = new ConcurrentHashMap<>();
+        private final Map<String, Map<String, TaskNodeParamEntity>> taskNodeParams = new ConcurrentHashMap<>();
+        private final Map<String, PluginConfigInterface> pluginConfigInterfaces = new ConcurrentHashMap<>();
+
+        boolean isExpired(long expireMillis) {
+            return System.currentTimeMillis() - createdTime > expireMillis;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.webank.wecube.platform.core.service.workflow;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
+import com.webank.wecube.platform.core.entity.workflow.ProcInstInfoEntity;
+import com.webank.wecube.platform.core.jpa.workflow.ProcInstInfoRepository;
+
+/**
+ * Hands over the creation of process instance records to the engine
+ * callbacks which may arrive before the kernel instance id is committed.
+ * <p>
+ * Waiters register a future keyed by kernel instance id and are released as
+ * soon as {@link WorkflowProcInstService} commits the record on this node.
+ * The database is checked periodically as well, since the callback might be
+ * processed on another node.
+ * 
+ * @author gavin
+ *
+ */
+@Component
+public class ProcInstCreationRegistry {
+    private static final Logger log = LoggerFactory.getLogger(ProcInstCreationRegistry.class);
+
+    @Autowired
+    private ProcInstInfoRepository procInstInfoRepository;
+
+    @Autowired
+    private PluginInvocationProperties pluginInvocationProperties;
+
+    private final Map<String, CompletableFuture<Boolean>> waiters = new ConcurrentHashMap<>();
+
+    /**
+     * Called once the kernel instance id of a process instance record has
+     * been stored.
+     */
+    public void notifyCreated(String procInstKernelId) {
+        if (StringUtils.isBlank(procInstKernelId)) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    doNotifyCreated(procInstKernelId);
+                }
+            });
+        } else {
+            doNotifyCreated(procInstKernelId);
+        }
+    }
+
+    /**
+     * Returns the process instance record of the kernel instance, waiting
+     * for its creation if necessary, or {@code null} if it did not show up in
+     * time.
+     */
+    public ProcInstInfoEntity awaitCreated(String procInstKernelId) {
+        CompletableFuture<Boolean> waiter = waiters.computeIfAbsent(procInstKernelId,
+                k -> new CompletableFuture<Boolean>());
+        try {
+            long maxWaitMillis = pluginInvocationProperties.getProcInstCreationMaxWaitMillis();
+            long pollMillis = Math.max(1, pluginInvocationProperties.getProcInstCreationPollMillis());
+            long deadline = System.currentTimeMillis() + maxWaitMillis;
+
+            while (true) {
+                ProcInstInfoEntity procInstEntity = procInstInfoRepository.findOneByProcInstKernelId(procInstKernelId);
+                if (procInstEntity != null) {
+                    return procInstEntity;
+                }
+
+                long remainingMillis = deadline - System.currentTimeMillis();
+                if (remainingMillis <= 0) {
+                    return null;
+                }
+
+                long waitMillis = Math.min(pollMillis, remainingMillis);
+                if (waiter.isDone()) {
+                    // signalled but the record is not visible yet, the
+                    // completed waiter would return at once, so back off
+                    Thread.sleep(waitMillis);
+                    continue;
+                }
+
+                try {
+                    waiter.get(waitMillis, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    log.debug("process instance {} is not created yet", procInstKernelId);
+                } catch (ExecutionException e) {
+                    log.debug("unexpected waiter failure of {}", procInstKernelId, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            log.warn("interrupted while waiting for process instance {}", procInstKernelId);
+            Thread.currentThread().interrupt();
+            return procInstInfoRepository.findOneByProcInstKernelId(procInstKernelId);
+        } finally {
+            waiters.remove(procInstKernelId, waiter);
+        }
+    }
+
+    private void doNotifyCreated(String procInstKernelId) {
+        CompletableFuture<Boolean> waiter = waiters.remove(procInstKernelId);
+        if (waiter != null) {
+            waiter.complete(Boolean.TRUE);
+        }
+    }
+}
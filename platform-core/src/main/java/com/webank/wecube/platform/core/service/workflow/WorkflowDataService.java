@@ -46,8 +46,10 @@ import com.webank.wecube.platform.core.jpa.workflow.TaskNodeDefInfoRepository;
 import com.webank.wecube.platform.core.jpa.workflow.TaskNodeExecParamRepository;
 import com.webank.wecube.platform.core.jpa.workflow.TaskNodeExecRequestRepository;
 import com.webank.wecube.platform.core.jpa.workflow.TaskNodeInstInfoRepository;
+import com.webank.wecube.platform.core.service.dme.EntityDataPage;
 import com.webank.wecube.platform.core.service.dme.EntityOperationRootCondition;
 import com.webank.wecube.platform.core.service.dme.EntityTreeNodesOverview;
+import com.webank.wecube.platform.core.service.dme.EntityQueryResultCache.EntityQueryScope;
 import com.webank.wecube.platform.core.service.dme.StandardEntityOperationService;
 import com.webank.wecube.platform.core.service.dme.TreeNode;
 import com.webank.wecube.platform.core.service.plugin.PluginConfigService;
@@ -177,15 +179,7 @@ public class WorkflowDataService{
     }
 
     public List<Map<String, Object>> getProcessDefinitionRootEntities(String procDefId) {
-        if (StringUtils.isBlank(procDefId)) {
-            throw new WecubeCoreException("3186","Process definition ID cannot be blank.");
-        }
-        Optional<ProcDefInfoEntity> procDefInfoEntityOpt = procDefInfoRepository.findById(procDefId);
-        if (!procDefInfoEntityOpt.isPresent()) {
-            throw new WecubeCoreException("3187",String.format("Cannot find such process definition with ID [%s]" , procDefId), procDefId);
-        }
-
-        ProcDefInfoEntity procDef = procDefInfoEntityOpt.get();
+        ProcDefInfoEntity procDef = getProcessDefinitionForRootEntities(procDefId);
 
         List<Map<String, Object>> result = new ArrayList<>();
 
@@ -207,6 +201,33 @@ public class WorkflowDataService{
         return result;
     }
 
+    /**
+     * Pages through root entities, so large data sets are not loaded at once.
+     */
+    public EntityDataPage getProcessDefinitionRootEntities(String procDefId, int pageSize, String cursor) {
+        ProcDefInfoEntity procDef = getProcessDefinitionForRootEntities(procDefId);
+
+        String rootEntityExpr = procDef.getRootEntity();
+        if (StringUtils.isBlank(rootEntityExpr)) {
+            return new EntityDataPage();
+        }
+
+        return standardEntityOperationService.queryAttributeValuesOfLeafNode(
+                new EntityOperationRootCondition(rootEntityExpr, null), pageSize, cursor, userJwtSsoTokenRestTemplate);
+    }
+
+    private ProcDefInfoEntity getProcessDefinitionForRootEntities(String procDefId) {
+        if (StringUtils.isBlank(procDefId)) {
+            throw new WecubeCoreException("3186","Process definition ID cannot be blank.");
+        }
+        Optional<ProcDefInfoEntity> procDefInfoEntityOpt = procDefInfoRepository.findById(procDefId);
+        if (!procDefInfoEntityOpt.isPresent()) {
+            throw new WecubeCoreException("3187",String.format("Cannot find such process definition with ID [%s]" , procDefId), procDefId);
+        }
+
+        return procDefInfoEntityOpt.get();
+    }
+
     public void updateProcessInstanceExecBindingsOfSession(String nodeDefId, String processSessionId,
             List<TaskNodeDefObjectBindInfoDto> bindings) {
 
@@ -511,14 +532,16 @@ public class WorkflowDataService{
         List<GraphNodeDto> hierarchicalEntityNodes = new ArrayList<>();
         String processSessionId = UUID.randomUUID().toString();
 
-        for (FlowNodeDefDto f : outline.getFlowNodes()) {
-            String nodeType = f.getNodeType();
+        try (EntityQueryScope queryScope = standardEntityOperationService.openQueryScope()) {
+            for (FlowNodeDefDto f : outline.getFlowNodes()) {
+                String nodeType = f.getNodeType();
 
-            if (!"subProcess".equals(nodeType)) {
-                continue;
-            }
+                if (!"subProcess".equals(nodeType)) {
+                    continue;
+                }
 
-            processSingleFlowNodeDefDto(f, hierarchicalEntityNodes, dataId, processSessionId, needSaveTmp);
+                processSingleFlowNodeDefDto(f, hierarchicalEntityNodes, dataId, processSessionId, needSaveTmp);
+            }
         }
 
         result.addAllEntityTreeNodes(hierarchicalEntityNodes);
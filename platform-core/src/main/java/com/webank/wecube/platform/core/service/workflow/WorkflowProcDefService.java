@@ -56,6 +56,9 @@ public class WorkflowProcDefService extends AbstractWorkflowProcDefService {
     @Autowired
     protected PluginAuthRepository pluginAuthRepository;
 
+    @Autowired
+    private ProcDefMetadataCache procDefMetadataCache;
+
     public void removeProcessDefinition(String procDefId) {
         if (StringUtils.isBlank(procDefId)) {
             throw new WecubeCoreException("3205", "Process definition id is blank.");
@@ -79,6 +82,7 @@ public class WorkflowProcDefService extends AbstractWorkflowProcDefService {
                     ProcDefInfoEntity.DELETED_STATUS));
             procDef.setStatus(ProcDefInfoEntity.DELETED_STATUS);
             processDefInfoRepo.saveAndFlush(procDef);
+            procDefMetadataCache.invalidateProcDef(procDefId);
             return;
         }
         // delete DRAFT_STATUS process with all nodes and params deleted as well
@@ -102,6 +106,7 @@ public class WorkflowProcDefService extends AbstractWorkflowProcDefService {
         }
 
         processDefInfoRepo.delete(procDef);
+        procDefMetadataCache.invalidateProcDef(procDefId);
     }
 
     public List<TaskNodeDefBriefDto> getTaskNodeBriefs(String procDefId) {
@@ -614,7 +619,9 @@ public class WorkflowProcDefService extends AbstractWorkflowProcDefService {
 
         if (draftProcDefEntity != null) {
             purgeProcessDefInfoEntity(draftProcDefEntity);
+            procDefMetadataCache.invalidateProcDef(draftProcDefEntity.getId());
         }
+        procDefMetadataCache.invalidateProcDef(procDefEntity.getId());
 
         ProcDefOutline procDefOutline = workflowEngineService.getProcDefOutline(procDef);
 
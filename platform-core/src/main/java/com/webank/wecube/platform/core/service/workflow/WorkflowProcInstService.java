@@ -41,6 +41,9 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
     @Autowired
     private ProcInstInfoRepository procInstInfoRepository;
 
+    @Autowired
+    private ProcInstCreationRegistry procInstCreationRegistry;
+
     @Autowired
     private TaskNodeDefInfoRepository taskNodeDefInfoRepository;
 
@@ -579,6 +582,7 @@ public class WorkflowProcInstService extends AbstractWorkflowService {
         procEntity.setStatus(ProcInstInfoEntity.IN_PROGRESS_STATUS);
 
         procInstInfoRepository.saveAndFlush(procEntity);
+        procInstCreationRegistry.notifyCreated(processInstance.getId());
 
         String entityTypeId = null;
         String entityDataId = null;
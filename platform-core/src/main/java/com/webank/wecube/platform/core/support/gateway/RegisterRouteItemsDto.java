@@ -3,10 +3,17 @@ package com.webank.wecube.platform.core.support.gateway;
 import java.util.List;
 
 public class RegisterRouteItemsDto {
+    public static final String OPERATION_ADD = "ADD";
+    public static final String OPERATION_REMOVE = "REMOVE";
+    public static final String OPERATION_REFRESH = "REFRESH";
 
     private String context;
     private List<RouteItem> items;
 
+    private String operation;
+    private Long previousVersion;
+    private Long version;
+
     
     public String getContext() {
 		return context;
@@ -24,6 +31,30 @@ public class RegisterRouteItemsDto {
         this.items = items;
     }
 
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    public Long getPreviousVersion() {
+        return previousVersion;
+    }
+
+    public void setPreviousVersion(Long previousVersion) {
+        this.previousVersion = previousVersion;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public RegisterRouteItemsDto() {
     }
 
@@ -2,7 +2,17 @@ package com.webank.wecube.platform.core.support.plugin;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +20,8 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.webank.wecube.platform.auth.client.context.JwtSsoClientContext;
 import com.webank.wecube.platform.core.support.RestClient;
 import com.webank.wecube.platform.core.support.plugin.dto.PluginRequest;
 import com.webank.wecube.platform.core.support.plugin.dto.PluginRequest.DefaultPluginRequest;
@@ -24,6 +36,16 @@ public class PluginInvocationRestClient implements RestClient {
     @Qualifier(value = "jwtSsoRestTemplate")
     private RestTemplate jwtSsoRestTemplate;
 
+    @Autowired(required = false)
+    @Qualifier(value = "pluginAsyncHttpClient")
+    private CloseableHttpAsyncClient pluginAsyncHttpClient;
+
+    @Autowired
+    private JwtSsoClientContext jwtSsoClientContext;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     public PluginResponse<Object> callPluginService(String instanceAddress, String path,
             List<Map<String, Object>> parameters, String requestId, List<String> allowedOptions, String dueDate) {
         PluginRequest<Map<String, Object>> requestObj = new DefaultPluginRequest().withInputs(parameters)
@@ -36,6 +58,38 @@ public class PluginInvocationRestClient implements RestClient {
         return doCallPluginService(asPluginServerUrl(instanceAddress, path), requestObj);
     }
 
+    /**
+     * Same as the blocking variant but returns immediately, the future is
+     * completed by the I/O reactor once the plugin responds.
+     */
+    public CompletableFuture<PluginResponse<Object>> callPluginServiceAsync(String instanceAddress, String path,
+            List<Map<String, Object>> parameters, String requestId, List<String> allowedOptions, String dueDate) {
+        PluginRequest<Map<String, Object>> requestObj = new DefaultPluginRequest().withInputs(parameters)
+                .withRequestId(requestId);
+        if (allowedOptions != null && !allowedOptions.isEmpty()) {
+            requestObj = requestObj.withAllowedOptions(allowedOptions);
+        }
+        requestObj = requestObj.withDueDate(dueDate);
+
+        return doCallPluginServiceAsync(asPluginServerUrl(instanceAddress, path), requestObj, null);
+    }
+
+    /**
+     * Calls on behalf of a user with the given authorization header, or none
+     * if blank. It could not be refreshed here, so an unauthorized response
+     * fails the call.
+     */
+    public CompletableFuture<PluginResponse<Object>> callPluginServiceAsync(String instanceAddress, String path,
+            List<Map<String, Object>> parameters, String requestId, String userAuthorization) {
+        return doCallPluginServiceAsync(asPluginServerUrl(instanceAddress, path),
+                new DefaultPluginRequest().withInputs(parameters).withRequestId(requestId),
+                userAuthorization == null ? "" : userAuthorization);
+    }
+
+    public boolean isAsyncSupported() {
+        return pluginAsyncHttpClient != null && pluginAsyncHttpClient.isRunning();
+    }
+
     public PluginResponse<Object> callPluginService(String instanceAddress, String path,
             List<Map<String, Object>> parameters, String requestId) {
         return doCallPluginService(asPluginServerUrl(instanceAddress, path),
@@ -51,6 +105,90 @@ public class PluginInvocationRestClient implements RestClient {
         return response;
     }
 
+    protected CompletableFuture<PluginResponse<Object>> doCallPluginServiceAsync(String targetUrl,
+            PluginRequest<?> parameters, String userAuthorization) {
+        log.debug("About to call {} asynchronously with parameters: {} ", targetUrl, parameters);
+        CompletableFuture<PluginResponse<Object>> responseFuture = new CompletableFuture<>();
+        try {
+            byte[] requestBody = objectMapper.writeValueAsBytes(parameters);
+            if (userAuthorization != null) {
+                executeAsync(targetUrl, requestBody, userAuthorization, false, responseFuture);
+            } else {
+                executeAsync(targetUrl, requestBody, null, true, responseFuture);
+            }
+        } catch (Exception e) {
+            responseFuture.completeExceptionally(e);
+        }
+
+        return responseFuture;
+    }
+
+    private void executeAsync(String targetUrl, byte[] requestBody, String userAuthorization,
+            boolean retryIfUnauthorized, CompletableFuture<PluginResponse<Object>> responseFuture) {
+        HttpPost request = new HttpPost(targetUrl);
+        request.setHeader(HttpHeaders.ACCEPT, ContentType.APPLICATION_JSON.getMimeType());
+        if (userAuthorization != null) {
+            if (!userAuthorization.trim().isEmpty()) {
+                request.setHeader(JwtSsoClientContext.HEADER_AUTHORIZATION, userAuthorization);
+            }
+        } else {
+            request.setHeader(JwtSsoClientContext.HEADER_AUTHORIZATION,
+                    JwtSsoClientContext.PREFIX_BEARER_TOKEN + jwtSsoClientContext.getAccessToken().getToken());
+        }
+        request.setEntity(new ByteArrayEntity(requestBody, ContentType.APPLICATION_JSON));
+
+        pluginAsyncHttpClient.execute(request, new FutureCallback<HttpResponse>() {
+
+            @Override
+            public void completed(HttpResponse httpResponse) {
+                int statusCode = httpResponse.getStatusLine().getStatusCode();
+                if (statusCode == HttpStatus.SC_UNAUTHORIZED && retryIfUnauthorized) {
+                    EntityUtils.consumeQuietly(httpResponse.getEntity());
+                    log.info("access token is invalid and try again.");
+                    // refreshing the token is a blocking call, keep it away
+                    // from the I/O reactor threads
+                    CompletableFuture.runAsync(() -> {
+                        jwtSsoClientContext.refreshToken();
+                        executeAsync(targetUrl, requestBody, null, false, responseFuture);
+                    }).exceptionally(e -> {
+                        responseFuture.completeExceptionally(e);
+                        return null;
+                    });
+                    return;
+                }
+
+                try {
+                    if (statusCode >= HttpStatus.SC_BAD_REQUEST) {
+                        EntityUtils.consumeQuietly(httpResponse.getEntity());
+                        responseFuture.completeExceptionally(new PluginRemoteCallException(
+                                String.format("Plugin call failed with HTTP status %s", statusCode)));
+                        return;
+                    }
+
+                    PluginResponse<Object> response = null;
+                    if (httpResponse.getEntity() != null) {
+                        response = objectMapper.readValue(EntityUtils.toByteArray(httpResponse.getEntity()),
+                                DefaultPluginResponse.class);
+                    }
+                    log.debug("Plugin response: {} ", response);
+                    responseFuture.complete(response);
+                } catch (Exception e) {
+                    responseFuture.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                responseFuture.completeExceptionally(ex);
+            }
+
+            @Override
+            public void cancelled() {
+                responseFuture.cancel(false);
+            }
+        });
+    }
+
     protected String asPluginServerUrl(String instanceAddress, String originPath, Object... pathVariables) {
         String solvedPath = originPath;
         if (pathVariables != null && pathVariables.length > 0) {
@@ -2,6 +2,7 @@ package com.webank.wecube.platform.core.support.plugin;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,6 +11,8 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import com.webank.wecube.platform.core.commons.AuthenticationContextHolder;
+import com.webank.wecube.platform.core.commons.AuthenticationContextHolder.AuthenticatedUser;
 import com.webank.wecube.platform.core.support.plugin.dto.PluginRequest;
 import com.webank.wecube.platform.core.support.plugin.dto.PluginRequest.DefaultPluginRequest;
 import com.webank.wecube.platform.core.support.plugin.dto.PluginResponse;
@@ -27,6 +30,9 @@ public class PluginServiceStub {
     @Qualifier("userJwtSsoTokenRestTemplate")
     private RestTemplate userJwtSsoTokenRestTemplate;
 
+    @Autowired
+    private PluginInvocationRestClient pluginInvocationRestClient;
+
     private static final String INF_RELEASED_PACKAGE_LIST_DIR = "/v1/deploy/released-package/listCurrentDir";
     private static final String INF_RELEASED_PACKAGE_PROPERTY_KEY = "/v1/deploy/released-package/getConfigFileKey";
     private static final String INF_RUN_SCRIPT_PATH = "/v1/deploy/script/run";
@@ -67,6 +73,28 @@ public class PluginServiceStub {
                 new DefaultPluginRequest().withInputs(parameters).withRequestId(requestId));
     }
 
+    public boolean isAsyncSupported() {
+        return pluginInvocationRestClient.isAsyncSupported();
+    }
+
+    /**
+     * Same as the blocking variant on behalf of the current user, the future
+     * is completed by the I/O reactor once the plugin responds.
+     */
+    public CompletableFuture<ResultData<Object>> callPluginInterfaceAsync(String instanceAddress, String path,
+            List<Map<String, Object>> parameters, String requestId) {
+        AuthenticatedUser loginUser = AuthenticationContextHolder.getCurrentUser();
+        String userAuthorization = loginUser == null ? null : loginUser.getToken();
+        log.info("About to call {}{} asynchronously with parameters: {} ", instanceAddress, path, parameters);
+        return pluginInvocationRestClient
+                .callPluginServiceAsync(instanceAddress, path, parameters, requestId, userAuthorization)
+                .thenApply(response -> {
+                    log.info("Plugin response: {} ", response);
+                    validatePluginResponse(response, false);
+                    return response.getResultData();
+                });
+    }
+
     private ResultData<Object> callPluginInterface(String targetUrl, PluginRequest<?> parameters) {
         log.info("About to call {} with parameters: {} ", targetUrl, parameters);
         PluginResponse<Object> response = userJwtSsoTokenRestTemplate.postForObject(targetUrl, parameters,
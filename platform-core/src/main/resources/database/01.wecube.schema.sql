@@ -359,4 +359,12 @@ CREATE TABLE `plugin_artifact_pull_req` (
   PRIMARY KEY (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
+DROP TABLE IF EXISTS `plugin_route_version`;
+CREATE TABLE `plugin_route_version` (
+  `id` varchar(64) NOT NULL,
+  `version` bigint(20) NOT NULL DEFAULT 0,
+  `updated_time` datetime DEFAULT NULL,
+  PRIMARY KEY (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
 SET FOREIGN_KEY_CHECKS = 1;
@@ -1079,6 +1079,29 @@ CREATE TABLE IF NOT EXISTS `act_ru_procinst_status` (
   PRIMARY KEY (`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8;
 
+DROP TABLE IF EXISTS `act_ru_srv_invoke_event`;
+CREATE TABLE IF NOT EXISTS `act_ru_srv_invoke_event` (
+  `id` varchar(255) NOT NULL,
+  `event_type` varchar(64) DEFAULT NULL,
+  `status` varchar(32) DEFAULT NULL,
+  `owner` varchar(255) DEFAULT NULL,
+  `lease_expire_time` datetime DEFAULT NULL,
+  `retry_times` int(11) DEFAULT 0,
+  `proc_def_id` varchar(255) DEFAULT NULL,
+  `proc_def_key` varchar(255) DEFAULT NULL,
+  `proc_def_ver` int(11) DEFAULT NULL,
+  `proc_inst_id` varchar(255) DEFAULT NULL,
+  `proc_inst_key` varchar(255) DEFAULT NULL,
+  `exec_id` varchar(255) DEFAULT NULL,
+  `event_src_id` varchar(255) DEFAULT NULL,
+  `event_src_name` varchar(255) DEFAULT NULL,
+  `allowed_options` text DEFAULT NULL,
+  `created_time` datetime DEFAULT NULL,
+  `updated_time` datetime DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  KEY `idx_act_ru_srv_invoke_event_1` (`status`, `lease_expire_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+
 DROP TABLE IF EXISTS `act_ru_srvnode_status`;
 CREATE TABLE IF NOT EXISTS `act_ru_srvnode_status` (
   `id` varchar(255) NOT NULL,
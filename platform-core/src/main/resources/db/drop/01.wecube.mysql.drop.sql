@@ -27,6 +27,7 @@ DROP TABLE IF EXISTS execution_job_parameters;
 DROP TABLE IF EXISTS favorites;
 DROP TABLE IF EXISTS favorites_role;
 DROP TABLE IF EXISTS plugin_artifact_pull_req;
+DROP TABLE IF EXISTS plugin_route_version;
 #workflow
 DROP TABLE IF EXISTS act_ge_bytearray;
 DROP TABLE IF EXISTS act_ge_property;
@@ -74,6 +75,7 @@ DROP TABLE IF EXISTS act_ru_job;
 DROP TABLE IF EXISTS act_ru_jobdef;
 DROP TABLE IF EXISTS act_ru_meter_log;
 DROP TABLE IF EXISTS act_ru_procinst_status;
+DROP TABLE IF EXISTS act_ru_srv_invoke_event;
 DROP TABLE IF EXISTS act_ru_srvnode_status;
 DROP TABLE IF EXISTS act_ru_task;
 DROP TABLE IF EXISTS act_ru_variable;
@@ -0,0 +1,129 @@
+package com.webank.wecube.platform.core.jpa;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.webank.wecube.platform.core.Application;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecParamEntity;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeExecParamRepository;
+
+/**
+ * Per task node cost of persisting the request parameters of entityCount
+ * bound entities with 21 parameters each, row by row with saveAndFlush versus
+ * one jdbc batch insert, against the H2 database of the test profile, run with
+ * main method from test classpath.
+ *
+ * @author gavin
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskNodeExecParamInsertBenchmark {
+    private static final int PARAMS_PER_ENTITY = 20;
+
+    @Param({ "1", "10", "50", "200" })
+    private int entityCount;
+
+    private ConfigurableApplicationContext applicationContext;
+
+    private TaskNodeExecParamRepository taskNodeExecParamRepository;
+
+    private List<TaskNodeExecParamEntity> paramEntities;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        applicationContext = new SpringApplicationBuilder(Application.class).profiles("test")
+                .properties("server.port=0").run();
+        taskNodeExecParamRepository = applicationContext.getBean(TaskNodeExecParamRepository.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareParamEntities() {
+        // saveAndFlush assigns ids, so every invocation needs new entities
+        paramEntities = buildParamEntities(UUID.randomUUID().toString(), entityCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (applicationContext != null) {
+            applicationContext.close();
+        }
+    }
+
+    @Benchmark
+    public int saveAndFlushPerRow() {
+        for (TaskNodeExecParamEntity e : paramEntities) {
+            taskNodeExecParamRepository.saveAndFlush(e);
+        }
+        return paramEntities.size();
+    }
+
+    @Benchmark
+    public int batchInsert() {
+        return taskNodeExecParamRepository.batchInsert(paramEntities);
+    }
+
+    private List<TaskNodeExecParamEntity> buildParamEntities(String requestId, int entityCount) {
+        List<TaskNodeExecParamEntity> paramEntities = new ArrayList<>();
+        for (int objectId = 0; objectId < entityCount; objectId++) {
+            String entityDataId = "entity-" + objectId;
+
+            TaskNodeExecParamEntity p = new TaskNodeExecParamEntity();
+            p.setRequestId(requestId);
+            p.setParamName("callbackParameter");
+            p.setParamType(TaskNodeExecParamEntity.PARAM_TYPE_REQUEST);
+            p.setParamDataType(TaskNodeExecParamEntity.PARAM_DATA_TYPE_STRING);
+            p.setObjectId(String.valueOf(objectId));
+            p.setParamDataValue(entityDataId);
+            p.setEntityDataId(entityDataId);
+            p.setEntityTypeId("wecmdb:host_resource_instance");
+            paramEntities.add(p);
+
+            for (int i = 0; i < PARAMS_PER_ENTITY; i++) {
+                TaskNodeExecParamEntity e = new TaskNodeExecParamEntity();
+                e.setRequestId(requestId);
+                e.setParamName("param-" + i);
+                e.setParamType(TaskNodeExecParamEntity.PARAM_TYPE_REQUEST);
+                e.setParamDataType(TaskNodeExecParamEntity.PARAM_DATA_TYPE_STRING);
+                e.setObjectId(String.valueOf(objectId));
+                e.setParamDataValue("value-" + i);
+                e.setEntityDataId(entityDataId);
+                e.setEntityTypeId("wecmdb:host_resource_instance");
+                e.setSensitive(i == 0);
+                paramEntities.add(e);
+            }
+        }
+        return paramEntities;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder().include(TaskNodeExecParamInsertBenchmark.class.getSimpleName()).build();
+        new Runner(opt).run();
+    }
+}
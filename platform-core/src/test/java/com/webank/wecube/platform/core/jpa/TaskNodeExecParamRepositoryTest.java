@@ -0,0 +1,76 @@
+package com.webank.wecube.platform.core.jpa;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.webank.wecube.platform.core.DatabaseBasedTest;
+import com.webank.wecube.platform.core.entity.workflow.TaskNodeExecParamEntity;
+import com.webank.wecube.platform.core.jpa.workflow.TaskNodeExecParamRepository;
+
+public class TaskNodeExecParamRepositoryTest extends DatabaseBasedTest {
+    private static final int PARAMS_PER_ENTITY = 20;
+
+    @Autowired
+    private TaskNodeExecParamRepository taskNodeExecParamRepository;
+
+    @Test
+    public void givenRequestParametersWhenBatchInsertThenAllRowsShouldBeQueryable() {
+        String requestId = UUID.randomUUID().toString();
+        List<TaskNodeExecParamEntity> paramEntities = buildParamEntities(requestId, 3);
+
+        int inserted = taskNodeExecParamRepository.batchInsert(paramEntities);
+        assertThat(inserted).isEqualTo(3 * (PARAMS_PER_ENTITY + 1));
+
+        List<TaskNodeExecParamEntity> callbackParams = taskNodeExecParamRepository
+                .findAllByRequestIdAndParamTypeAndParamName(requestId, TaskNodeExecParamEntity.PARAM_TYPE_REQUEST,
+                        "callbackParameter");
+        assertThat(callbackParams).hasSize(3);
+        assertThat(callbackParams).extracting("entityDataId").containsExactlyInAnyOrder("entity-0", "entity-1",
+                "entity-2");
+
+        List<TaskNodeExecParamEntity> sensitiveParams = taskNodeExecParamRepository
+                .findAllByRequestIdAndParamNameAndParamType(requestId, "param-0",
+                        TaskNodeExecParamEntity.PARAM_TYPE_REQUEST);
+        assertThat(sensitiveParams).hasSize(3);
+        assertThat(sensitiveParams.get(0).getSensitive()).isTrue();
+    }
+
+    private List<TaskNodeExecParamEntity> buildParamEntities(String requestId, int entityCount) {
+        List<TaskNodeExecParamEntity> paramEntities = new ArrayList<>();
+        for (int objectId = 0; objectId < entityCount; objectId++) {
+            String entityDataId = "entity-" + objectId;
+
+            TaskNodeExecParamEntity p = new TaskNodeExecParamEntity();
+            p.setRequestId(requestId);
+            p.setParamName("callbackParameter");
+            p.setParamType(TaskNodeExecParamEntity.PARAM_TYPE_REQUEST);
+            p.setParamDataType(TaskNodeExecParamEntity.PARAM_DATA_TYPE_STRING);
+            p.setObjectId(String.valueOf(objectId));
+            p.setParamDataValue(entityDataId);
+            p.setEntityDataId(entityDataId);
+            p.setEntityTypeId("wecmdb:host_resource_instance");
+            paramEntities.add(p);
+
+            for (int i = 0; i < PARAMS_PER_ENTITY; i++) {
+                TaskNodeExecParamEntity e = new TaskNodeExecParamEntity();
+                e.setRequestId(requestId);
+                e.setParamName("param-" + i);
+                e.setParamType(TaskNodeExecParamEntity.PARAM_TYPE_REQUEST);
+                e.setParamDataType(TaskNodeExecParamEntity.PARAM_DATA_TYPE_STRING);
+                e.setObjectId(String.valueOf(objectId));
+                e.setParamDataValue("value-" + i);
+                e.setEntityDataId(entityDataId);
+                e.setEntityTypeId("wecmdb:host_resource_instance");
+                e.setSensitive(i == 0);
+                paramEntities.add(e);
+            }
+        }
+        return paramEntities;
+    }
+}
@@ -0,0 +1,121 @@
+package com.webank.wecube.platform.core.service.dme;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.ExpectedCount;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import com.webank.wecube.platform.core.DatabaseBasedTest;
+import com.webank.wecube.platform.core.commons.ApplicationProperties;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.EntityOperationProperties;
+import com.webank.wecube.platform.core.service.plugin.PluginInstanceRegistry;
+
+public class EntityDataRouteFactoryTest extends DatabaseBasedTest {
+    private static final String PACKAGE_NAME = "service-mgmt";
+
+    @Autowired
+    private EntityDataRouteFactory entityDataRouteFactory;
+
+    @Autowired
+    private StandardEntityOperationService standardEntityOperationService;
+
+    @Autowired
+    private PluginInstanceRegistry pluginInstanceRegistry;
+
+    @Autowired
+    private EntityOperationProperties entityOperationProperties;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    @Qualifier(value = "jwtSsoRestTemplate")
+    private RestTemplate jwtSsoRestTemplate;
+
+    private List<String> originalDirectRoutePackages;
+
+    @Before
+    public void setupDirectRoutePackage() {
+        originalDirectRoutePackages = entityOperationProperties.getDirectRoutePackages();
+        entityOperationProperties.setDirectRoutePackages(Collections.singletonList(PACKAGE_NAME));
+        pluginInstanceRegistry.invalidate(PACKAGE_NAME);
+        executeSql("INSERT INTO `plugin_packages` (`id`, `name`, `version`, `status`, `upload_timestamp`, `ui_package_included`) VALUES "
+                + "  ('service-mgmt__v1.0', 'service-mgmt', 'v1.0', 'REGISTERED', '2019-11-25 20:31:48', '0')\n"
+                + ";\n"
+                + "INSERT INTO `plugin_instances` (`id`, `host`, `container_name`, `port`, `container_status`, `package_id`, `docker_instance_resource_id`, `instance_name`, `plugin_mysql_instance_resource_id`, `s3bucket_resource_id`) VALUES "
+                + " ('service-mgmt__v1.0__service-mgmt__127.0.0.1__20003', '127.0.0.1', 'service-mgmt', 20003, 'RUNNING', 'service-mgmt__v1.0', NULL, 'service-mgmt', NULL, NULL) "
+                + ";\n");
+    }
+
+    @After
+    public void restoreDirectRoutePackages() {
+        entityOperationProperties.setDirectRoutePackages(originalDirectRoutePackages);
+        pluginInstanceRegistry.invalidate(PACKAGE_NAME);
+    }
+
+    @Test
+    public void givenDirectRoutePackageWhenDeduceThenShouldRouteToRunningInstance() {
+        EntityRouteDescription entityDef = entityDataRouteFactory.deduceEntityDescription(PACKAGE_NAME,
+                "system_design");
+
+        assertThat(entityDef.getHttpHost()).isEqualTo("127.0.0.1");
+        assertThat(entityDef.getHttpPort()).isEqualTo("20003");
+
+        EntityRouteDescription gatewayDef = entityDataRouteFactory.getGatewayFallback(entityDef);
+        assertThat(gatewayDef).isNotNull();
+        assertThat(gatewayDef.getHttpHost() + ":" + gatewayDef.getHttpPort())
+                .isEqualTo(applicationProperties.getGatewayUrl());
+        assertThat(entityDataRouteFactory.getGatewayFallback(gatewayDef)).isNull();
+    }
+
+    @Test
+    public void givenCachedDirectRouteWhenInstancesInvalidatedThenShouldDropIt() {
+        EntityRouteDescription entityDef = entityDataRouteFactory.deduceEntityDescription(PACKAGE_NAME,
+                "system_design");
+        assertThat(entityDataRouteFactory.deduceEntityDescription(PACKAGE_NAME, "system_design"))
+                .isSameAs(entityDef);
+
+        pluginInstanceRegistry.invalidate(PACKAGE_NAME);
+
+        assertThat(entityDataRouteFactory.deduceEntityDescription(PACKAGE_NAME, "system_design"))
+                .isNotSameAs(entityDef);
+    }
+
+    @Test
+    public void givenDirectInstanceUnreachableWhenQueryThenShouldFallBackToGateway() {
+        MockRestServiceServer server = MockRestServiceServer.bindTo(jwtSsoRestTemplate).build();
+        server.expect(ExpectedCount.once(),
+                requestTo("http://127.0.0.1:20003/service-mgmt/entities/system_design/query"))
+                .andExpect(method(HttpMethod.POST)).andRespond(request -> {
+                    throw new IOException("Connection refused");
+                });
+        server.expect(ExpectedCount.once(),
+                requestTo(String.format("http://%s/service-mgmt/entities/system_design/query",
+                        applicationProperties.getGatewayUrl())))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(withSuccess("{\"status\": \"OK\", \"message\": \"Success\", \"data\": "
+                        + "[{\"id\": \"0001_0000000001\", \"displayName\": \"EDP\", \"code\": \"EDP\"}]}",
+                        MediaType.APPLICATION_JSON));
+
+        List<Object> result = standardEntityOperationService.queryAttributeValues(
+                new EntityOperationRootCondition("service-mgmt:system_design.code", "0001_0000000001"));
+
+        assertThat(result).containsExactly("EDP");
+        server.verify();
+    }
+}
@@ -0,0 +1,67 @@
+package com.webank.wecube.platform.core.service.dme;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Parse throughput of typical CMDB expressions with and without compiled plan
+ * cache, run with main method from test classpath.
+ *
+ * @author gavin
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityQueryExpressionParserBenchmark {
+
+    @Param({ "wecmdb:host_resource_instance{ip_address eq '10.128.202.3'}.ip_address",
+            "wecmdb:subsys{att1 eq '@@0008_123456789@@eee'}{attr2 like 'AAA'}.subsys_design>wecmdb:subsys_design.system_design>wecmdb:system_design{attr2 like 'AAA'}.key_name",
+            "wecmdb:zone_link_design~(zone_link_design)wecmdb:zone_link.zone1>wecmdb:zone{state in ['created','running']}.code" })
+    private String expr;
+
+    private EntityQueryExpressionParser cachedParser;
+
+    private EntityQueryExpressionParser uncachedParser;
+
+    @Setup
+    public void setup() {
+        cachedParser = new EntityQueryExpressionParser();
+        uncachedParser = new EntityQueryExpressionParser(0);
+    }
+
+    @Benchmark
+    public List<EntityQueryExprNodeInfo> parseWithCompiledPlanCache() {
+        return cachedParser.parse(expr);
+    }
+
+    @Benchmark
+    public List<EntityQueryExprNodeInfo> parseWithoutCompiledPlanCache() {
+        return uncachedParser.parse(expr);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder().include(EntityQueryExpressionParserBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -188,4 +188,24 @@ public class EntityQueryExpressionParserTests {
 		Assert.assertEquals(0, nodeInfo.getAdditionalFilters().size());
 		Assert.assertEquals(null, nodeInfo.getQueryAttrName());
 	}
+
+	@Test
+	public void testParseSameExprTwiceShouldReuseCompiledPlan() {
+		String inputExpr = "wecmdb:subsys{att1 in ['A','B']}.subsys_design>wecmdb:subsys_design.system_design";
+
+		EntityQueryExpressionPlan plan = parser.compile(inputExpr);
+		Assert.assertSame(plan, parser.compile(inputExpr));
+		Assert.assertEquals(2, plan.getNodeCount());
+
+		List<EntityQueryExprNodeInfo> queryNodeInfos = parser.parse(inputExpr);
+		queryNodeInfos.get(0).setQueryAttrName("changed");
+		queryNodeInfos.get(0).addAdditionalFilters(new EntityQueryFilter());
+		((List<?>) queryNodeInfos.get(0).getAdditionalFilters().get(0).getCondition()).clear();
+
+		List<EntityQueryExprNodeInfo> reparsedNodeInfos = parser.parse(inputExpr);
+		Assert.assertNotSame(queryNodeInfos.get(0), reparsedNodeInfos.get(0));
+		Assert.assertEquals("subsys_design", reparsedNodeInfos.get(0).getQueryAttrName());
+		Assert.assertEquals(1, reparsedNodeInfos.get(0).getAdditionalFilters().size());
+		Assert.assertEquals(2, ((List<?>) reparsedNodeInfos.get(0).getAdditionalFilters().get(0).getCondition()).size());
+	}
 }
@@ -0,0 +1,108 @@
+package com.webank.wecube.platform.core.service.dme;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Hierarchical tree assembly of a three level expression result, one root,
+ * 100 children and nodeCount grandchildren, run with main method from test
+ * classpath.
+ *
+ * @author gavin
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityTreeAssemblyBenchmark {
+    private static final String PACKAGE_NAME = "wecmdb";
+    private static final int SECOND_LEVEL_NODES = 100;
+
+    @Param({ "10000", "100000" })
+    private int nodeCount;
+
+    private StandardEntityQueryExecutor executor;
+
+    private EntityOperationContext ctx;
+
+    @Setup
+    public void setup() {
+        executor = new StandardEntityQueryExecutor();
+
+        EntityQueryLinkNode unitLinkNode = buildLinkNode(0, "unit", null);
+        EntityQueryLinkNode instanceLinkNode = buildLinkNode(1, "app_instance", unitLinkNode);
+        EntityQueryLinkNode hostLinkNode = buildLinkNode(2, "host_resource_instance", instanceLinkNode);
+
+        EntityDataDelegate unit = buildEntityDataDelegate("unit", "0001_0000000001", null);
+        unitLinkNode.addEntityDataDelegates(unit);
+
+        EntityDataDelegate[] instances = new EntityDataDelegate[SECOND_LEVEL_NODES];
+        for (int i = 0; i < SECOND_LEVEL_NODES; i++) {
+            instances[i] = buildEntityDataDelegate("app_instance", String.format("0002_%010d", i), unit);
+            instanceLinkNode.addEntityDataDelegates(instances[i]);
+        }
+
+        for (int i = 0; i < nodeCount; i++) {
+            EntityDataDelegate host = buildEntityDataDelegate("host_resource_instance",
+                    String.format("0003_%010d", i), instances[i % SECOND_LEVEL_NODES]);
+            hostLinkNode.addEntityDataDelegates(host);
+        }
+
+        ctx = new EntityOperationContext();
+        ctx.setHeadEntityQueryLinkNode(unitLinkNode);
+    }
+
+    @Benchmark
+    public List<TreeNode> generateHierarchicalEntityTreeNodes() {
+        return executor.generateHierarchicalEntityTreeNodes(ctx);
+    }
+
+    private EntityQueryLinkNode buildLinkNode(int index, String entityName, EntityQueryLinkNode previousLinkNode) {
+        EntityQueryExprNodeInfo nodeInfo = new EntityQueryExprNodeInfo();
+        nodeInfo.setPackageName(PACKAGE_NAME);
+        nodeInfo.setEntityName(entityName);
+        nodeInfo.setHeadEntity(previousLinkNode == null);
+
+        EntityQueryLinkNode linkNode = new EntityQueryLinkNode();
+        linkNode.setIndex(index);
+        linkNode.setExprNodeInfo(nodeInfo);
+        linkNode.setHead(previousLinkNode == null);
+        linkNode.setPreviousNode(previousLinkNode);
+        return linkNode;
+    }
+
+    private EntityDataDelegate buildEntityDataDelegate(String entityName, String id,
+            EntityDataDelegate previousEntity) {
+        EntityDataDelegate delegate = new EntityDataDelegate();
+        delegate.setPackageName(PACKAGE_NAME);
+        delegate.setEntityName(entityName);
+        delegate.setId(id);
+        delegate.setDisplayName(id);
+        delegate.setPreviousEntity(previousEntity);
+        return delegate;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder().include(EntityTreeAssemblyBenchmark.class.getSimpleName()).build();
+        new Runner(opt).run();
+    }
+}
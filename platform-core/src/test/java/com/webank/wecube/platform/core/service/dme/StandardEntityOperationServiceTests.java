@@ -3,6 +3,7 @@ package com.webank.wecube.platform.core.service.dme;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertNotNull;
 
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -234,6 +235,38 @@ public class StandardEntityOperationServiceTests extends BaseSpringBootTest {
         server.verify();
     }
 
+    @Test
+    public void wecmdbFwdNodeExpressionBatchWriteBackShouldSendOneUpdate() {
+        mockers.mockFwdNodeExpressionBatchWriteBackServer(server);
+        EntityDataUpdateBatch updateBatch = new EntityDataUpdateBatch()
+                .addUpdate(new EntityOperationRootCondition("wecmdb:system_design.code", "0001_0000000001"), "Test")
+                .addUpdate(new EntityOperationRootCondition("wecmdb:system_design.key_name", "0001_0000000001"),
+                        "TEST");
+        standardEntityOperationService.update(updateBatch);
+        server.verify();
+    }
+
+    @Test
+    public void wecmdbRootEntityPagesShouldBeQueriedWithCursor() {
+        mockers.mockRootEntityPagesServer(server);
+
+        Iterator<EntityDataPage> pages = standardEntityOperationService.iterateAttributeValuesOfLeafNode(
+                new EntityOperationRootCondition("wecmdb:system_design", null), 1, jwtSsoRestTemplate);
+
+        assertThat(pages.hasNext()).isTrue();
+        EntityDataPage firstPage = pages.next();
+        assertThat(firstPage.getRecords().size()).isEqualTo(1);
+        assertThat(firstPage.getNextCursor()).isEqualTo("0001_0000000001");
+
+        assertThat(pages.hasNext()).isTrue();
+        EntityDataPage secondPage = pages.next();
+        assertThat(secondPage.getRecords()).isEmpty();
+        assertThat(secondPage.getNextCursor()).isNull();
+        assertThat(pages.hasNext()).isFalse();
+
+        server.verify();
+    }
+
     @Test
     public void wecmdbFwdNodeExpressionGetPreviewTreeShouldSucceed() {
         mockers.mockFwdNodeExpressionServer(server);
@@ -1,5 +1,6 @@
 package com.webank.wecube.platform.core.service.dme;
 
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
@@ -263,14 +264,8 @@ public class StandardEntityOperationServiceTestsMockers {
                         + "            \"resource_set_design_type\": 136,\n"
                         + "            \"name\": \"Application module\",\n"
                         + "            \"id\": \"0003_0000000006\",\n" + "            \"state\": 34,\n"
-                        + "            \"fixed_date\": \"2019-07-24 16:29:05\"\n" + "        }\n" + "    ]\n" + "}",
-                        MediaType.APPLICATION_JSON));
-
-        server.expect(ExpectedCount.once(),
-                requestTo(String.format("http://%s/wecmdb/entities/unit_design/query", this.gatewayUrl)))
-                .andExpect(method(HttpMethod.POST))
-                .andRespond(withSuccess("{\n" + "    \"status\": \"OK\",\n" + "    \"message\": \"Success\",\n"
-                        + "    \"data\": [\n" + "        {\n" + "            \"biz_key\": null,\n"
+                        + "            \"fixed_date\": \"2019-07-24 16:29:05\"\n" + "        },\n"
+                        + "        {\n" + "            \"biz_key\": null,\n"
                         + "            \"subsys_design\": \"0002_0000000010\",\n" + "            \"code\": \"DB\",\n"
                         + "            \"orchestration\": null,\n" + "            \"r_guid\": \"0003_0000000007\",\n"
                         + "            \"description\": \"DB Module\",\n"
@@ -279,7 +274,8 @@ public class StandardEntityOperationServiceTestsMockers {
                         + "            \"type\": 107,\n" + "            \"key_name\": \"ECIF-CORE-DB\",\n"
                         + "            \"resource_set_design_type\": 137,\n" + "            \"name\": \"DB Module\",\n"
                         + "            \"id\": \"0003_0000000007\",\n" + "            \"state\": 34,\n"
-                        + "            \"fixed_date\": \"2019-07-24 16:30:00\"\n" + "        }\n" + "    ]\n" + "}",
+                        + "            \"fixed_date\": \"2019-07-24 16:30:00\"\n" + "        }\n"
+                        + "    ]\n" + "}",
                         MediaType.APPLICATION_JSON));
 
         server.expect(ExpectedCount.manyTimes(),
@@ -352,14 +348,8 @@ public class StandardEntityOperationServiceTestsMockers {
                         + "            \"asset_code\": \"\",\n" + "            \"name\": \"MGMT-ECN\",\n"
                         + "            \"id\": \"0018_0000000003\",\n" + "            \"state\": 37,\n"
                         + "            \"zone_link_design\": \"0024_0000000005\",\n"
-                        + "            \"fixed_date\": null\n" + "        }\n" + "    ]\n" + "}",
-                        MediaType.APPLICATION_JSON));
-
-        server.expect(ExpectedCount.once(),
-                requestTo(String.format("http://%s/wecmdb/entities/zone_link/query", this.gatewayUrl)))
-                .andExpect(method(HttpMethod.POST))
-                .andRespond(withSuccess("{\n" + "    \"status\": \"OK\",\n" + "    \"message\": \"Success\",\n"
-                        + "    \"data\": [\n" + "        {\n" + "            \"biz_key\": null,\n"
+                        + "            \"fixed_date\": null\n" + "        },\n"
+                        + "        {\n" + "            \"biz_key\": null,\n"
                         + "            \"code\": \"PARTNERNET-ECN\",\n" + "            \"orchestration\": null,\n"
                         + "            \"r_guid\": \"0018_0000000007\",\n" + "            \"description\": \"\",\n"
                         + "            \"displayName\": \"\",\n" + "            \"zone2\": \"0017_0000000002\",\n"
@@ -368,7 +358,8 @@ public class StandardEntityOperationServiceTestsMockers {
                         + "            \"asset_code\": \"\",\n" + "            \"name\": \"PARTNERNET-ECN\",\n"
                         + "            \"id\": \"0018_0000000007\",\n" + "            \"state\": 37,\n"
                         + "            \"zone_link_design\": \"0024_0000000006\",\n"
-                        + "            \"fixed_date\": null\n" + "        }\n" + "    ]\n" + "}",
+                        + "            \"fixed_date\": null\n" + "        }\n"
+                        + "    ]\n" + "}",
                         MediaType.APPLICATION_JSON));
 
         server.expect(ExpectedCount.once(),
@@ -385,14 +376,8 @@ public class StandardEntityOperationServiceTestsMockers {
                         + "            \"key_name\": \"PRD-GZ1-MGMT\",\n" + "            \"asset_code\": \"\",\n"
                         + "            \"name\": \"MGMT\",\n" + "            \"id\": \"0017_0000000003\",\n"
                         + "            \"state\": 37,\n" + "            \"fixed_date\": null,\n"
-                        + "            \"zone_design\": \"0023_0000000003\"\n" + "        }\n" + "    ]\n" + "}",
-                        MediaType.APPLICATION_JSON));
-
-        server.expect(ExpectedCount.once(),
-                requestTo(String.format("http://%s/wecmdb/entities/zone/query", this.gatewayUrl)))
-                .andExpect(method(HttpMethod.POST))
-                .andRespond(withSuccess("{\n" + "    \"status\": \"OK\",\n" + "    \"message\": \"Success\",\n"
-                        + "    \"data\": [\n" + "        {\n" + "            \"biz_key\": \"rxf8rvAJ2Bi\",\n"
+                        + "            \"zone_design\": \"0023_0000000003\"\n" + "        },\n"
+                        + "        {\n" + "            \"biz_key\": \"rxf8rvAJ2Bi\",\n"
                         + "            \"zone_layer\": 123,\n" + "            \"code\": \"PARTNERNET\",\n"
                         + "            \"orchestration\": 224,\n"
                         + "            \"network_segment\": \"0021_0000000008\",\n"
@@ -403,9 +388,9 @@ public class StandardEntityOperationServiceTestsMockers {
                         + "            \"asset_code\": \"vpc-hewlni6b\",\n" + "            \"name\": \"PARTNER\",\n"
                         + "            \"id\": \"0017_0000000005\",\n" + "            \"state\": 37,\n"
                         + "            \"fixed_date\": \"2019-07-25 21:46:43\",\n"
-                        + "            \"zone_design\": \"0023_0000000007\"\n" + "        }\n" + "    ]\n" + "}",
+                        + "            \"zone_design\": \"0023_0000000007\"\n" + "        }\n"
+                        + "    ]\n" + "}",
                         MediaType.APPLICATION_JSON));
-
     }
     
     
@@ -629,7 +614,6 @@ public class StandardEntityOperationServiceTestsMockers {
                         + "            \"type\": 152,\n" + "            \"fixed_date\": \"\",\n"
                         + "            \"unit_design\": \"0003_0000000018\"\n" + "        }\n" + "    ]\n" + "}",
                         MediaType.APPLICATION_JSON));
-
     }
 
     public void mockMultipleLinksWithOpToOnlyExpressionServer(MockRestServiceServer server) {
@@ -785,11 +769,6 @@ public class StandardEntityOperationServiceTestsMockers {
                         + "            \"id\": \"0015_0000000001\",\n" + "            \"state\": 40,\n"
                         + "            \"fixed_date\": \"\"\n" + "        }\n" + "    ]\n" + "}",
                         MediaType.APPLICATION_JSON));
-
-        server.expect(ExpectedCount.once(),
-                requestTo(String.format("http://%s/wecmdb/entities/running_instance/query", this.gatewayUrl)))
-                .andExpect(method(HttpMethod.POST)).andRespond(withSuccess("{\n" + "    \"status\": \"OK\",\n"
-                        + "    \"message\": \"Success\",\n" + "    \"data\": []\n" + "}", MediaType.APPLICATION_JSON));
     }
 
     public void mockMultipleLinksWithMixedOpExpressionServer(MockRestServiceServer server) {
@@ -849,14 +828,8 @@ public class StandardEntityOperationServiceTestsMockers {
                         + "            \"resource_set_design_type\": 136,\n"
                         + "            \"name\": \"Application module\",\n"
                         + "            \"id\": \"0003_0000000006\",\n" + "            \"state\": 34,\n"
-                        + "            \"fixed_date\": \"2019-07-24 16:29:05\"\n" + "        }\n" + "    ]\n" + "}",
-                        MediaType.APPLICATION_JSON));
-
-        server.expect(ExpectedCount.once(),
-                requestTo(String.format("http://%s/wecmdb/entities/unit_design/query", this.gatewayUrl)))
-                .andExpect(method(HttpMethod.POST))
-                .andRespond(withSuccess("{\n" + "    \"status\": \"OK\",\n" + "    \"message\": \"Success\",\n"
-                        + "    \"data\": [\n" + "        {\n" + "            \"biz_key\": null,\n"
+                        + "            \"fixed_date\": \"2019-07-24 16:29:05\"\n" + "        },\n"
+                        + "        {\n" + "            \"biz_key\": null,\n"
                         + "            \"subsys_design\": \"0002_0000000010\",\n" + "            \"code\": \"DB\",\n"
                         + "            \"orchestration\": null,\n" + "            \"r_guid\": \"0003_0000000007\",\n"
                         + "            \"description\": \"DB Module\",\n"
@@ -865,7 +838,8 @@ public class StandardEntityOperationServiceTestsMockers {
                         + "            \"type\": 107,\n" + "            \"key_name\": \"ECIF-CORE-DB\",\n"
                         + "            \"resource_set_design_type\": 137,\n" + "            \"name\": \"DB Module\",\n"
                         + "            \"id\": \"0003_0000000007\",\n" + "            \"state\": 34,\n"
-                        + "            \"fixed_date\": \"2019-07-24 16:30:00\"\n" + "        }\n" + "    ]\n" + "}",
+                        + "            \"fixed_date\": \"2019-07-24 16:30:00\"\n" + "        }\n"
+                        + "    ]\n" + "}",
                         MediaType.APPLICATION_JSON));
 
         server.expect(ExpectedCount.manyTimes(),
@@ -938,14 +912,8 @@ public class StandardEntityOperationServiceTestsMockers {
                         + "            \"asset_code\": \"\",\n" + "            \"name\": \"MGMT-ECN\",\n"
                         + "            \"id\": \"0018_0000000003\",\n" + "            \"state\": 37,\n"
                         + "            \"zone_link_design\": \"0024_0000000005\",\n"
-                        + "            \"fixed_date\": null\n" + "        }\n" + "    ]\n" + "}",
-                        MediaType.APPLICATION_JSON));
-
-        server.expect(ExpectedCount.once(),
-                requestTo(String.format("http://%s/wecmdb/entities/zone_link/query", this.gatewayUrl)))
-                .andExpect(method(HttpMethod.POST))
-                .andRespond(withSuccess("{\n" + "    \"status\": \"OK\",\n" + "    \"message\": \"Success\",\n"
-                        + "    \"data\": [\n" + "        {\n" + "            \"biz_key\": null,\n"
+                        + "            \"fixed_date\": null\n" + "        },\n"
+                        + "        {\n" + "            \"biz_key\": null,\n"
                         + "            \"code\": \"PARTNERNET-ECN\",\n" + "            \"orchestration\": null,\n"
                         + "            \"r_guid\": \"0018_0000000007\",\n" + "            \"description\": \"\",\n"
                         + "            \"displayName\": \"\",\n" + "            \"zone2\": \"0017_0000000002\",\n"
@@ -954,7 +922,8 @@ public class StandardEntityOperationServiceTestsMockers {
                         + "            \"asset_code\": \"\",\n" + "            \"name\": \"PARTNERNET-ECN\",\n"
                         + "            \"id\": \"0018_0000000007\",\n" + "            \"state\": 37,\n"
                         + "            \"zone_link_design\": \"0024_0000000006\",\n"
-                        + "            \"fixed_date\": null\n" + "        }\n" + "    ]\n" + "}",
+                        + "            \"fixed_date\": null\n" + "        }\n"
+                        + "    ]\n" + "}",
                         MediaType.APPLICATION_JSON));
 
         server.expect(ExpectedCount.once(),
@@ -971,14 +940,8 @@ public class StandardEntityOperationServiceTestsMockers {
                         + "            \"key_name\": \"PRD-GZ1-MGMT\",\n" + "            \"asset_code\": \"\",\n"
                         + "            \"name\": \"MGMT\",\n" + "            \"id\": \"0017_0000000003\",\n"
                         + "            \"state\": 37,\n" + "            \"fixed_date\": null,\n"
-                        + "            \"zone_design\": \"0023_0000000003\"\n" + "        }\n" + "    ]\n" + "}",
-                        MediaType.APPLICATION_JSON));
-
-        server.expect(ExpectedCount.once(),
-                requestTo(String.format("http://%s/wecmdb/entities/zone/query", this.gatewayUrl)))
-                .andExpect(method(HttpMethod.POST))
-                .andRespond(withSuccess("{\n" + "    \"status\": \"OK\",\n" + "    \"message\": \"Success\",\n"
-                        + "    \"data\": [\n" + "        {\n" + "            \"biz_key\": \"rxf8rvAJ2Bi\",\n"
+                        + "            \"zone_design\": \"0023_0000000003\"\n" + "        },\n"
+                        + "        {\n" + "            \"biz_key\": \"rxf8rvAJ2Bi\",\n"
                         + "            \"zone_layer\": 123,\n" + "            \"code\": \"PARTNERNET\",\n"
                         + "            \"orchestration\": 224,\n"
                         + "            \"network_segment\": \"0021_0000000008\",\n"
@@ -989,9 +952,9 @@ public class StandardEntityOperationServiceTestsMockers {
                         + "            \"asset_code\": \"vpc-hewlni6b\",\n" + "            \"name\": \"PARTNER\",\n"
                         + "            \"id\": \"0017_0000000005\",\n" + "            \"state\": 37,\n"
                         + "            \"fixed_date\": \"2019-07-25 21:46:43\",\n"
-                        + "            \"zone_design\": \"0023_0000000007\"\n" + "        }\n" + "    ]\n" + "}",
+                        + "            \"zone_design\": \"0023_0000000007\"\n" + "        }\n"
+                        + "    ]\n" + "}",
                         MediaType.APPLICATION_JSON));
-
     }
 
     public void mockFwdNodeExpressionWriteBackServer(MockRestServiceServer server) {
@@ -1026,6 +989,50 @@ public class StandardEntityOperationServiceTestsMockers {
                         MediaType.APPLICATION_JSON));
     }
 
+    public void mockFwdNodeExpressionBatchWriteBackServer(MockRestServiceServer server) {
+        server.expect(ExpectedCount.once(),
+                requestTo(String.format("http://%s/wecmdb/entities/system_design/query", this.gatewayUrl)))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(withSuccess("{\n" + "    \"status\": \"OK\",\n" + "    \"message\": \"Success\",\n"
+                        + "    \"data\": [\n" + "        {\n" + "            \"key_name\": \"EDP\",\n"
+                        + "            \"code\": \"EDP\",\n"
+                        + "            \"displayName\": \"Deposit Micro Core System\",\n"
+                        + "            \"id\": \"0001_0000000001\"\n" + "        }\n" + "    ]\n" + "}",
+                        MediaType.APPLICATION_JSON));
+
+        server.expect(ExpectedCount.once(),
+                requestTo(String.format("http://%s/wecmdb/entities/system_design/update", this.gatewayUrl)))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value("0001_0000000001"))
+                .andExpect(jsonPath("$[0].code").value("Test"))
+                .andExpect(jsonPath("$[0].key_name").value("TEST"))
+                .andRespond(withSuccess("{\n" + "    \"status\": \"OK\",\n" + "    \"message\": \"Success\",\n"
+                        + "    \"data\": []\n" + "}", MediaType.APPLICATION_JSON));
+    }
+
+    public void mockRootEntityPagesServer(MockRestServiceServer server) {
+        server.expect(ExpectedCount.once(),
+                requestTo(String.format("http://%s/wecmdb/entities/system_design/query", this.gatewayUrl)))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(jsonPath("$.pageSize").value(1))
+                .andExpect(jsonPath("$.cursor").doesNotExist())
+                .andRespond(withSuccess("{\n" + "    \"status\": \"OK\",\n" + "    \"message\": \"Success\",\n"
+                        + "    \"data\": [\n" + "        {\n" + "            \"key_name\": \"EDP\",\n"
+                        + "            \"code\": \"EDP\",\n"
+                        + "            \"displayName\": \"Deposit Micro Core System\",\n"
+                        + "            \"id\": \"0001_0000000001\"\n" + "        }\n" + "    ]\n" + "}",
+                        MediaType.APPLICATION_JSON));
+
+        server.expect(ExpectedCount.once(),
+                requestTo(String.format("http://%s/wecmdb/entities/system_design/query", this.gatewayUrl)))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(jsonPath("$.pageSize").value(1))
+                .andExpect(jsonPath("$.cursor").value("0001_0000000001"))
+                .andRespond(withSuccess("{\n" + "    \"status\": \"OK\",\n" + "    \"message\": \"Success\",\n"
+                        + "    \"data\": []\n" + "}", MediaType.APPLICATION_JSON));
+    }
+
     public String getGatewayUrl() {
         return gatewayUrl;
     }
@@ -0,0 +1,113 @@
+package com.webank.wecube.platform.core.service.plugin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.webank.wecube.platform.core.DatabaseBasedTest;
+import com.webank.wecube.platform.core.commons.ApplicationProperties.PluginInvocationProperties;
+import com.webank.wecube.platform.core.service.plugin.PluginInstanceRegistry.PluginInstanceLease;
+
+public class PluginInstanceRegistryTest extends DatabaseBasedTest {
+    private static final String PACKAGE_NAME = "service-mgmt";
+
+    @Autowired
+    private PluginInstanceRegistry pluginInstanceRegistry;
+
+    @Autowired
+    private PluginInvocationProperties pluginInvocationProperties;
+
+    private String originalStrategy;
+
+    private Map<String, Integer> originalWeights;
+
+    @Before
+    public void setup() {
+        originalStrategy = pluginInvocationProperties.getInstanceSelectionStrategy();
+        originalWeights = pluginInvocationProperties.getInstanceWeights();
+        pluginInstanceRegistry.invalidate(PACKAGE_NAME);
+        executeSql("INSERT INTO `plugin_packages` (`id`, `name`, `version`, `status`, `upload_timestamp`, `ui_package_included`) VALUES "
+                + "  ('service-mgmt__v1.0', 'service-mgmt', 'v1.0', 'REGISTERED', '2019-11-25 20:31:48', '0')\n"
+                + ";\n"
+                + "INSERT INTO `plugin_instances` (`id`, `host`, `container_name`, `port`, `container_status`, `package_id`, `docker_instance_resource_id`, `instance_name`, `plugin_mysql_instance_resource_id`, `s3bucket_resource_id`) VALUES "
+                + " ('service-mgmt__v1.0__service-mgmt__127.0.0.1__20003', '127.0.0.1', 'service-mgmt', 20003, 'RUNNING', 'service-mgmt__v1.0', NULL, 'wecmdb', NULL, NULL) "
+                + ",('service-mgmt__v1.0__service-mgmt__127.0.0.1__20004', '127.0.0.1', 'service-mgmt', 20004, 'RUNNING', 'service-mgmt__v1.0', NULL, 'wecmdb', NULL, NULL) "
+                + ";\n");
+    }
+
+    @After
+    public void tearDown() {
+        pluginInvocationProperties.setInstanceSelectionStrategy(originalStrategy);
+        pluginInvocationProperties.setInstanceWeights(originalWeights);
+        pluginInstanceRegistry.invalidate(PACKAGE_NAME);
+    }
+
+    @Test
+    public void givenTwoRunningInstancesWhenSelectWithRoundRobinThenShouldSpreadAcrossBoth() {
+        pluginInvocationProperties.setInstanceSelectionStrategy(PluginInstanceRegistry.STRATEGY_ROUND_ROBIN);
+
+        Set<Integer> selectedPorts = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            selectedPorts.add(pluginInstanceRegistry.selectInstance(PACKAGE_NAME).getPort());
+        }
+
+        assertThat(selectedPorts).containsExactlyInAnyOrder(20003, 20004);
+    }
+
+    @Test
+    public void givenOneInstanceBusyWhenSelectWithLeastOutstandingThenShouldPickTheIdleOne() {
+        pluginInvocationProperties.setInstanceSelectionStrategy(PluginInstanceRegistry.STRATEGY_LEAST_OUTSTANDING);
+
+        PluginInstanceLease busyLease = pluginInstanceRegistry.acquireInstance(PACKAGE_NAME);
+        try {
+            for (int i = 0; i < 3; i++) {
+                PluginInstanceLease lease = pluginInstanceRegistry.acquireInstance(PACKAGE_NAME);
+                assertThat(lease.getPluginInstance().getPort())
+                        .isNotEqualTo(busyLease.getPluginInstance().getPort());
+                lease.release();
+            }
+        } finally {
+            busyLease.release();
+        }
+    }
+
+    @Test
+    public void givenWeightsThreeToOneWhenSelectWithWeightedThenShouldSplitSelectionsByWeight() {
+        pluginInvocationProperties.setInstanceSelectionStrategy(PluginInstanceRegistry.STRATEGY_WEIGHTED);
+        Map<String, Integer> weights = new HashMap<>();
+        weights.put("127.0.0.1:20003", 3);
+        weights.put("127.0.0.1:20004", 1);
+        pluginInvocationProperties.setInstanceWeights(weights);
+        // weights are read when the instance group is built
+        pluginInstanceRegistry.invalidate(PACKAGE_NAME);
+
+        Map<Integer, Integer> selectionsByPort = new HashMap<>();
+        for (int i = 0; i < 8; i++) {
+            selectionsByPort.merge(pluginInstanceRegistry.selectInstance(PACKAGE_NAME).getPort(), 1, Integer::sum);
+        }
+
+        assertThat(selectionsByPort).containsEntry(20003, 6).containsEntry(20004, 2);
+    }
+
+    @Test
+    public void givenNoConfiguredWeightsWhenSelectWithWeightedThenShouldAlternateEvenly() {
+        pluginInvocationProperties.setInstanceSelectionStrategy(PluginInstanceRegistry.STRATEGY_WEIGHTED);
+        pluginInvocationProperties.setInstanceWeights(new HashMap<>());
+        pluginInstanceRegistry.invalidate(PACKAGE_NAME);
+
+        int previousPort = pluginInstanceRegistry.selectInstance(PACKAGE_NAME).getPort();
+        for (int i = 0; i < 4; i++) {
+            int port = pluginInstanceRegistry.selectInstance(PACKAGE_NAME).getPort();
+            assertThat(port).isNotEqualTo(previousPort);
+            previousPort = port;
+        }
+    }
+}
@@ -34,11 +34,13 @@ public class DynamicRouteItemController {
 
         if (items == null) {
             items = new ArrayList<>();
+            request.setItems(items);
         }
 
-        log.info("try to push route items for {} {}", context, items.size());
+        log.info("try to push route items for {} {} {} {}", context, request.getOperation(), request.getVersion(),
+                items.size());
 
-        service.pushRouteItem(context, items);
+        service.pushRouteItem(request);
 
         return Mono.just(CommonResponseDto.okay());
     }
@@ -4,9 +4,17 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class RouteItemPushDto {
+    public static final String OPERATION_ADD = "ADD";
+    public static final String OPERATION_REMOVE = "REMOVE";
+    public static final String OPERATION_REFRESH = "REFRESH";
+
     private String context;
     private List<RouteItemInfoDto> items = new ArrayList<>();
 
+    private String operation;
+    private Long previousVersion;
+    private Long version;
+
     public List<RouteItemInfoDto> getItems() {
         return items;
     }
@@ -23,4 +31,28 @@ public class RouteItemPushDto {
         this.context = context;
     }
 
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    public Long getPreviousVersion() {
+        return previousVersion;
+    }
+
+    public void setPreviousVersion(Long previousVersion) {
+        this.previousVersion = previousVersion;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
 }
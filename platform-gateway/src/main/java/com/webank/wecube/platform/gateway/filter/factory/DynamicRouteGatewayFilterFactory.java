@@ -1,6 +1,5 @@
 package com.webank.wecube.platform.gateway.filter.factory;
 
-import java.net.URI;
 import java.util.Arrays;
 import java.util.List;
 
@@ -12,11 +11,11 @@ import org.springframework.cloud.gateway.route.Route;
 import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.http.HttpMethod;
 import org.springframework.web.server.ServerWebExchange;
-import org.springframework.web.util.UriComponentsBuilder;
 
 import com.webank.wecube.platform.gateway.route.DynamicRouteContext;
 import com.webank.wecube.platform.gateway.route.DynamicRouteItemInfoHolder;
-import com.webank.wecube.platform.gateway.route.HttpDestination;
+import com.webank.wecube.platform.gateway.route.HttpDestinationBalancer;
+import com.webank.wecube.platform.gateway.route.HttpDestinationBalancer.Endpoint;
 import com.webank.wecube.platform.gateway.route.MvcHttpMethodAndPathConfig;
 
 import reactor.core.publisher.Mono;
@@ -57,74 +56,71 @@ public class DynamicRouteGatewayFilterFactory
                 return chain.filter(exchange);
             }
 
-            tryPrepareDynamicRoute(exchange, originalRoute);
+            DynamicRouteContext routeContext = tryPrepareDynamicRoute(exchange, originalRoute);
+            if (routeContext == null) {
+                return chain.filter(exchange);
+            }
 
             try {
-                return chain.filter(exchange);
+                return chain.filter(exchange).doFinally(s -> routeContext.releaseEndpoint());
             } catch (Exception e) {
+                routeContext.releaseEndpoint();
                 log.debug("errors while exchanging", e);
                 return Mono.justOrEmpty(null);
             }
         });
     }
 
-    protected void trySetGatewayRouteAttribute(ServerWebExchange exchange, Route route, String baseUrl) {
-        if (log.isDebugEnabled()) {
-            log.debug("base url:{}", baseUrl);
-        }
-
-        URI newUri = UriComponentsBuilder.fromHttpUrl(baseUrl).build().toUri();
-        ServerWebExchangeUtils.addOriginalRequestUrl(exchange, exchange.getRequest().getURI());
-
-        Route newRoute = Route.async().asyncPredicate(route.getPredicate()).filters(route.getFilters())
-                .id(route.getId()).order(route.getOrder()).uri(newUri).build();
-
-        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, newRoute);
-    }
-
-    protected void tryPrepareDynamicRoute(ServerWebExchange exchange, Route originalRoute) {
+    /**
+     * Routes the request to the destination chosen by the balancer of the
+     * matched route, the route context lets retries ask the balancer again.
+     * 
+     * @return the route context holding the chosen endpoint, or null if no
+     *         destination found
+     */
+    protected DynamicRouteContext tryPrepareDynamicRoute(ServerWebExchange exchange, Route originalRoute) {
         String path = exchange.getRequest().getURI().getPath();
         String componentPath = calculateComponentPath(path);
         HttpMethod httpMethod = exchange.getRequest().getMethod();
         MvcHttpMethodAndPathConfig methodAndPathConfig = DynamicRouteItemInfoHolder.findRouteConfig(componentPath, path,
                 httpMethod);
 
-        List<HttpDestination> httpDestinations = null;
+        HttpDestinationBalancer balancer = null;
         if (methodAndPathConfig == null) {
-            httpDestinations = DynamicRouteItemInfoHolder.findDefaultRouteConfig(componentPath, path, httpMethod);
+            balancer = DynamicRouteItemInfoHolder.findDefaultRouteBalancer(componentPath, path, httpMethod);
         } else {
-            httpDestinations = methodAndPathConfig.getHttpDestinations();
+            balancer = methodAndPathConfig.getHttpDestinationBalancer();
         }
 
-        if (httpDestinations.isEmpty()) {
+        if (balancer.isEmpty()) {
             log.debug("cannot find http destination for {}", path);
-            return;
+            return null;
         }
 
-        DynamicRouteContext routeContext = DynamicRouteContext.newInstance().addHttpDestinations(httpDestinations)
-                .sortByWeight();
+        String strategy = dynamicRouteProperties == null ? null : dynamicRouteProperties.getLoadBalanceStrategy();
+        DynamicRouteContext routeContext = DynamicRouteContext.newInstance(balancer, strategy, originalRoute);
+        Endpoint endpoint = routeContext.nextEndpoint();
 
         exchange.getAttributes().put(DynamicRouteContext.DYNAMIC_ROUTE_CONTEXT_KEY, routeContext);
 
-        if (routeContext.hasNext()) {
-            HttpDestination httpDest = routeContext.next();
-            String baseUrl = String.format("%s://%s:%s", httpDest.getScheme(), httpDest.getHost(), httpDest.getPort());
-            trySetGatewayRouteAttribute(exchange, originalRoute, baseUrl);
+        if (log.isDebugEnabled()) {
+            log.debug("route {} to {}", path, endpoint.getHttpDestination());
         }
 
-        return;
+        ServerWebExchangeUtils.addOriginalRequestUrl(exchange, exchange.getRequest().getURI());
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, endpoint.rewriteRoute(originalRoute));
+
+        return routeContext;
     }
 
     protected String calculateComponentPath(String path) {
-        if (path.startsWith("/")) {
-            path = path.substring(1);
-        }
-
-        if (path.indexOf("/") >= 0) {
-            path = path.substring(0, path.indexOf("/"));
+        int beginIndex = path.startsWith("/") ? 1 : 0;
+        int endIndex = path.indexOf('/', beginIndex);
+        if (endIndex < 0) {
+            endIndex = path.length();
         }
 
-        return path;
+        return path.substring(beginIndex, endIndex);
     }
 
     public DynamicRouteProperties getDynamicRouteProperties() {
@@ -2,15 +2,21 @@ package com.webank.wecube.platform.gateway.filter.factory;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import com.webank.wecube.platform.gateway.route.HttpDestinationBalancer;
+
 @ConfigurationProperties(prefix = "platform.gateway.route")
 public class DynamicRouteProperties {
     private String routeConfigServer;
     private String routeConfigUri;
+    private String routeConfigVersionUri;
     private String routeConfigAccessKey;
 
     private boolean enableRetry = true;
     private int retryIntervalOfSeconds = 30;
     private int refreshIntervalOfMinutes = 10;
+    private int fullRefreshIntervalOfRefreshes = 6;
+
+    private String loadBalanceStrategy = HttpDestinationBalancer.STRATEGY_WEIGHTED_ROUND_ROBIN;
 
     public String getRouteConfigServer() {
         return routeConfigServer;
@@ -28,6 +34,18 @@ public class DynamicRouteProperties {
         this.routeConfigUri = routeConfigUri;
     }
 
+    public String getRouteConfigVersionUri() {
+        return routeConfigVersionUri;
+    }
+
+    /**
+     * Uri of the route config version, routes are fully refreshed only if it
+     * differs from the applied one, or on every refresh if not set.
+     */
+    public void setRouteConfigVersionUri(String routeConfigVersionUri) {
+        this.routeConfigVersionUri = routeConfigVersionUri;
+    }
+
     public String getRouteConfigAccessKey() {
         return routeConfigAccessKey;
     }
@@ -60,4 +78,27 @@ public class DynamicRouteProperties {
         this.refreshIntervalOfMinutes = refreshIntervalOfMinutes;
     }
 
+    public int getFullRefreshIntervalOfRefreshes() {
+        return fullRefreshIntervalOfRefreshes;
+    }
+
+    /**
+     * Every how many periodic refreshes all route items are fetched even if
+     * the route config version is unchanged, 0 to never.
+     */
+    public void setFullRefreshIntervalOfRefreshes(int fullRefreshIntervalOfRefreshes) {
+        this.fullRefreshIntervalOfRefreshes = fullRefreshIntervalOfRefreshes;
+    }
+
+    public String getLoadBalanceStrategy() {
+        return loadBalanceStrategy;
+    }
+
+    /**
+     * Either weighted-round-robin, the default, or least-in-flight.
+     */
+    public void setLoadBalanceStrategy(String loadBalanceStrategy) {
+        this.loadBalanceStrategy = loadBalanceStrategy;
+    }
+
 }
@@ -4,7 +4,6 @@ import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.C
 import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ALREADY_ROUTED_ATTR;
 
 import java.io.IOException;
-import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -27,10 +26,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatus.Series;
 import org.springframework.util.Assert;
 import org.springframework.web.server.ServerWebExchange;
-import org.springframework.web.util.UriComponentsBuilder;
 
 import com.webank.wecube.platform.gateway.route.DynamicRouteContext;
-import com.webank.wecube.platform.gateway.route.HttpDestination;
+import com.webank.wecube.platform.gateway.route.HttpDestinationBalancer.Endpoint;
 
 import reactor.core.publisher.Mono;
 import reactor.retry.Repeat;
@@ -184,23 +182,19 @@ public class ExRetryGatewayFilterFactory extends AbstractGatewayFilterFactory<Ex
             return;
         }
 
-        HttpDestination httpDest = routeContext.next();
-        if (httpDest == null) {
-            log.debug("dynamic route item info is null for {}", exchange.getRequest().getURI().toString());
+        Endpoint endpoint = routeContext.nextEndpoint();
+        if (endpoint == null) {
+            log.debug("no more http destination for {}", exchange.getRequest().getURI().toString());
             return;
         }
 
         if (log.isDebugEnabled()) {
-            log.debug("prepare dynamic route:{},last round:{}", httpDest,
+            log.debug("prepare dynamic route:{},last round:{}", endpoint.getHttpDestination(),
                     exchange.getAttribute(EX_RETRY_ITERATION_KEY));
         }
 
-        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
-        String baseUrl = String.format("%s://%s:%s", httpDest.getScheme(), httpDest.getHost(), httpDest.getPort());
-        URI newUri = UriComponentsBuilder.fromHttpUrl(baseUrl).build().toUri();
         ServerWebExchangeUtils.addOriginalRequestUrl(exchange, exchange.getRequest().getURI());
-        Route newRoute = Route.async().asyncPredicate(route.getPredicate()).filters(route.getFilters())
-                .id(route.getId()).order(route.getOrder()).uri(newUri).build();
+        Route newRoute = endpoint.rewriteRoute(routeContext.getOriginalRoute());
         exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, newRoute);
     }
 
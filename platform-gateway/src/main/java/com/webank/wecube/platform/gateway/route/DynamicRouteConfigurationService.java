@@ -42,11 +42,14 @@ import com.webank.wecube.platform.gateway.dto.HttpDestinationDto;
 import com.webank.wecube.platform.gateway.dto.MvcContextRouteConfigDto;
 import com.webank.wecube.platform.gateway.dto.MvcHttpMethodAndPathConfigDto;
 import com.webank.wecube.platform.gateway.dto.RouteItemInfoDto;
+import com.webank.wecube.platform.gateway.dto.RouteItemPushDto;
 import com.webank.wecube.platform.gateway.filter.factory.DynamicRouteProperties;
 
 import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 import wiremock.org.apache.commons.lang3.StringUtils;
 
 @Service
@@ -54,6 +57,7 @@ public class DynamicRouteConfigurationService implements ApplicationEventPublish
 
     private static final Logger log = LoggerFactory.getLogger(DynamicRouteConfigurationService.class);
     private static final String ROUTE_ID_SUFFIX = "#1";
+    private static final long UNKNOWN_ROUTE_CONFIG_VERSION = -1L;
 
     @Resource
     private RouteDefinitionRepository routeDefinitionRepository;
@@ -75,6 +79,19 @@ public class DynamicRouteConfigurationService implements ApplicationEventPublish
 
     private volatile Disposable loadDisposable = null;
 
+    /**
+     * Version of the route config the route table is built from, deltas
+     * pushed from this version on could be applied directly.
+     */
+    private volatile long routeConfigVersion = UNKNOWN_ROUTE_CONFIG_VERSION;
+
+    /**
+     * Periodic refreshes since all route items were last fetched, changes
+     * that did not increase the route version are picked up by an
+     * unconditional full refresh once it reaches the configured count.
+     */
+    private volatile int refreshesSinceFullRefresh = 0;
+
     private Object object = new Object();
 
     @PostConstruct
@@ -101,6 +118,7 @@ public class DynamicRouteConfigurationService implements ApplicationEventPublish
         refreshLock.lock();
 
         try {
+            refreshesSinceFullRefresh++;
             doRefreshRoutes();
         } finally {
             refreshLock.unlock();
@@ -108,20 +126,47 @@ public class DynamicRouteConfigurationService implements ApplicationEventPublish
     }
 
     protected void doRefreshRoutes() {
-        log.debug("About to fetch route item from {} {}", dynamicRouteProperties.getRouteConfigServer(),
-                dynamicRouteProperties.getRouteConfigUri());
+        Mono<Long> mono = fetchRouteConfigVersion();
+        mono.subscribe(this::handleRefreshRouteConfigVersion, this::handleRefreshErrors);
+    }
+
+    private void handleRefreshRouteConfigVersion(Long version) {
+        if (version != UNKNOWN_ROUTE_CONFIG_VERSION && version == this.routeConfigVersion && !isFullRefreshDue()) {
+            log.debug("route config version {} is up to date", version);
+            return;
+        }
+
+        log.debug("About to fetch route item from {} {}, version {} to {}",
+                dynamicRouteProperties.getRouteConfigServer(), dynamicRouteProperties.getRouteConfigUri(),
+                this.routeConfigVersion, version);
         Mono<RouteConfigInfoResponseDto> mono = fetchAllRouteItemsWithWebClient();
-        mono.subscribe(this::handleRefreshRouteConfigInfoResponse, this::handleRefreshErrors);
+        mono.subscribe(respDto -> handleRefreshRouteConfigInfoResponse(respDto, version), this::handleRefreshErrors);
     }
 
-    private void handleRefreshRouteConfigInfoResponse(RouteConfigInfoResponseDto respDto) {
+    private boolean isFullRefreshDue() {
+        int fullRefreshIntervalOfRefreshes = dynamicRouteProperties.getFullRefreshIntervalOfRefreshes();
+        return fullRefreshIntervalOfRefreshes > 0 && refreshesSinceFullRefresh >= fullRefreshIntervalOfRefreshes;
+    }
+
+    private void handleRefreshRouteConfigInfoResponse(RouteConfigInfoResponseDto respDto, long version) {
         List<DynamicRouteItemInfo> routeItemInfos = parseRouteConfigInfoResponse(respDto);
         
         log.debug("Finished fetch route item from {} {} {}", dynamicRouteProperties.getRouteConfigServer(),
                 dynamicRouteProperties.getRouteConfigUri(), routeItemInfos.size());
 
-        DynamicRouteItemInfoHolder.refresh(routeItemInfos);
+        refreshLock.lock();
+        try {
+            DynamicRouteItemInfoHolder.refresh(routeItemInfos);
+            this.routeConfigVersion = version;
+            this.refreshesSinceFullRefresh = 0;
+
+            handleRouteItemsRefreshed();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
 
+    private void handleRouteItemsRefreshed() {
         initContextRouteConfigs();
 
         List<MvcContextRouteConfig> outdatedMvcContextRouteConfigs = DynamicRouteItemInfoHolder
@@ -182,8 +227,9 @@ public class DynamicRouteConfigurationService implements ApplicationEventPublish
         try {
 
             isDynamicRouteLoading = true;
-            Mono<RouteConfigInfoResponseDto> mono = fetchAllRouteItemsWithWebClient();
-            mono.subscribe(this::handleLoadRouteConfigInfoResponseDto, this::handleLoadErrors);
+            Mono<Tuple2<Long, RouteConfigInfoResponseDto>> mono = fetchRouteConfigVersion()
+                    .flatMap(version -> fetchAllRouteItemsWithWebClient().map(respDto -> Tuples.of(version, respDto)));
+            mono.subscribe(t -> handleLoadRouteConfigInfoResponseDto(t.getT2(), t.getT1()), this::handleLoadErrors);
 
         } finally {
             loadLock.unlock();
@@ -198,9 +244,14 @@ public class DynamicRouteConfigurationService implements ApplicationEventPublish
     }
 
     private List<DynamicRouteItemInfo> parseRouteConfigInfoResponse(RouteConfigInfoResponseDto respDto) {
-        List<RouteItemInfoDto> routeItemInfoDtos = respDto.getData();
+        return parseRouteItemInfoDtos(respDto.getData());
+    }
 
+    private List<DynamicRouteItemInfo> parseRouteItemInfoDtos(List<RouteItemInfoDto> routeItemInfoDtos) {
         List<DynamicRouteItemInfo> routeItemInfos = new LinkedList<>();
+        if (routeItemInfoDtos == null) {
+            return routeItemInfos;
+        }
 
         for (RouteItemInfoDto dto : routeItemInfoDtos) {
             DynamicRouteItemInfo info = new DynamicRouteItemInfo();
@@ -218,7 +269,7 @@ public class DynamicRouteConfigurationService implements ApplicationEventPublish
         return routeItemInfos;
     }
 
-    private void handleLoadRouteConfigInfoResponseDto(RouteConfigInfoResponseDto respDto) {
+    private void handleLoadRouteConfigInfoResponseDto(RouteConfigInfoResponseDto respDto, long version) {
         loadLock.lock();
         try {
             List<RouteItemInfoDto> routeItemInfoDtos = respDto.getData();
@@ -227,6 +278,7 @@ public class DynamicRouteConfigurationService implements ApplicationEventPublish
             List<DynamicRouteItemInfo> routeItemInfos = parseRouteConfigInfoResponse(respDto);
 
             DynamicRouteItemInfoHolder.refresh(routeItemInfos);
+            this.routeConfigVersion = version;
             initContextRouteConfigs();
 
             isDynamicRouteLoading = false;
@@ -360,7 +412,8 @@ public class DynamicRouteConfigurationService implements ApplicationEventPublish
         MvcHttpMethodAndPathConfigDto dto = new MvcHttpMethodAndPathConfigDto();
         dto.setCreatedTime(c.getCreatedTime());
         dto.setDisabled(c.isDisabled());
-        dto.setHttpMethod(c.getMvcHttpMethodAndPath().getHttpMethod().name());
+        HttpMethod httpMethod = c.getMvcHttpMethodAndPath().getHttpMethod();
+        dto.setHttpMethod(httpMethod == null ? null : httpMethod.name());
         dto.setPath(c.getMvcHttpMethodAndPath().getPath());
         dto.setVersion(c.getVersion());
         dto.setLastModifiedTime(c.getLastModifiedTime());
@@ -434,6 +487,29 @@ public class DynamicRouteConfigurationService implements ApplicationEventPublish
         return items;
     }
 
+    /**
+     * Version of the route config on the config server, or unknown if the
+     * server does not support it.
+     */
+    protected Mono<Long> fetchRouteConfigVersion() {
+        if (StringUtils.isBlank(dynamicRouteProperties.getRouteConfigVersionUri())) {
+            return Mono.just(UNKNOWN_ROUTE_CONFIG_VERSION);
+        }
+
+        String url = dynamicRouteProperties.getRouteConfigServer() + dynamicRouteProperties.getRouteConfigVersionUri();
+        log.debug("HTTP invoke:{}", url);
+        return WebClient.create().get().uri(url) //
+                .header("Content-Type", "application/json").accept(MediaType.APPLICATION_JSON)
+                .header("Authorization", String.format("Bearer %s", dynamicRouteProperties.getRouteConfigAccessKey()))
+                .retrieve().bodyToMono(RouteConfigVersionResponseDto.class) //
+                .map(respDto -> respDto.getData() == null ? UNKNOWN_ROUTE_CONFIG_VERSION : respDto.getData()) //
+                .defaultIfEmpty(UNKNOWN_ROUTE_CONFIG_VERSION) //
+                .onErrorResume(e -> {
+                    log.info("errors while fetching route config version from {}", url, e);
+                    return Mono.just(UNKNOWN_ROUTE_CONFIG_VERSION);
+                });
+    }
+
     protected Mono<RouteConfigInfoResponseDto> fetchAllRouteItemsWithWebClient() {
         
         String url = dynamicRouteProperties.getRouteConfigServer() + dynamicRouteProperties.getRouteConfigUri();
@@ -497,6 +573,51 @@ public class DynamicRouteConfigurationService implements ApplicationEventPublish
 
     }
 
+    /**
+     * Applies a versioned delta if the route table is built from its previous
+     * version, otherwise refreshes all routes. Pushes without version are
+     * handled as before by refreshing all routes.
+     */
+    public void pushRouteItem(RouteItemPushDto request) {
+        Long previousVersion = request.getPreviousVersion();
+        Long version = request.getVersion();
+        if (previousVersion == null || version == null) {
+            pushRouteItem(request.getContext(), request.getItems());
+            return;
+        }
+
+        if (!isDynamicRouteLoaded) {
+            log.debug("routes are not loaded yet, discard route version {}", version);
+            return;
+        }
+
+        refreshLock.lock();
+        try {
+            if (RouteItemPushDto.OPERATION_REFRESH.equalsIgnoreCase(request.getOperation())
+                    || previousVersion != this.routeConfigVersion) {
+                log.info("to refresh all routes, route config version {} pushed {} to {} {}", this.routeConfigVersion,
+                        previousVersion, version, request.getOperation());
+                doRefreshRoutes();
+                return;
+            }
+
+            List<DynamicRouteItemInfo> routeItemInfos = parseRouteItemInfoDtos(request.getItems());
+            if (RouteItemPushDto.OPERATION_REMOVE.equalsIgnoreCase(request.getOperation())) {
+                DynamicRouteItemInfoHolder.removeRouteItems(routeItemInfos);
+            } else {
+                DynamicRouteItemInfoHolder.addRouteItems(routeItemInfos);
+            }
+            this.routeConfigVersion = version;
+
+            log.debug("route config version {} applied, {} {} items", version, request.getOperation(),
+                    routeItemInfos.size());
+
+            handleRouteItemsRefreshed();
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
     public String add(RouteDefinition definition) {
         routeDefinitionRepository.save(Mono.just(definition)).subscribe();
         notifyChanged();
@@ -537,7 +658,11 @@ public class DynamicRouteConfigurationService implements ApplicationEventPublish
         this.publisher = applicationEventPublisher;
     }
 
-    private static class RouteConfigInfoResponseDto extends GenericResponseDto<List<RouteItemInfoDto>> {
+    static class RouteConfigInfoResponseDto extends GenericResponseDto<List<RouteItemInfoDto>> {
+
+    }
+
+    private static class RouteConfigVersionResponseDto extends GenericResponseDto<Long> {
 
     }
 
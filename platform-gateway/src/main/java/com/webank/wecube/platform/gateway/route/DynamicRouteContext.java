@@ -1,93 +1,96 @@
 package com.webank.wecube.platform.gateway.route;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
+import org.springframework.cloud.gateway.route.Route;
+
+import com.webank.wecube.platform.gateway.route.HttpDestinationBalancer.Endpoint;
 
 /**
+ * Endpoints tried by one exchange, each attempt asks the balancer of the
+ * matched route again and never goes to a tried endpoint while untried ones
+ * are left. The request in flight is counted on the current endpoint only.
+ * <p>
  * NOT thread-safe
- * 
+ *
  * @author Gavin
  *
  */
 public class DynamicRouteContext {
 	public static final String DYNAMIC_ROUTE_CONTEXT_KEY = "dynamic_route_context";
 
-	private List<HttpDestination> httpDestinations = new ArrayList<>();
-	private volatile int currentIndex = -1;
-	
-	private DynamicRouteContext() {}
-	
-	public static DynamicRouteContext newInstance() {
-		return new DynamicRouteContext();
+	private final HttpDestinationBalancer balancer;
+	private final String strategy;
+	private final Route originalRoute;
+	private final boolean[] triedEndpoints;
+	private int triedCount = 0;
+	private Endpoint currentEndpoint;
+
+	private DynamicRouteContext(HttpDestinationBalancer balancer, String strategy, Route originalRoute) {
+		this.balancer = balancer;
+		this.strategy = strategy;
+		this.originalRoute = originalRoute;
+		this.triedEndpoints = new boolean[balancer.size()];
 	}
 
-	public HttpDestination next() {
+	public static DynamicRouteContext newInstance(HttpDestinationBalancer balancer, String strategy,
+			Route originalRoute) {
+		return new DynamicRouteContext(balancer, strategy, originalRoute);
+	}
+
+	/**
+	 * Moves the request to the next endpoint, releasing the current one.
+	 *
+	 * @return the next endpoint, or null if all endpoints were tried
+	 */
+	public Endpoint nextEndpoint() {
 		if (!hasNext()) {
-			if ((httpDestinations != null) && (!httpDestinations.isEmpty())) {
-				// to improve here?
-				return httpDestinations.get(0);
-			} else {
-				return null;
-			}
+			return null;
+		}
 
+		Endpoint endpoint = balancer.choose(strategy);
+		if (triedEndpoints[endpoint.getIndex()]) {
+			endpoint = firstUntriedEndpoint();
 		}
 
-		currentIndex++;
-		int index = (currentIndex >= httpDestinations.size()) ? 0 : currentIndex;
+		triedEndpoints[endpoint.getIndex()] = true;
+		triedCount++;
 
-		return httpDestinations.get(index);
+		releaseEndpoint();
+		endpoint.acquire();
+		this.currentEndpoint = endpoint;
 
+		return endpoint;
 	}
-	
-	public DynamicRouteContext addHttpDestinations(Collection<HttpDestination> httpDests) {
-		if (httpDests == null || httpDests.isEmpty()) {
-			return this;
-		}
-		
-		httpDests.forEach(hd -> {
-			httpDestinations.add(hd.clone());
-		});
 
+	private Endpoint firstUntriedEndpoint() {
+		for (int i = 0; i < triedEndpoints.length; i++) {
+			if (!triedEndpoints[i]) {
+				return balancer.getEndpoint(i);
+			}
+		}
 
-		return this;
-	}
-	
-	public DynamicRouteContext sortByWeight(){
-	    Collections.sort(httpDestinations,new Comparator<HttpDestination>(){
-            @Override
-            public int compare(HttpDestination o1, HttpDestination o2) {
-                return o2.getWeight() - o1.getWeight();
-            }
-        });
-	    
-	    return this;
+		return null;
 	}
 
-	public DynamicRouteContext addHttpDestination(HttpDestination httpDest) {
-		if (httpDest == null) {
-			return this;
+	/**
+	 * Releases the current endpoint once the exchange completes.
+	 */
+	public void releaseEndpoint() {
+		Endpoint endpoint = this.currentEndpoint;
+		if (endpoint != null) {
+			this.currentEndpoint = null;
+			endpoint.release();
 		}
-
-		httpDestinations.add(httpDest.clone());
-
-		return this;
 	}
 
 	public boolean hasNext() {
-		if (httpDestinations == null) {
-			return false;
-		}
+		return triedCount < triedEndpoints.length;
+	}
 
-		if (httpDestinations.isEmpty()) {
-			return false;
-		}
+	public Endpoint getCurrentEndpoint() {
+		return currentEndpoint;
+	}
 
-		if (currentIndex >= (httpDestinations.size()-1)) {
-			return false;
-		}
-		return true;
+	public Route getOriginalRoute() {
+		return originalRoute;
 	}
 }
@@ -3,17 +3,30 @@ package com.webank.wecube.platform.gateway.route;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Objects;
 
 import org.springframework.http.HttpMethod;
 
 import com.github.jknack.handlebars.internal.lang3.StringUtils;
 
+/**
+ * Holds the route table of all contexts.
+ * <p>
+ * Each refresh builds a complete new table aside and publishes it with a
+ * single volatile write, so readers take no lock and never see a partially
+ * refreshed table.
+ * 
+ * @author Gavin
+ *
+ */
 public class DynamicRouteItemInfoHolder {
 
-    private Map<String, MvcContextRouteConfig> mvcContextRouteConfigs = new ConcurrentHashMap<String, MvcContextRouteConfig>();
+    private volatile Map<String, MvcContextRouteConfig> mvcContextRouteConfigs = Collections.emptyMap();
+
+    private volatile List<DynamicRouteItemInfo> dynamicRouteItemInfos = Collections.emptyList();
 
     private static final DynamicRouteItemInfoHolder INSTANCE = new DynamicRouteItemInfoHolder();
 
@@ -22,7 +35,7 @@ public class DynamicRouteItemInfoHolder {
 
     private List<HttpDestination> unreachableHttpDestinations = new ArrayList<>();
 
-    private List<MvcContextRouteConfig> outdatedMvcContextRouteConfigs = new ArrayList<>();
+    private volatile List<MvcContextRouteConfig> outdatedMvcContextRouteConfigs = Collections.emptyList();
 
     public static DynamicRouteItemInfoHolder instance() {
         return INSTANCE;
@@ -32,6 +45,14 @@ public class DynamicRouteItemInfoHolder {
         INSTANCE.refreshRoutes(fullyDynamicRouteItemInfos);
     }
 
+    public static void addRouteItems(List<DynamicRouteItemInfo> dynamicRouteItemInfos) {
+        INSTANCE.addRouteItemInfos(dynamicRouteItemInfos);
+    }
+
+    public static void removeRouteItems(List<DynamicRouteItemInfo> dynamicRouteItemInfos) {
+        INSTANCE.removeRouteItemInfos(dynamicRouteItemInfos);
+    }
+
     public static Collection<MvcContextRouteConfig> routeConfigs() {
         return INSTANCE.getMvcContextRouteConfigs().values();
     }
@@ -48,17 +69,22 @@ public class DynamicRouteItemInfoHolder {
         return INSTANCE.findDefaultRoute(context, path, httpMethod);
     }
     
+    public static HttpDestinationBalancer findDefaultRouteBalancer(String context, String path, HttpMethod httpMethod) {
+        return INSTANCE.findDefaultRouteHttpDestinationBalancer(context, path, httpMethod);
+    }
+    
     public static List<MvcContextRouteConfig> outdatedMvcContextRouteConfigs(){
     	return INSTANCE.getOutdatedMvcContextRouteConfigs();
     }
 
-    public void refreshRoutes(List<DynamicRouteItemInfo> fullyDynamicRouteItemInfos) {
+    public synchronized void refreshRoutes(List<DynamicRouteItemInfo> fullyDynamicRouteItemInfos) {
         if (fullyDynamicRouteItemInfos == null) {
             return;
         }
 
         increaseVersion();
 
+        Map<String, MvcContextRouteConfig> newMvcContextRouteConfigs = new HashMap<>();
         for (DynamicRouteItemInfo item : fullyDynamicRouteItemInfos) {
             if (item == null) {
                 continue;
@@ -68,18 +94,80 @@ public class DynamicRouteItemInfoHolder {
                 continue;
             }
 
-            tryAddDynamicRouteItemInfo(item);
+            tryAddDynamicRouteItemInfo(newMvcContextRouteConfigs, item);
+        }
+
+        Map<String, MvcContextRouteConfig> previousMvcContextRouteConfigs = this.mvcContextRouteConfigs;
+        for (MvcContextRouteConfig config : newMvcContextRouteConfigs.values()) {
+            config.compile(previousMvcContextRouteConfigs.get(config.getContext()));
+        }
+
+        List<MvcContextRouteConfig> newOutdatedMvcContextRouteConfigs = new ArrayList<>();
+        for (MvcContextRouteConfig config : previousMvcContextRouteConfigs.values()) {
+            if (!newMvcContextRouteConfigs.containsKey(config.getContext())) {
+                newOutdatedMvcContextRouteConfigs.add(config);
+            }
+        }
+
+        clearUnreachableHttpDestinations();
+        this.dynamicRouteItemInfos = Collections.unmodifiableList(new ArrayList<>(fullyDynamicRouteItemInfos));
+        this.outdatedMvcContextRouteConfigs = Collections.unmodifiableList(newOutdatedMvcContextRouteConfigs);
+        this.mvcContextRouteConfigs = Collections.unmodifiableMap(newMvcContextRouteConfigs);
+    }
+
+    /**
+     * Adds route items of some destinations, replacing the items previously
+     * added for the same destinations of the same contexts.
+     */
+    public synchronized void addRouteItemInfos(List<DynamicRouteItemInfo> addedDynamicRouteItemInfos) {
+        if (addedDynamicRouteItemInfos == null || addedDynamicRouteItemInfos.isEmpty()) {
+            return;
+        }
+
+        List<DynamicRouteItemInfo> newDynamicRouteItemInfos = new ArrayList<>(this.dynamicRouteItemInfos);
+        newDynamicRouteItemInfos.removeIf(item -> containsSameDestination(addedDynamicRouteItemInfos, item));
+        newDynamicRouteItemInfos.addAll(addedDynamicRouteItemInfos);
+
+        refreshRoutes(newDynamicRouteItemInfos);
+    }
+
+    /**
+     * Removes all route items pointing to the destinations of the given items
+     * in the same contexts.
+     */
+    public synchronized void removeRouteItemInfos(List<DynamicRouteItemInfo> removedDynamicRouteItemInfos) {
+        if (removedDynamicRouteItemInfos == null || removedDynamicRouteItemInfos.isEmpty()) {
+            return;
+        }
+
+        List<DynamicRouteItemInfo> newDynamicRouteItemInfos = new ArrayList<>(this.dynamicRouteItemInfos);
+        newDynamicRouteItemInfos.removeIf(item -> containsSameDestination(removedDynamicRouteItemInfos, item));
+
+        refreshRoutes(newDynamicRouteItemInfos);
+    }
+
+    private boolean containsSameDestination(List<DynamicRouteItemInfo> criteria, DynamicRouteItemInfo item) {
+        if (item == null) {
+            return false;
         }
 
-        cleanOutdated();
+        for (DynamicRouteItemInfo c : criteria) {
+            if (c != null && Objects.equals(c.getContext(), item.getContext())
+                    && Objects.equals(c.getHost(), item.getHost()) && c.getPort() == item.getPort()) {
+                return true;
+            }
+        }
+
+        return false;
     }
 
-    private void tryAddDynamicRouteItemInfo(DynamicRouteItemInfo item) {
+    private void tryAddDynamicRouteItemInfo(Map<String, MvcContextRouteConfig> newMvcContextRouteConfigs,
+            DynamicRouteItemInfo item) {
         
-        MvcContextRouteConfig existConfig = mvcContextRouteConfigs.get(item.getContext());
+        MvcContextRouteConfig existConfig = newMvcContextRouteConfigs.get(item.getContext());
         if (existConfig == null) {
             existConfig = new MvcContextRouteConfig(item.getContext());
-            mvcContextRouteConfigs.put(item.getContext(), existConfig);
+            newMvcContextRouteConfigs.put(item.getContext(), existConfig);
         }
 
         existConfig.version(currentVersion);
@@ -120,30 +208,6 @@ public class DynamicRouteItemInfoHolder {
         return HttpMethod.resolve(sHttpMethod.toUpperCase());
     }
 
-    private void cleanOutdated() {
-        clearUnreachableHttpDestinations();
-        cleanOutdatedMvcContextRouteConfigs();
-        cleanMvcContextRouteConfigs();
-    }
-
-    private void cleanMvcContextRouteConfigs() {
-        for (MvcContextRouteConfig config : mvcContextRouteConfigs.values()) {
-            config.cleanOutdated();
-
-            if (config.getVersion() < currentVersion) {
-                this.outdatedMvcContextRouteConfigs.add(config);
-            }
-        }
-
-        for (MvcContextRouteConfig config : this.outdatedMvcContextRouteConfigs) {
-            mvcContextRouteConfigs.remove(config.getContext());
-        }
-    }
-
-    private void cleanOutdatedMvcContextRouteConfigs() {
-        outdatedMvcContextRouteConfigs.clear();
-    }
-
     private void increaseVersion() {
         this.lastVersion = currentVersion;
         this.currentVersion = currentVersion + 1;
@@ -177,6 +241,16 @@ public class DynamicRouteItemInfoHolder {
         return ctxConfig.getDefaultHttpDestinations();
     }
 
+    public HttpDestinationBalancer findDefaultRouteHttpDestinationBalancer(String context, String path,
+            HttpMethod httpMethod) {
+        MvcContextRouteConfig ctxConfig = findContextConfig(context, path, httpMethod);
+        if (ctxConfig == null) {
+            return HttpDestinationBalancer.EMPTY;
+        }
+
+        return ctxConfig.getDefaultHttpDestinationBalancer();
+    }
+
     public void addRoute(String context, String path, HttpDestination httpDest, HttpMethod httpMethod) {
         // NOT implemented currently
     }
@@ -218,7 +292,7 @@ public class DynamicRouteItemInfoHolder {
     }
 
     public Map<String, MvcContextRouteConfig> getMvcContextRouteConfigs() {
-        return Collections.unmodifiableMap(this.mvcContextRouteConfigs);
+        return this.mvcContextRouteConfigs;
     }
 
     public MvcContextRouteConfig getMvcContextRouteConfig(String context) {
@@ -228,8 +302,15 @@ public class DynamicRouteItemInfoHolder {
         return this.mvcContextRouteConfigs.get(context);
     }
 
+    /**
+     * Route items the current route table is built from.
+     */
+    public List<DynamicRouteItemInfo> getDynamicRouteItemInfos() {
+        return this.dynamicRouteItemInfos;
+    }
+
     public List<MvcContextRouteConfig> getOutdatedMvcContextRouteConfigs() {
-        return Collections.unmodifiableList(outdatedMvcContextRouteConfigs);
+        return this.outdatedMvcContextRouteConfigs;
     }
 
     public long getLastVersion() {
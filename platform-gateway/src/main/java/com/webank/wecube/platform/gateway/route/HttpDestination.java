@@ -1,5 +1,7 @@
 package com.webank.wecube.platform.gateway.route;
 
+import java.net.URI;
+
 public class HttpDestination {
 	public static final String HTTP_SCHEME = "http";
 	public static final String HTTPS_SCHEME = "https";
@@ -17,6 +19,8 @@ public class HttpDestination {
 
 	private boolean disabled;
 
+	private URI baseUri;
+
 	public HttpDestination(String scheme, String host, int port) {
 		super();
 		this.scheme = scheme;
@@ -63,6 +67,19 @@ public class HttpDestination {
 		return host;
 	}
 
+	/**
+	 * Base uri to route requests to, computed once as scheme, host and port
+	 * never change.
+	 */
+	public URI getBaseUri() {
+		URI uri = this.baseUri;
+		if (uri == null) {
+			uri = URI.create(scheme + "://" + host + ":" + port);
+			this.baseUri = uri;
+		}
+		return uri;
+	}
+
 	public long getVersion() {
 		return version;
 	}
@@ -0,0 +1,297 @@
+package com.webank.wecube.platform.gateway.route;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.cloud.gateway.route.Route;
+
+/**
+ * Balances requests of one route across its enabled http destinations,
+ * shared by all requests and rebuilt on route refresh.
+ * <p>
+ * Two strategies are supported:
+ * <ul>
+ * <li>weighted-round-robin, smooth weighted round-robin whose sequence is
+ * computed once per refresh and walked with an atomic counter</li>
+ * <li>least-in-flight, power of two choices, the one with fewer requests in
+ * flight of two random destinations</li>
+ * </ul>
+ * Instances are immutable except the counters, so no lock is needed.
+ *
+ * @author Gavin
+ *
+ */
+public final class HttpDestinationBalancer {
+    public static final String STRATEGY_WEIGHTED_ROUND_ROBIN = "weighted-round-robin";
+    public static final String STRATEGY_LEAST_IN_FLIGHT = "least-in-flight";
+
+    public static final HttpDestinationBalancer EMPTY = new HttpDestinationBalancer(
+            Collections.<Endpoint> emptyList(), new int[0]);
+
+    private static final int MAX_SCHEDULE_LENGTH = 1024;
+
+    private final List<Endpoint> endpoints;
+    private final List<HttpDestination> httpDestinations;
+    private final int[] schedule;
+    private final AtomicLong sequence = new AtomicLong();
+
+    private HttpDestinationBalancer(List<Endpoint> endpoints, int[] schedule) {
+        this.endpoints = endpoints;
+        this.schedule = schedule;
+
+        List<HttpDestination> dests = new ArrayList<>(endpoints.size());
+        for (Endpoint endpoint : endpoints) {
+            dests.add(endpoint.getHttpDestination());
+        }
+        this.httpDestinations = Collections.unmodifiableList(dests);
+    }
+
+    /**
+     * Builds a balancer of enabled destinations ordered by weight, requests
+     * in flight and rewritten routes are carried over from the previous
+     * balancer of the same route.
+     */
+    public static HttpDestinationBalancer build(List<HttpDestination> httpDestinations,
+            HttpDestinationBalancer previous) {
+        if (httpDestinations == null || httpDestinations.isEmpty()) {
+            return EMPTY;
+        }
+
+        List<Endpoint> endpoints = new ArrayList<>(httpDestinations.size());
+        for (HttpDestination dest : httpDestinations) {
+            if (dest == null || dest.isDisabled()) {
+                continue;
+            }
+
+            Endpoint previousEndpoint = previous == null ? null : previous.findEndpoint(dest);
+            if (previousEndpoint == null) {
+                endpoints.add(new Endpoint(dest, new AtomicInteger()));
+                continue;
+            }
+
+            Endpoint endpoint = new Endpoint(dest, previousEndpoint.inFlight);
+            endpoint.rewrittenRoute = previousEndpoint.rewrittenRoute;
+            endpoints.add(endpoint);
+        }
+
+        if (endpoints.isEmpty()) {
+            return EMPTY;
+        }
+
+        Collections.sort(endpoints, new Comparator<Endpoint>() {
+            @Override
+            public int compare(Endpoint o1, Endpoint o2) {
+                return o2.getWeight() - o1.getWeight();
+            }
+        });
+
+        for (int i = 0; i < endpoints.size(); i++) {
+            endpoints.get(i).index = i;
+        }
+
+        return new HttpDestinationBalancer(Collections.unmodifiableList(endpoints), buildSchedule(endpoints));
+    }
+
+    /**
+     * Smooth weighted round-robin sequence of endpoint indexes, weights are
+     * reduced by their greatest common divisor and scaled down if the sequence
+     * would be too long.
+     */
+    private static int[] buildSchedule(List<Endpoint> endpoints) {
+        int size = endpoints.size();
+        int[] weights = new int[size];
+        int divisor = 0;
+        for (int i = 0; i < size; i++) {
+            weights[i] = endpoints.get(i).getWeight();
+            divisor = gcd(divisor, weights[i]);
+        }
+
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            weights[i] = weights[i] / divisor;
+            total += weights[i];
+        }
+
+        if (total > MAX_SCHEDULE_LENGTH) {
+            long scaledTotal = 0;
+            for (int i = 0; i < size; i++) {
+                weights[i] = (int) Math.max(1L, weights[i] * MAX_SCHEDULE_LENGTH / total);
+                scaledTotal += weights[i];
+            }
+            total = scaledTotal;
+        }
+
+        int[] schedule = new int[(int) total];
+        int[] currentWeights = new int[size];
+        for (int n = 0; n < schedule.length; n++) {
+            int best = 0;
+            for (int i = 0; i < size; i++) {
+                currentWeights[i] += weights[i];
+                if (currentWeights[i] > currentWeights[best]) {
+                    best = i;
+                }
+            }
+            currentWeights[best] -= total;
+            schedule[n] = best;
+        }
+
+        return schedule;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    public Endpoint choose(String strategy) {
+        if (STRATEGY_LEAST_IN_FLIGHT.equalsIgnoreCase(strategy)) {
+            return chooseLeastInFlight();
+        }
+
+        return chooseByWeight();
+    }
+
+    public Endpoint chooseByWeight() {
+        if (endpoints.isEmpty()) {
+            return null;
+        }
+
+        long n = sequence.getAndIncrement() & Long.MAX_VALUE;
+        return endpoints.get(schedule[(int) (n % schedule.length)]);
+    }
+
+    public Endpoint chooseLeastInFlight() {
+        int size = endpoints.size();
+        if (size == 0) {
+            return null;
+        }
+
+        if (size == 1) {
+            return endpoints.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        Endpoint a = endpoints.get(first);
+        Endpoint b = endpoints.get(second);
+        int inFlightOfA = a.getInFlight();
+        int inFlightOfB = b.getInFlight();
+        if (inFlightOfA == inFlightOfB) {
+            return a.getWeight() >= b.getWeight() ? a : b;
+        }
+
+        return inFlightOfA < inFlightOfB ? a : b;
+    }
+
+    private Endpoint findEndpoint(HttpDestination criteria) {
+        for (Endpoint endpoint : endpoints) {
+            if (endpoint.getHttpDestination().equals(criteria)) {
+                return endpoint;
+            }
+        }
+
+        return null;
+    }
+
+    public boolean isEmpty() {
+        return endpoints.isEmpty();
+    }
+
+    public int size() {
+        return endpoints.size();
+    }
+
+    /**
+     * Endpoint at the given position, endpoints are ordered by weight.
+     */
+    public Endpoint getEndpoint(int index) {
+        return endpoints.get(index);
+    }
+
+    /**
+     * Enabled destinations ordered by weight.
+     */
+    public List<HttpDestination> getHttpDestinations() {
+        return httpDestinations;
+    }
+
+    public static final class Endpoint {
+        private final HttpDestination httpDestination;
+        private final AtomicInteger inFlight;
+        private int index;
+        private volatile RewrittenRoute rewrittenRoute;
+
+        Endpoint(HttpDestination httpDestination, AtomicInteger inFlight) {
+            this.httpDestination = httpDestination;
+            this.inFlight = inFlight;
+        }
+
+        public HttpDestination getHttpDestination() {
+            return httpDestination;
+        }
+
+        /**
+         * Position in {@link HttpDestinationBalancer#getHttpDestinations()}.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * The given route pointing to this destination, built once per
+         * original route and reused by later requests.
+         */
+        public Route rewriteRoute(Route originalRoute) {
+            RewrittenRoute rewritten = this.rewrittenRoute;
+            if (rewritten != null && rewritten.originalRoute == originalRoute) {
+                return rewritten.route;
+            }
+
+            Route route = Route.async().asyncPredicate(originalRoute.getPredicate())
+                    .filters(originalRoute.getFilters()).id(originalRoute.getId()).order(originalRoute.getOrder())
+                    .uri(httpDestination.getBaseUri()).build();
+            this.rewrittenRoute = new RewrittenRoute(originalRoute, route);
+            return route;
+        }
+
+        public int getWeight() {
+            return Math.max(1, httpDestination.getWeight());
+        }
+
+        public int getInFlight() {
+            return inFlight.get();
+        }
+
+        public void acquire() {
+            inFlight.incrementAndGet();
+        }
+
+        public void release() {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private static final class RewrittenRoute {
+        final Route originalRoute;
+        final Route route;
+
+        RewrittenRoute(Route originalRoute, Route route) {
+            this.originalRoute = originalRoute;
+            this.route = route;
+        }
+    }
+}
@@ -2,19 +2,27 @@ package com.webank.wecube.platform.gateway.route;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.http.HttpMethod;
 
+/**
+ * Route config of one context, built from scratch by each route refresh and
+ * not structurally modified once published.
+ * 
+ * @author Gavin
+ *
+ */
 public final class MvcContextRouteConfig {
 
     private String context;
-    private Map<MvcHttpMethodAndPath, MvcHttpMethodAndPathConfig> mvcPathRouteConfigs = new ConcurrentHashMap<>();
+    private final Map<MvcHttpMethodAndPath, MvcHttpMethodAndPathConfig> mvcPathRouteConfigs = new HashMap<>();
+    private volatile MvcPathRouteTrie mvcPathRouteTrie = MvcPathRouteTrie.EMPTY;
     private List<HttpDestination> defaultHttpDestinations = new ArrayList<>();
+    private volatile HttpDestinationBalancer defaultHttpDestinationBalancer = HttpDestinationBalancer.EMPTY;
 
     private long createdTime;
     private long lastModifiedTime;
@@ -42,7 +50,7 @@ public final class MvcContextRouteConfig {
             return null;
         }
 
-        return this.mvcPathRouteConfigs.get(new MvcHttpMethodAndPath(httpMethod, path));
+        return this.mvcPathRouteTrie.match(httpMethod, path);
     }
 
     public void tryAddMvcHttpMethodAndPathConfig(String mvcPath, HttpDestination httpDestination) {
@@ -50,10 +58,8 @@ public final class MvcContextRouteConfig {
             return;
         }
 
-        for (HttpMethod httpMethod : HttpMethod.values()) {
-            MvcHttpMethodAndPath mvcHttpMethodAndPath = new MvcHttpMethodAndPath(httpMethod, mvcPath);
-            doAddMvcHttpMethodAndPathConfig(mvcHttpMethodAndPath, httpDestination);
-        }
+        MvcHttpMethodAndPath mvcHttpMethodAndPath = new MvcHttpMethodAndPath(null, mvcPath);
+        doAddMvcHttpMethodAndPathConfig(mvcHttpMethodAndPath, httpDestination);
     }
 
     public void tryAddMvcHttpMethodAndPathConfig(String mvcPath, HttpMethod httpMethod,
@@ -87,30 +93,26 @@ public final class MvcContextRouteConfig {
         lastModifiedTime();
     }
 
-    MvcContextRouteConfig cleanOutdated() {
-        for (MvcHttpMethodAndPathConfig config : mvcPathRouteConfigs.values()) {
-            config.cleanOutdatedHttpDestination();
+    /**
+     * Builds the path trie and balancers once all items of a refresh are
+     * added, requests in flight are carried over from the previous config of
+     * the same context.
+     */
+    MvcContextRouteConfig compile(MvcContextRouteConfig previous) {
+        if (previous != null) {
+            this.createdTime = previous.createdTime;
         }
-        cleanOutdatedMvcPathRouteConfigs();
-
-        cleanOutdatedHttpDestinations();
-
-        return this;
-    }
-
-    private MvcContextRouteConfig cleanOutdatedMvcPathRouteConfigs() {
-
-        List<MvcHttpMethodAndPathConfig> outDatedConfigs = mvcPathRouteConfigs //
-        		.values() //
-        		.stream() //
-        		.filter(c -> c.getVersion() < version ) //
-        		.collect(Collectors.toList()); //
 
-        for (MvcHttpMethodAndPathConfig config : outDatedConfigs) {
-            mvcPathRouteConfigs.remove(config.getMvcHttpMethodAndPath());
+        for (MvcHttpMethodAndPathConfig config : mvcPathRouteConfigs.values()) {
+            MvcHttpMethodAndPathConfig previousConfig = (previous == null) ? null
+                    : previous.findByMvcHttpMethodAndPath(config.getMvcHttpMethodAndPath());
+            config.compile(previousConfig);
         }
 
-        lastModifiedTime();
+        this.defaultHttpDestinationBalancer = HttpDestinationBalancer.build(defaultHttpDestinations,
+                (previous == null) ? null : previous.defaultHttpDestinationBalancer);
+        this.mvcPathRouteTrie = MvcPathRouteTrie.build(mvcPathRouteConfigs.values());
+
         return this;
     }
 
@@ -122,6 +124,7 @@ public final class MvcContextRouteConfig {
 
     MvcContextRouteConfig clearDefaultHttpDestinations() {
         this.defaultHttpDestinations.clear();
+        refreshDefaultHttpDestinationBalancer();
         lastModifiedTime();
         return this;
     }
@@ -139,18 +142,7 @@ public final class MvcContextRouteConfig {
         }
 
         this.defaultHttpDestinations.removeAll(toRemoves);
-
-        lastModifiedTime();
-        return this;
-    }
-
-    MvcContextRouteConfig cleanOutdatedHttpDestinations() {
-        List<HttpDestination> toRemoves = this.defaultHttpDestinations //
-        		.stream() //
-        		.filter(c -> c.getVersion() < version ) //
-        		.collect(Collectors.toList()); //
-
-        this.defaultHttpDestinations.removeAll(toRemoves);
+        refreshDefaultHttpDestinationBalancer();
 
         lastModifiedTime();
         return this;
@@ -168,7 +160,9 @@ public final class MvcContextRouteConfig {
             this.defaultHttpDestinations.add(exist);
         }
 
-        exist.weight(httpDestination.getWeight());
+        if (exist.getWeight() != httpDestination.getWeight()) {
+            exist.weight(httpDestination.getWeight());
+        }
         exist.version(this.version);
 
         lastModifiedTime();
@@ -213,6 +207,7 @@ public final class MvcContextRouteConfig {
         }
         
         existDest.disabled(false);
+        refreshDefaultHttpDestinationBalancer();
 
         lastModifiedTime();
         return this;
@@ -229,6 +224,7 @@ public final class MvcContextRouteConfig {
         }
         
         existDest.disabled(true);
+        refreshDefaultHttpDestinationBalancer();
 
         lastModifiedTime();
         return this;
@@ -246,6 +242,15 @@ public final class MvcContextRouteConfig {
         return Collections.unmodifiableList(this.defaultHttpDestinations);
     }
 
+    public HttpDestinationBalancer getDefaultHttpDestinationBalancer() {
+        return defaultHttpDestinationBalancer;
+    }
+
+    private void refreshDefaultHttpDestinationBalancer() {
+        this.defaultHttpDestinationBalancer = HttpDestinationBalancer.build(defaultHttpDestinations,
+                defaultHttpDestinationBalancer);
+    }
+
     public long getCreatedTime() {
         return createdTime;
     }
@@ -3,7 +3,6 @@ package com.webank.wecube.platform.gateway.route;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class MvcHttpMethodAndPathConfig {
 
@@ -17,6 +16,8 @@ public class MvcHttpMethodAndPathConfig {
 
 	private List<HttpDestination> httpDestinations = new ArrayList<>();
 
+	private volatile HttpDestinationBalancer httpDestinationBalancer = HttpDestinationBalancer.EMPTY;
+
 	public MvcHttpMethodAndPathConfig(MvcHttpMethodAndPath mvcHttpMethodAndPath) {
 		super();
 		this.mvcHttpMethodAndPath = mvcHttpMethodAndPath;
@@ -41,10 +42,16 @@ public class MvcHttpMethodAndPathConfig {
 		}
 
 		exist.version(version);
-		exist.weight(httpDestination.getWeight());
+		if (exist.getWeight() != httpDestination.getWeight()) {
+			exist.weight(httpDestination.getWeight());
+		}
 		return true;
 	}
 
+	private void refreshHttpDestinationBalancer() {
+		this.httpDestinationBalancer = HttpDestinationBalancer.build(httpDestinations, httpDestinationBalancer);
+	}
+
 	private HttpDestination findHttpDestination(HttpDestination criteria) {
 		if (criteria == null) {
 			return null;
@@ -61,16 +68,22 @@ public class MvcHttpMethodAndPathConfig {
 
 	MvcHttpMethodAndPathConfig clearHttpDestinations() {
 		this.httpDestinations.clear();
+		refreshHttpDestinationBalancer();
 		return this;
 	}
 
-	MvcHttpMethodAndPathConfig cleanOutdatedHttpDestination() {
-		List<HttpDestination> toRemoves = this.httpDestinations //
-				.stream() //
-				.filter(c -> c.getVersion() < version) //
-				.collect(Collectors.toList()); //
+	/**
+	 * Builds the balancer once all destinations of a refresh are added, with
+	 * requests in flight carried over from the previous config of the same
+	 * method and path.
+	 */
+	MvcHttpMethodAndPathConfig compile(MvcHttpMethodAndPathConfig previous) {
+		if (previous != null) {
+			this.createdTime = previous.createdTime;
+		}
 
-		this.httpDestinations.removeAll(toRemoves);
+		this.httpDestinationBalancer = HttpDestinationBalancer.build(httpDestinations,
+				(previous == null) ? null : previous.httpDestinationBalancer);
 
 		return this;
 	}
@@ -101,6 +114,10 @@ public class MvcHttpMethodAndPathConfig {
 		return Collections.unmodifiableList(httpDestinations);
 	}
 
+	public HttpDestinationBalancer getHttpDestinationBalancer() {
+		return httpDestinationBalancer;
+	}
+
 	private MvcHttpMethodAndPathConfig lastModifiedTime() {
 		this.lastModifiedTime = System.currentTimeMillis();
 		return this;
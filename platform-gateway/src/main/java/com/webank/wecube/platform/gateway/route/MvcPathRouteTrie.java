@@ -0,0 +1,244 @@
+package com.webank.wecube.platform.gateway.route;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.http.HttpMethod;
+
+/**
+ * Segment trie of the path templates of one context, compiled once per route
+ * refresh and never modified afterwards.
+ * <p>
+ * A template segment is either a literal, a variable such as {@code {id}} or
+ * {@code *} matching exactly one segment, or {@code **} matching any number
+ * of segments. At each segment literals are tried before variables and
+ * variables before {@code **}, so the most specific template wins. A template
+ * registered for a http method wins over the one registered for any method.
+ * <p>
+ * Lookup walks the request path in place and needs no allocation.
+ *
+ * @author Gavin
+ *
+ */
+public final class MvcPathRouteTrie {
+    public static final MvcPathRouteTrie EMPTY = build(null);
+
+    private static final String MULTI_SEGMENTS_WILDCARD = "**";
+    private static final String SINGLE_SEGMENT_WILDCARD = "*";
+
+    private final Node root;
+
+    private MvcPathRouteTrie(Node root) {
+        this.root = root;
+    }
+
+    public static MvcPathRouteTrie build(Collection<MvcHttpMethodAndPathConfig> configs) {
+        Node root = new Node();
+        if (configs == null) {
+            root.compile();
+            return new MvcPathRouteTrie(root);
+        }
+
+        for (MvcHttpMethodAndPathConfig config : configs) {
+            MvcHttpMethodAndPath methodAndPath = config.getMvcHttpMethodAndPath();
+            if (methodAndPath == null || methodAndPath.getPath() == null) {
+                continue;
+            }
+
+            Node node = root;
+            String path = methodAndPath.getPath();
+            int start = nextSegmentStart(path, 0);
+            while (start < path.length()) {
+                int end = segmentEnd(path, start);
+                node = node.getOrCreateChild(path.substring(start, end));
+                start = nextSegmentStart(path, end);
+            }
+
+            node.setConfig(methodAndPath.getHttpMethod(), config);
+        }
+
+        root.compile();
+        return new MvcPathRouteTrie(root);
+    }
+
+    public MvcHttpMethodAndPathConfig match(HttpMethod httpMethod, String path) {
+        if (httpMethod == null || path == null) {
+            return null;
+        }
+
+        return match(root, httpMethod, path, nextSegmentStart(path, 0));
+    }
+
+    private static MvcHttpMethodAndPathConfig match(Node node, HttpMethod httpMethod, String path, int start) {
+        if (start >= path.length()) {
+            MvcHttpMethodAndPathConfig config = node.getConfig(httpMethod);
+            if (config != null) {
+                return config;
+            }
+
+            return node.multiSegmentsChild == null ? null : node.multiSegmentsChild.getConfig(httpMethod);
+        }
+
+        int end = segmentEnd(path, start);
+        int next = nextSegmentStart(path, end);
+
+        Node literalChild = node.findLiteralChild(path, start, end - start);
+        if (literalChild != null) {
+            MvcHttpMethodAndPathConfig config = match(literalChild, httpMethod, path, next);
+            if (config != null) {
+                return config;
+            }
+        }
+
+        if (node.singleSegmentChild != null) {
+            MvcHttpMethodAndPathConfig config = match(node.singleSegmentChild, httpMethod, path, next);
+            if (config != null) {
+                return config;
+            }
+        }
+
+        if (node.multiSegmentsChild != null) {
+            return matchMultiSegments(node.multiSegmentsChild, httpMethod, path, start);
+        }
+
+        return null;
+    }
+
+    /**
+     * Lets {@code **} consume as few segments as possible, so the template
+     * segments after it could match the rest.
+     */
+    private static MvcHttpMethodAndPathConfig matchMultiSegments(Node node, HttpMethod httpMethod, String path,
+            int start) {
+        int from = start;
+        while (true) {
+            MvcHttpMethodAndPathConfig config = match(node, httpMethod, path, from);
+            if (config != null || from >= path.length()) {
+                return config;
+            }
+
+            from = nextSegmentStart(path, segmentEnd(path, from));
+        }
+    }
+
+    private static int nextSegmentStart(String path, int from) {
+        int i = from;
+        while (i < path.length() && path.charAt(i) == '/') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int segmentEnd(String path, int start) {
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.length() : end;
+    }
+
+    private static int hash(String s, int start, int len) {
+        int h = 0;
+        for (int i = start; i < start + len; i++) {
+            h = 31 * h + s.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Node {
+        private Map<String, Node> literalChildren = new HashMap<>();
+        private String[] literalKeys;
+        private Node[] literalNodes;
+        private Node singleSegmentChild;
+        private Node multiSegmentsChild;
+        private final Map<HttpMethod, MvcHttpMethodAndPathConfig> methodConfigs = new EnumMap<>(HttpMethod.class);
+        private MvcHttpMethodAndPathConfig anyMethodConfig;
+
+        Node getOrCreateChild(String segment) {
+            if (MULTI_SEGMENTS_WILDCARD.equals(segment)) {
+                if (multiSegmentsChild == null) {
+                    multiSegmentsChild = new Node();
+                }
+                return multiSegmentsChild;
+            }
+
+            if (SINGLE_SEGMENT_WILDCARD.equals(segment) || (segment.startsWith("{") && segment.endsWith("}"))) {
+                if (singleSegmentChild == null) {
+                    singleSegmentChild = new Node();
+                }
+                return singleSegmentChild;
+            }
+
+            return literalChildren.computeIfAbsent(segment, k -> new Node());
+        }
+
+        void setConfig(HttpMethod httpMethod, MvcHttpMethodAndPathConfig config) {
+            if (httpMethod == null) {
+                anyMethodConfig = config;
+            } else {
+                methodConfigs.put(httpMethod, config);
+            }
+        }
+
+        MvcHttpMethodAndPathConfig getConfig(HttpMethod httpMethod) {
+            MvcHttpMethodAndPathConfig config = methodConfigs.get(httpMethod);
+            if (config != null && !config.isDisabled()) {
+                return config;
+            }
+
+            if (anyMethodConfig != null && !anyMethodConfig.isDisabled()) {
+                return anyMethodConfig;
+            }
+
+            return null;
+        }
+
+        /**
+         * Moves literal children into an open addressing table which could be
+         * probed with a region of the request path.
+         */
+        void compile() {
+            int capacity = 1;
+            while (capacity < literalChildren.size() * 2) {
+                capacity <<= 1;
+            }
+
+            literalKeys = new String[literalChildren.isEmpty() ? 0 : capacity];
+            literalNodes = new Node[literalKeys.length];
+            for (Map.Entry<String, Node> e : literalChildren.entrySet()) {
+                String key = e.getKey();
+                int i = hash(key, 0, key.length()) & (capacity - 1);
+                while (literalKeys[i] != null) {
+                    i = (i + 1) & (capacity - 1);
+                }
+                literalKeys[i] = key;
+                literalNodes[i] = e.getValue();
+                e.getValue().compile();
+            }
+            literalChildren = null;
+
+            if (singleSegmentChild != null) {
+                singleSegmentChild.compile();
+            }
+            if (multiSegmentsChild != null) {
+                multiSegmentsChild.compile();
+            }
+        }
+
+        Node findLiteralChild(String path, int start, int len) {
+            if (literalKeys.length == 0) {
+                return null;
+            }
+
+            int mask = literalKeys.length - 1;
+            int i = hash(path, start, len) & mask;
+            String key;
+            while ((key = literalKeys[i]) != null) {
+                if (key.length() == len && path.regionMatches(start, key, 0, len)) {
+                    return literalNodes[i];
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.webank.wecube.platform.gateway.filter.factory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import com.webank.wecube.platform.gateway.route.DynamicRouteContext;
+import com.webank.wecube.platform.gateway.route.DynamicRouteItemInfo;
+import com.webank.wecube.platform.gateway.route.DynamicRouteItemInfoHolder;
+import com.webank.wecube.platform.gateway.route.HttpDestinationBalancer;
+
+/**
+ * Per-request cost of dynamic route resolution with contextCount plugin
+ * packages of 50 paths and 3 instances each, run with main method from test
+ * classpath.
+ *
+ * @author Gavin
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DynamicRouteGatewayFilterBenchmark {
+    private static final int PATHS_PER_CONTEXT = 50;
+    private static final int INSTANCES_PER_CONTEXT = 3;
+
+    @Param({ "10", "200" })
+    private int contextCount;
+
+    @Param({ HttpDestinationBalancer.STRATEGY_WEIGHTED_ROUND_ROBIN,
+            HttpDestinationBalancer.STRATEGY_LEAST_IN_FLIGHT })
+    private String strategy;
+
+    private DynamicRouteGatewayFilterFactory filterFactory;
+
+    private Route originalRoute;
+
+    private MockServerWebExchange exchange;
+
+    @Setup
+    public void setup() {
+        List<DynamicRouteItemInfo> items = new ArrayList<>();
+        for (int c = 0; c < contextCount; c++) {
+            String context = "plugin" + c;
+            for (int i = 0; i < INSTANCES_PER_CONTEXT; i++) {
+                for (int p = 0; p < PATHS_PER_CONTEXT; p++) {
+                    items.add(buildRouteItem(context, "POST", "/" + context + "/entities/entity" + p + "/query", i));
+                }
+                items.add(buildRouteItem(context, null, null, i));
+            }
+        }
+        DynamicRouteItemInfoHolder.refresh(items);
+
+        DynamicRouteProperties properties = new DynamicRouteProperties();
+        properties.setLoadBalanceStrategy(strategy);
+        filterFactory = new DynamicRouteGatewayFilterFactory();
+        filterFactory.setDynamicRouteProperties(properties);
+
+        originalRoute = Route.async().id("plugins").uri("http://127.0.0.1:19100").predicate(e -> true).build();
+
+        String context = "plugin" + (contextCount / 2);
+        String path = "/" + context + "/entities/entity" + (PATHS_PER_CONTEXT / 2) + "/query";
+        exchange = MockServerWebExchange.from(MockServerHttpRequest.post(path));
+    }
+
+    @Benchmark
+    public Route resolveDynamicRoute() {
+        DynamicRouteContext routeContext = filterFactory.tryPrepareDynamicRoute(exchange, originalRoute);
+        routeContext.releaseEndpoint();
+        return exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+    }
+
+    private DynamicRouteItemInfo buildRouteItem(String context, String httpMethod, String path, int instanceIndex) {
+        DynamicRouteItemInfo item = new DynamicRouteItemInfo();
+        item.setContext(context);
+        item.setHttpMethod(httpMethod);
+        item.setPath(path);
+        item.setHost("10.0.0." + (instanceIndex + 1));
+        item.setPort(20000 + instanceIndex);
+        item.setWeight(instanceIndex + 1);
+        return item;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder().include(DynamicRouteGatewayFilterBenchmark.class.getSimpleName()).build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,159 @@
+package com.webank.wecube.platform.gateway.route;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.webank.wecube.platform.gateway.dto.RouteItemInfoDto;
+import com.webank.wecube.platform.gateway.dto.RouteItemPushDto;
+import com.webank.wecube.platform.gateway.filter.factory.DynamicRouteProperties;
+
+import reactor.core.publisher.Mono;
+
+public class DynamicRouteConfigurationServiceTest {
+
+    private TestingDynamicRouteConfigurationService service;
+
+    @Before
+    public void setUp() {
+        DynamicRouteItemInfoHolder.refresh(new ArrayList<>());
+
+        service = new TestingDynamicRouteConfigurationService();
+        DynamicRouteProperties properties = new DynamicRouteProperties();
+        properties.setFullRefreshIntervalOfRefreshes(3);
+        ReflectionTestUtils.setField(service, "dynamicRouteProperties", properties);
+    }
+
+    @Test
+    public void givenMatchingPreviousVersionWhenPushDeltaThenApplyWithoutRefresh() {
+        service.serveRoutes(5L, routeItem("ctx-a", "10.0.0.1", 8080));
+        service.doLoadRoutes();
+
+        service.pushRouteItem(pushRequest(RouteItemPushDto.OPERATION_ADD, 5L, 6L, routeItem("ctx-a", "10.0.0.2", 8080)));
+
+        assertThat(service.refreshTimes).isEqualTo(0);
+        assertThat(routeConfigVersion()).isEqualTo(6L);
+        assertThat(destinationsOf("ctx-a")).containsExactlyInAnyOrder("10.0.0.1:8080", "10.0.0.2:8080");
+    }
+
+    @Test
+    public void givenDivergedPreviousVersionWhenPushDeltaThenRefreshAllRoutes() {
+        service.serveRoutes(5L, routeItem("ctx-a", "10.0.0.1", 8080));
+        service.doLoadRoutes();
+
+        service.serveRoutes(8L, routeItem("ctx-a", "10.0.0.3", 8080));
+        service.pushRouteItem(pushRequest(RouteItemPushDto.OPERATION_ADD, 7L, 8L, routeItem("ctx-a", "10.0.0.2", 8080)));
+
+        assertThat(service.refreshTimes).isEqualTo(1);
+        assertThat(routeConfigVersion()).isEqualTo(8L);
+        assertThat(destinationsOf("ctx-a")).containsExactly("10.0.0.3:8080");
+    }
+
+    @Test
+    public void givenRemoveDeltaWhenPushThenDropOnlySameContextHostAndPort() {
+        RouteItemInfoDto pathItem = routeItem("ctx-a", "10.0.0.1", 8080);
+        pathItem.setPath("/entities");
+        pathItem.setHttpMethod("POST");
+        service.serveRoutes(5L, routeItem("ctx-a", "10.0.0.1", 8080), pathItem, routeItem("ctx-a", "10.0.0.1", 9090),
+                routeItem("ctx-a", "10.0.0.2", 8080), routeItem("ctx-b", "10.0.0.1", 8080));
+        service.doLoadRoutes();
+
+        service.pushRouteItem(
+                pushRequest(RouteItemPushDto.OPERATION_REMOVE, 5L, 6L, routeItem("ctx-a", "10.0.0.1", 8080)));
+
+        assertThat(service.refreshTimes).isEqualTo(0);
+        assertThat(destinationsOf("ctx-a")).containsExactlyInAnyOrder("10.0.0.1:9090", "10.0.0.2:8080");
+        assertThat(destinationsOf("ctx-b")).containsExactly("10.0.0.1:8080");
+    }
+
+    @Test
+    public void givenUnchangedVersionWhenPeriodicRefreshThenFetchAllRoutesOnlyEveryConfiguredRefreshes() {
+        service.serveRoutes(5L, routeItem("ctx-a", "10.0.0.1", 8080));
+        service.doLoadRoutes();
+
+        service.serveRoutes(5L, routeItem("ctx-a", "10.0.0.2", 8080));
+        service.refreshRoutes(1L);
+        service.refreshRoutes(2L);
+
+        assertThat(destinationsOf("ctx-a")).containsExactly("10.0.0.1:8080");
+
+        service.refreshRoutes(3L);
+
+        assertThat(destinationsOf("ctx-a")).containsExactly("10.0.0.2:8080");
+    }
+
+    private long routeConfigVersion() {
+        return (Long) ReflectionTestUtils.getField(service, "routeConfigVersion");
+    }
+
+    private List<String> destinationsOf(String context) {
+        return DynamicRouteItemInfoHolder.instance().getDynamicRouteItemInfos().stream()
+                .filter(item -> context.equals(item.getContext())) //
+                .map(item -> item.getHost() + ":" + item.getPort()) //
+                .collect(Collectors.toList());
+    }
+
+    private RouteItemPushDto pushRequest(String operation, long previousVersion, long version,
+            RouteItemInfoDto... items) {
+        RouteItemPushDto request = new RouteItemPushDto();
+        request.setContext(items[0].getContext());
+        request.setOperation(operation);
+        request.setPreviousVersion(previousVersion);
+        request.setVersion(version);
+        request.setItems(Arrays.asList(items));
+        return request;
+    }
+
+    private RouteItemInfoDto routeItem(String context, String host, int port) {
+        RouteItemInfoDto item = new RouteItemInfoDto();
+        item.setContext(context);
+        item.setHttpScheme("http");
+        item.setHost(host);
+        item.setPort(String.valueOf(port));
+        return item;
+    }
+
+    /**
+     * Serves route config from memory instead of the config server and skips
+     * the route definitions of spring cloud gateway.
+     */
+    private static class TestingDynamicRouteConfigurationService extends DynamicRouteConfigurationService {
+        private long version;
+        private List<RouteItemInfoDto> routeItems;
+        private int refreshTimes = 0;
+
+        void serveRoutes(long version, RouteItemInfoDto... routeItems) {
+            this.version = version;
+            this.routeItems = Arrays.asList(routeItems);
+        }
+
+        @Override
+        protected void doRefreshRoutes() {
+            refreshTimes++;
+            super.doRefreshRoutes();
+        }
+
+        @Override
+        protected Mono<Long> fetchRouteConfigVersion() {
+            return Mono.just(version);
+        }
+
+        @Override
+        protected Mono<RouteConfigInfoResponseDto> fetchAllRouteItemsWithWebClient() {
+            RouteConfigInfoResponseDto respDto = new RouteConfigInfoResponseDto();
+            respDto.setData(new ArrayList<>(routeItems));
+            return Mono.just(respDto);
+        }
+
+        @Override
+        protected void initContextRouteConfigs() {
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.webank.wecube.platform.gateway.route;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.webank.wecube.platform.gateway.route.HttpDestinationBalancer.Endpoint;
+
+public class DynamicRouteContextTest {
+
+    private final HttpDestinationBalancer balancer = HttpDestinationBalancer.build(
+            Arrays.asList(new HttpDestination("http", "10.0.0.1", 8080), new HttpDestination("http", "10.0.0.2", 8080),
+                    new HttpDestination("http", "10.0.0.3", 8080)),
+            null);
+
+    @Test
+    public void givenRetriesWhenNextEndpointThenAskBalancerAgain() {
+        DynamicRouteContext routeContext = newRouteContext();
+
+        Endpoint first = routeContext.nextEndpoint();
+        Endpoint chosenByOtherRequest = balancer.chooseByWeight();
+        Endpoint second = routeContext.nextEndpoint();
+
+        assertThat(first.getIndex()).isEqualTo(0);
+        assertThat(chosenByOtherRequest.getIndex()).isEqualTo(1);
+        assertThat(second.getIndex()).isEqualTo(2);
+    }
+
+    @Test
+    public void givenTriedEndpointsWhenNextEndpointThenTryEachEndpointOnce() {
+        DynamicRouteContext routeContext = newRouteContext();
+
+        Endpoint first = routeContext.nextEndpoint();
+        Endpoint second = routeContext.nextEndpoint();
+        Endpoint third = routeContext.nextEndpoint();
+
+        assertThat(Arrays.asList(first.getIndex(), second.getIndex(), third.getIndex())).containsExactlyInAnyOrder(0,
+                1, 2);
+        assertThat(routeContext.hasNext()).isFalse();
+        assertThat(routeContext.nextEndpoint()).isNull();
+        assertThat(routeContext.getCurrentEndpoint()).isSameAs(third);
+    }
+
+    @Test
+    public void givenRetryWhenNextEndpointThenMoveRequestInFlight() {
+        DynamicRouteContext routeContext = newRouteContext();
+
+        Endpoint first = routeContext.nextEndpoint();
+        assertThat(first.getInFlight()).isEqualTo(1);
+
+        Endpoint second = routeContext.nextEndpoint();
+        assertThat(first.getInFlight()).isEqualTo(0);
+        assertThat(second.getInFlight()).isEqualTo(1);
+
+        routeContext.releaseEndpoint();
+        routeContext.releaseEndpoint();
+        assertThat(second.getInFlight()).isEqualTo(0);
+    }
+
+    private DynamicRouteContext newRouteContext() {
+        return DynamicRouteContext.newInstance(balancer, HttpDestinationBalancer.STRATEGY_WEIGHTED_ROUND_ROBIN, null);
+    }
+}
@@ -0,0 +1,119 @@
+package com.webank.wecube.platform.gateway.route;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.webank.wecube.platform.gateway.route.HttpDestinationBalancer.Endpoint;
+
+public class HttpDestinationBalancerTest {
+
+    private final HttpDestination heavy = new HttpDestination("http", "10.0.0.1", 8080, 3);
+    private final HttpDestination medium = new HttpDestination("http", "10.0.0.2", 8080, 2);
+    private final HttpDestination light = new HttpDestination("http", "10.0.0.3", 8080, 1);
+
+    @Test
+    public void givenWeightsWhenChooseByWeightThenDistributeInProportion() {
+        HttpDestinationBalancer balancer = HttpDestinationBalancer.build(Arrays.asList(light, heavy, medium), null);
+
+        Map<HttpDestination, Integer> counts = countChoices(balancer,
+                HttpDestinationBalancer.STRATEGY_WEIGHTED_ROUND_ROBIN, 600);
+
+        assertThat(counts.get(heavy)).isEqualTo(300);
+        assertThat(counts.get(medium)).isEqualTo(200);
+        assertThat(counts.get(light)).isEqualTo(100);
+        assertThat(balancer.getHttpDestinations()).containsExactly(heavy, medium, light);
+    }
+
+    @Test
+    public void givenWeightsWhenChooseByWeightThenInterleaveDestinations() {
+        HttpDestination other = new HttpDestination("http", "10.0.0.4", 8080, 1);
+        HttpDestinationBalancer balancer = HttpDestinationBalancer
+                .build(Arrays.asList(new HttpDestination("http", "10.0.0.1", 8080, 5), light, other), null);
+
+        int maxRun = 0;
+        int run = 0;
+        HttpDestination last = null;
+        for (int i = 0; i < 7; i++) {
+            HttpDestination dest = balancer.chooseByWeight().getHttpDestination();
+            run = dest.equals(last) ? run + 1 : 1;
+            maxRun = Math.max(maxRun, run);
+            last = dest;
+        }
+
+        assertThat(maxRun).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    public void givenZeroWeightsWhenChooseByWeightThenTreatThemAsEqual() {
+        HttpDestination first = new HttpDestination("http", "10.0.0.1", 8080);
+        HttpDestination second = new HttpDestination("http", "10.0.0.2", 8080);
+        HttpDestinationBalancer balancer = HttpDestinationBalancer.build(Arrays.asList(first, second), null);
+
+        Map<HttpDestination, Integer> counts = countChoices(balancer,
+                HttpDestinationBalancer.STRATEGY_WEIGHTED_ROUND_ROBIN, 100);
+
+        assertThat(counts.get(first)).isEqualTo(50);
+        assertThat(counts.get(second)).isEqualTo(50);
+    }
+
+    @Test
+    public void givenDisabledDestinationWhenChooseThenSkipIt() {
+        heavy.disabled(true);
+        HttpDestinationBalancer balancer = HttpDestinationBalancer.build(Arrays.asList(heavy, medium, light), null);
+
+        assertThat(balancer.getHttpDestinations()).containsExactly(medium, light);
+        assertThat(countChoices(balancer, HttpDestinationBalancer.STRATEGY_WEIGHTED_ROUND_ROBIN, 100))
+                .doesNotContainKey(heavy);
+        assertThat(countChoices(balancer, HttpDestinationBalancer.STRATEGY_LEAST_IN_FLIGHT, 100))
+                .doesNotContainKey(heavy);
+    }
+
+    @Test
+    public void givenAllDestinationsDisabledWhenBuildThenEmpty() {
+        heavy.disabled(true);
+        light.disabled(true);
+        HttpDestinationBalancer balancer = HttpDestinationBalancer.build(Arrays.asList(heavy, light), null);
+
+        assertThat(balancer).isSameAs(HttpDestinationBalancer.EMPTY);
+        assertThat(balancer.choose(HttpDestinationBalancer.STRATEGY_WEIGHTED_ROUND_ROBIN)).isNull();
+        assertThat(balancer.choose(HttpDestinationBalancer.STRATEGY_LEAST_IN_FLIGHT)).isNull();
+    }
+
+    @Test
+    public void givenBusyDestinationWhenChooseLeastInFlightThenChooseTheOther() {
+        HttpDestinationBalancer balancer = HttpDestinationBalancer.build(Arrays.asList(heavy, light), null);
+        balancer.getEndpoint(0).acquire();
+
+        Map<HttpDestination, Integer> counts = countChoices(balancer,
+                HttpDestinationBalancer.STRATEGY_LEAST_IN_FLIGHT, 100);
+
+        assertThat(counts).containsOnlyKeys(light);
+    }
+
+    @Test
+    public void givenPreviousBalancerWhenRebuildThenCarryOverRequestsInFlight() {
+        HttpDestinationBalancer previous = HttpDestinationBalancer.build(Arrays.asList(heavy, light), null);
+        previous.getEndpoint(0).acquire();
+
+        HttpDestination sameAsHeavy = new HttpDestination("http", "10.0.0.1", 8080, 3);
+        HttpDestinationBalancer balancer = HttpDestinationBalancer.build(Arrays.asList(sameAsHeavy, medium), previous);
+
+        assertThat(balancer.getEndpoint(0).getHttpDestination()).isSameAs(sameAsHeavy);
+        assertThat(balancer.getEndpoint(0).getInFlight()).isEqualTo(1);
+        assertThat(balancer.getEndpoint(1).getInFlight()).isEqualTo(0);
+    }
+
+    private Map<HttpDestination, Integer> countChoices(HttpDestinationBalancer balancer, String strategy, int times) {
+        Map<HttpDestination, Integer> counts = new HashMap<>();
+        for (int i = 0; i < times; i++) {
+            Endpoint endpoint = balancer.choose(strategy);
+            counts.merge(endpoint.getHttpDestination(), 1, Integer::sum);
+        }
+        return counts;
+    }
+}
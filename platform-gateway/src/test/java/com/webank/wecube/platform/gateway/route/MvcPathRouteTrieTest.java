@@ -0,0 +1,112 @@
+package com.webank.wecube.platform.gateway.route;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+
+public class MvcPathRouteTrieTest {
+
+    private final List<MvcHttpMethodAndPathConfig> configs = new ArrayList<>();
+
+    @Test
+    public void givenLiteralAndTemplateWhenMatchThenLiteralWins() {
+        MvcHttpMethodAndPathConfig literal = addConfig(HttpMethod.POST, "/entities/query");
+        MvcHttpMethodAndPathConfig template = addConfig(HttpMethod.POST, "/entities/{id}");
+        MvcPathRouteTrie trie = MvcPathRouteTrie.build(configs);
+
+        assertThat(trie.match(HttpMethod.POST, "/entities/query")).isSameAs(literal);
+        assertThat(trie.match(HttpMethod.POST, "/entities/42")).isSameAs(template);
+    }
+
+    @Test
+    public void givenTemplateAndWildcardWhenMatchThenTemplateWins() {
+        MvcHttpMethodAndPathConfig template = addConfig(HttpMethod.GET, "/entities/{id}");
+        MvcHttpMethodAndPathConfig singleWildcard = addConfig(HttpMethod.GET, "/entities/*/attributes");
+        MvcHttpMethodAndPathConfig multiWildcard = addConfig(HttpMethod.GET, "/entities/**");
+        MvcPathRouteTrie trie = MvcPathRouteTrie.build(configs);
+
+        assertThat(trie.match(HttpMethod.GET, "/entities/42")).isSameAs(template);
+        assertThat(trie.match(HttpMethod.GET, "/entities/42/attributes")).isSameAs(singleWildcard);
+        assertThat(trie.match(HttpMethod.GET, "/entities/42/attributes/name")).isSameAs(multiWildcard);
+        assertThat(trie.match(HttpMethod.GET, "/entities")).isSameAs(multiWildcard);
+    }
+
+    @Test
+    public void givenLiteralWithoutConfigWhenMatchThenBacktrackToTemplate() {
+        MvcHttpMethodAndPathConfig literal = addConfig(HttpMethod.POST, "/entities/query/detail");
+        MvcHttpMethodAndPathConfig template = addConfig(HttpMethod.POST, "/entities/{id}");
+        MvcPathRouteTrie trie = MvcPathRouteTrie.build(configs);
+
+        assertThat(trie.match(HttpMethod.POST, "/entities/query/detail")).isSameAs(literal);
+        assertThat(trie.match(HttpMethod.POST, "/entities/query")).isSameAs(template);
+    }
+
+    @Test
+    public void givenWildcardFollowedByLiteralWhenMatchThenConsumeFewestSegments() {
+        MvcHttpMethodAndPathConfig config = addConfig(HttpMethod.POST, "/**/query");
+        MvcPathRouteTrie trie = MvcPathRouteTrie.build(configs);
+
+        assertThat(trie.match(HttpMethod.POST, "/query")).isSameAs(config);
+        assertThat(trie.match(HttpMethod.POST, "/a/b/query")).isSameAs(config);
+        assertThat(trie.match(HttpMethod.POST, "/a/b/query/c")).isNull();
+    }
+
+    @Test
+    public void givenMethodSpecificAndAnyMethodWhenMatchThenMethodSpecificWins() {
+        MvcHttpMethodAndPathConfig post = addConfig(HttpMethod.POST, "/entities/{id}");
+        MvcHttpMethodAndPathConfig anyMethod = addConfig(null, "/entities/{id}");
+        MvcPathRouteTrie trie = MvcPathRouteTrie.build(configs);
+
+        assertThat(trie.match(HttpMethod.POST, "/entities/42")).isSameAs(post);
+        assertThat(trie.match(HttpMethod.GET, "/entities/42")).isSameAs(anyMethod);
+    }
+
+    @Test
+    public void givenDisabledMethodSpecificWhenMatchThenFallBackToAnyMethod() {
+        addConfig(HttpMethod.POST, "/entities/{id}").disable();
+        MvcHttpMethodAndPathConfig anyMethod = addConfig(null, "/entities/{id}");
+        MvcPathRouteTrie trie = MvcPathRouteTrie.build(configs);
+
+        assertThat(trie.match(HttpMethod.POST, "/entities/42")).isSameAs(anyMethod);
+    }
+
+    @Test
+    public void givenDisabledTemplateWhenMatchThenFallBackToWildcard() {
+        addConfig(HttpMethod.GET, "/entities/{id}").disable();
+        addConfig(null, "/entities/{id}").disable();
+        MvcHttpMethodAndPathConfig multiWildcard = addConfig(HttpMethod.GET, "/entities/**");
+        MvcPathRouteTrie trie = MvcPathRouteTrie.build(configs);
+
+        assertThat(trie.match(HttpMethod.GET, "/entities/42")).isSameAs(multiWildcard);
+        assertThat(trie.match(HttpMethod.POST, "/entities/42")).isNull();
+    }
+
+    @Test
+    public void givenRepeatedAndTrailingSlashesWhenMatchThenIgnoreThem() {
+        MvcHttpMethodAndPathConfig config = addConfig(HttpMethod.GET, "/entities/{id}");
+        MvcPathRouteTrie trie = MvcPathRouteTrie.build(configs);
+
+        assertThat(trie.match(HttpMethod.GET, "//entities//42/")).isSameAs(config);
+    }
+
+    @Test
+    public void givenNoMatchingTemplateWhenMatchThenReturnNull() {
+        addConfig(HttpMethod.GET, "/entities/{id}");
+        MvcPathRouteTrie trie = MvcPathRouteTrie.build(configs);
+
+        assertThat(trie.match(HttpMethod.GET, "/resources/42")).isNull();
+        assertThat(trie.match(HttpMethod.GET, "/entities/42/attributes")).isNull();
+        assertThat(trie.match(null, "/entities/42")).isNull();
+        assertThat(MvcPathRouteTrie.EMPTY.match(HttpMethod.GET, "/entities/42")).isNull();
+    }
+
+    private MvcHttpMethodAndPathConfig addConfig(HttpMethod httpMethod, String path) {
+        MvcHttpMethodAndPathConfig config = new MvcHttpMethodAndPathConfig(new MvcHttpMethodAndPath(httpMethod, path));
+        configs.add(config);
+        return config;
+    }
+}
@@ -0,0 +1,58 @@
+package com.webank.wecube.platform.workflow.config;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.UUID;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.webank.wecube.platform.workflow.delegate.DatabaseServiceInvocationEventQueue;
+import com.webank.wecube.platform.workflow.delegate.InMemoryServiceInvocationEventQueue;
+import com.webank.wecube.platform.workflow.delegate.ServiceInvocationEventQueue;
+import com.webank.wecube.platform.workflow.repository.ServiceInvocationEventRepository;
+
+@Configuration
+@EnableConfigurationProperties(ServiceInvocationEventQueueProperties.class)
+public class ServiceInvocationEventQueueConfig {
+    private static final Logger log = LoggerFactory.getLogger(ServiceInvocationEventQueueConfig.class);
+
+    @Bean
+    @ConditionalOnProperty(prefix = "platform.workflow.event-queue", name = "type", havingValue = ServiceInvocationEventQueueProperties.TYPE_MEMORY)
+    public ServiceInvocationEventQueue inMemoryServiceInvocationEventQueue() {
+        log.info("service invocation events are queued in memory");
+        return new InMemoryServiceInvocationEventQueue();
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(prefix = "platform.workflow.event-queue", name = "type", havingValue = ServiceInvocationEventQueueProperties.TYPE_DATABASE, matchIfMissing = true)
+    public ServiceInvocationEventQueue databaseServiceInvocationEventQueue(
+            ServiceInvocationEventRepository serviceInvocationEventRepository,
+            ServiceInvocationEventQueueProperties serviceInvocationEventQueueProperties) {
+        String nodeId = serviceInvocationEventQueueProperties.getNodeId();
+        if (StringUtils.isBlank(nodeId)) {
+            nodeId = tryCalculateNodeId();
+        }
+
+        log.info("service invocation events are queued in database with node id {}", nodeId);
+        return new DatabaseServiceInvocationEventQueue(serviceInvocationEventRepository,
+                serviceInvocationEventQueueProperties, nodeId);
+    }
+
+    private String tryCalculateNodeId() {
+        String hostName = null;
+        try {
+            hostName = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            log.warn("cannot resolve local host name", e);
+            hostName = "unknown";
+        }
+
+        return hostName + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,125 @@
+package com.webank.wecube.platform.workflow.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "platform.workflow.event-queue")
+public class ServiceInvocationEventQueueProperties {
+    public static final String TYPE_DATABASE = "database";
+    public static final String TYPE_MEMORY = "memory";
+
+    private String type = TYPE_DATABASE;
+    private String nodeId;
+    private int workerThreads = 0;
+    private double ioWaitRatio = 1.0;
+    private int maxWorkerThreads = 64;
+    private int claimBatchSize = 10;
+    private long pollIntervalMillis = 500;
+    private int leaseSeconds = 300;
+    private int maxRetryTimes = 3;
+    private long retryBackoffMillis = 1000;
+    private long maxRetryBackoffMillis = 60000;
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public void setWorkerThreads(int workerThreads) {
+        this.workerThreads = workerThreads;
+    }
+
+    public double getIoWaitRatio() {
+        return ioWaitRatio;
+    }
+
+    public void setIoWaitRatio(double ioWaitRatio) {
+        this.ioWaitRatio = ioWaitRatio;
+    }
+
+    public int getMaxWorkerThreads() {
+        return maxWorkerThreads;
+    }
+
+    public void setMaxWorkerThreads(int maxWorkerThreads) {
+        this.maxWorkerThreads = maxWorkerThreads;
+    }
+
+    /**
+     * Explicit worker count if configured, otherwise sized by
+     * cores * (1 + wait/compute ratio) as workers mostly wait on database and
+     * plugin I/O.
+     */
+    public int calculateWorkerThreads() {
+        if (workerThreads > 0) {
+            return workerThreads;
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        int calculated = (int) Math.ceil(cores * (1 + Math.max(0, ioWaitRatio)));
+        return Math.max(1, Math.min(calculated, maxWorkerThreads));
+    }
+
+    public int getClaimBatchSize() {
+        return claimBatchSize;
+    }
+
+    public void setClaimBatchSize(int claimBatchSize) {
+        this.claimBatchSize = claimBatchSize;
+    }
+
+    public long getPollIntervalMillis() {
+        return pollIntervalMillis;
+    }
+
+    public void setPollIntervalMillis(long pollIntervalMillis) {
+        this.pollIntervalMillis = pollIntervalMillis;
+    }
+
+    public int getLeaseSeconds() {
+        return leaseSeconds;
+    }
+
+    public void setLeaseSeconds(int leaseSeconds) {
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    public int getMaxRetryTimes() {
+        return maxRetryTimes;
+    }
+
+    public void setMaxRetryTimes(int maxRetryTimes) {
+        this.maxRetryTimes = maxRetryTimes;
+    }
+
+    public long getRetryBackoffMillis() {
+        return retryBackoffMillis;
+    }
+
+    public void setRetryBackoffMillis(long retryBackoffMillis) {
+        this.retryBackoffMillis = retryBackoffMillis;
+    }
+
+    public long getMaxRetryBackoffMillis() {
+        return maxRetryBackoffMillis;
+    }
+
+    public void setMaxRetryBackoffMillis(long maxRetryBackoffMillis) {
+        this.maxRetryBackoffMillis = maxRetryBackoffMillis;
+    }
+
+}
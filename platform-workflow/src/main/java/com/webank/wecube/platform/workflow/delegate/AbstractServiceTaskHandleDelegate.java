@@ -47,7 +47,9 @@ public abstract class AbstractServiceTaskHandleDelegate implements JavaDelegate
         }
 
         try {
-            QueueHolder.putServiceInvocationEvent(serviceInvocationEvent(execution, procDef));
+            ServiceInvocationEventQueue serviceInvocationEventQueue = SpringApplicationContextUtil
+                    .getBean(ServiceInvocationEventQueue.class);
+            serviceInvocationEventQueue.put(serviceInvocationEvent(execution, procDef));
         } catch (Throwable e) {
             getLogger().warn("plugin invocation errors", e);
             throw e;
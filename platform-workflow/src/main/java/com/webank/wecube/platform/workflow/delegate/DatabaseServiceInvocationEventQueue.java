@@ -0,0 +1,272 @@
+package com.webank.wecube.platform.workflow.delegate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.webank.wecube.platform.workflow.config.ServiceInvocationEventQueueProperties;
+import com.webank.wecube.platform.workflow.entity.ServiceInvocationEventEntity;
+import com.webank.wecube.platform.workflow.model.ServiceInvocationEvent;
+import com.webank.wecube.platform.workflow.model.ServiceInvocationEventImpl;
+import com.webank.wecube.platform.workflow.repository.ServiceInvocationEventRepository;
+
+/**
+ * Outbox table based event queue shared by all platform nodes.
+ * <p>
+ * Events written inside the engine transaction only become visible once it
+ * commits. Consumers claim events with a lease, an event whose lease expired
+ * before being acknowledged (e.g. the owner node crashed) is claimable again
+ * by any node. Leases of events held by a live node are renewed every third
+ * of the lease period until they are acknowledged or requeued, so that a slow
+ * invocation never loses its event to another node.
+ * 
+ * @author gavin
+ *
+ */
+public class DatabaseServiceInvocationEventQueue implements ServiceInvocationEventQueue {
+    private static final Logger log = LoggerFactory.getLogger(DatabaseServiceInvocationEventQueue.class);
+
+    private final ServiceInvocationEventRepository serviceInvocationEventRepository;
+
+    private final ServiceInvocationEventQueueProperties properties;
+
+    private final String nodeId;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Semaphore arrivalSignal = new Semaphore(0);
+
+    private final Set<String> ownedEventIds = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService leaseRenewer = Executors
+            .newSingleThreadScheduledExecutor(new CustomizableThreadFactory("srv-event-lease-"));
+
+    public DatabaseServiceInvocationEventQueue(ServiceInvocationEventRepository serviceInvocationEventRepository,
+            ServiceInvocationEventQueueProperties properties, String nodeId) {
+        this.serviceInvocationEventRepository = serviceInvocationEventRepository;
+        this.properties = properties;
+        this.nodeId = nodeId;
+
+        long renewIntervalMillis = Math.max(1000L, TimeUnit.SECONDS.toMillis(properties.getLeaseSeconds()) / 3);
+        leaseRenewer.scheduleWithFixedDelay(this::renewLeases, renewIntervalMillis, renewIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        leaseRenewer.shutdownNow();
+    }
+
+    @Override
+    public void put(ServiceInvocationEvent event) throws InterruptedException {
+        ServiceInvocationEventEntity entity = toEntity(event);
+        serviceInvocationEventRepository.save(entity);
+
+        if (log.isDebugEnabled()) {
+            log.debug("stored service invocation event {} {} {}", entity.getId(), entity.getEventType(),
+                    entity.getEventSourceId());
+        }
+
+        signalAfterCommit();
+    }
+
+    @Override
+    public List<ServiceInvocationEvent> poll(int maxEvents, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            List<ServiceInvocationEvent> claimedEvents = tryClaimEvents(maxEvents);
+            if (!claimedEvents.isEmpty()) {
+                return claimedEvents;
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return claimedEvents;
+            }
+
+            long waitNanos = Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(properties.getPollIntervalMillis()));
+            if (arrivalSignal.tryAcquire(waitNanos, TimeUnit.NANOSECONDS)) {
+                arrivalSignal.drainPermits();
+            }
+        }
+    }
+
+    @Override
+    public void acknowledge(ServiceInvocationEvent event) {
+        if (StringUtils.isBlank(event.getEventId())) {
+            return;
+        }
+
+        ownedEventIds.remove(event.getEventId());
+        int ret = serviceInvocationEventRepository.deleteEvent(event.getEventId(), nodeId);
+        if (ret <= 0) {
+            log.warn("event {} is no longer owned by {} and cannot be acknowledged", event.getEventId(), nodeId);
+        }
+    }
+
+    @Override
+    public void requeue(ServiceInvocationEvent event) {
+        if (StringUtils.isBlank(event.getEventId())) {
+            return;
+        }
+
+        ownedEventIds.remove(event.getEventId());
+        int ret = serviceInvocationEventRepository.release(event.getEventId(), nodeId, event.getRetryTimes(),
+                new Date(), ServiceInvocationEventEntity.STATUS_NEW);
+        if (ret <= 0) {
+            log.warn("event {} is no longer owned by {} and cannot be requeued", event.getEventId(), nodeId);
+            return;
+        }
+
+        arrivalSignal.release();
+    }
+
+    private List<ServiceInvocationEvent> tryClaimEvents(int maxEvents) {
+        List<ServiceInvocationEvent> claimedEvents = new ArrayList<ServiceInvocationEvent>();
+        Date now = new Date();
+        List<String> eventIds = serviceInvocationEventRepository
+                .findClaimableEventIds(ServiceInvocationEventEntity.STATUS_NEW, now, PageRequest.of(0, maxEvents));
+        if (eventIds == null || eventIds.isEmpty()) {
+            return claimedEvents;
+        }
+
+        Date leaseExpireTime = new Date(now.getTime() + TimeUnit.SECONDS.toMillis(properties.getLeaseSeconds()));
+        for (String eventId : eventIds) {
+            int ret = serviceInvocationEventRepository.tryClaim(eventId, nodeId, leaseExpireTime, now,
+                    ServiceInvocationEventEntity.STATUS_NEW, ServiceInvocationEventEntity.STATUS_CLAIMED);
+            if (ret <= 0) {
+                log.debug("event {} was claimed by another node", eventId);
+                continue;
+            }
+
+            Optional<ServiceInvocationEventEntity> entityOpt = serviceInvocationEventRepository.findById(eventId);
+            if (!entityOpt.isPresent()) {
+                continue;
+            }
+
+            ownedEventIds.add(eventId);
+            claimedEvents.add(toEvent(entityOpt.get()));
+        }
+
+        return claimedEvents;
+    }
+
+    private void renewLeases() {
+        if (ownedEventIds.isEmpty()) {
+            return;
+        }
+
+        List<String> eventIds = new ArrayList<String>(ownedEventIds);
+        Date now = new Date();
+        Date leaseExpireTime = new Date(now.getTime() + TimeUnit.SECONDS.toMillis(properties.getLeaseSeconds()));
+        try {
+            int ret = serviceInvocationEventRepository.renewLeases(eventIds, nodeId, leaseExpireTime, now,
+                    ServiceInvocationEventEntity.STATUS_CLAIMED);
+            if (ret < eventIds.size()) {
+                log.warn("renewed {} of {} event leases held by {}", ret, eventIds.size(), nodeId);
+            }
+        } catch (Exception e) {
+            log.error("failed to renew event leases held by {}", nodeId, e);
+        }
+    }
+
+    private void signalAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            arrivalSignal.release();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                arrivalSignal.release();
+            }
+        });
+    }
+
+    private ServiceInvocationEventEntity toEntity(ServiceInvocationEvent event) {
+        Date now = new Date();
+        ServiceInvocationEventEntity entity = new ServiceInvocationEventEntity();
+        entity.setId(StringUtils.isBlank(event.getEventId()) ? UUID.randomUUID().toString() : event.getEventId());
+        entity.setEventType(event.getEventType() == null ? null : event.getEventType().name());
+        entity.setStatus(ServiceInvocationEventEntity.STATUS_NEW);
+        entity.setRetryTimes(event.getRetryTimes());
+        entity.setProcDefId(event.getDefinitionId());
+        entity.setProcDefKey(event.getDefinitionKey());
+        entity.setProcDefVersion(event.getDefinitionVersion());
+        entity.setProcInstId(event.getInstanceId());
+        entity.setProcInstKey(event.getBusinessKey());
+        entity.setExecutionId(event.getExecutionId());
+        entity.setEventSourceId(event.getEventSourceId());
+        entity.setEventSourceName(event.getEventSourceName());
+        entity.setAllowedOptions(marshalAllowedOptions(event.getAllowedOptions()));
+        entity.setCreatedTime(now);
+        entity.setUpdatedTime(now);
+        return entity;
+    }
+
+    private ServiceInvocationEvent toEvent(ServiceInvocationEventEntity entity) {
+        ServiceInvocationEventImpl event = new ServiceInvocationEventImpl();
+        event.setEventId(entity.getId());
+        event.setEventType(
+                entity.getEventType() == null ? null : ServiceInvocationEvent.EventType.valueOf(entity.getEventType()));
+        event.setRetryTimes(entity.getRetryTimes());
+        event.setDefinitionId(entity.getProcDefId());
+        event.setDefinitionKey(entity.getProcDefKey());
+        event.setDefinitionVersion(entity.getProcDefVersion());
+        event.setInstanceId(entity.getProcInstId());
+        event.setBusinessKey(entity.getProcInstKey());
+        event.setExecutionId(entity.getExecutionId());
+        event.setEventSourceId(entity.getEventSourceId());
+        event.setEventSourceName(entity.getEventSourceName());
+
+        List<String> allowedOptions = unmarshalAllowedOptions(entity.getAllowedOptions());
+        for (String option : allowedOptions) {
+            event.addAllowedOption(option);
+        }
+        return event;
+    }
+
+    private String marshalAllowedOptions(List<String> allowedOptions) {
+        if (allowedOptions == null || allowedOptions.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(allowedOptions);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to marshal allowed options.", e);
+        }
+    }
+
+    private List<String> unmarshalAllowedOptions(String allowedOptions) {
+        if (StringUtils.isBlank(allowedOptions)) {
+            return new ArrayList<String>();
+        }
+        try {
+            return objectMapper.readValue(allowedOptions, new TypeReference<List<String>>() {
+            });
+        } catch (IOException e) {
+            log.warn("cannot unmarshal allowed options:{}", allowedOptions, e);
+            return new ArrayList<String>();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.webank.wecube.platform.workflow.delegate;
+
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+import com.webank.wecube.platform.workflow.model.ServiceInvocationEvent;
+
+/**
+ * 
+ * @author gavin
+ *
+ */
+public class DeferredServiceInvocationEvent implements Delayed {
+
+    private final ServiceInvocationEvent event;
+
+    private final long dueTimeNanos;
+
+    public DeferredServiceInvocationEvent(ServiceInvocationEvent event, long delayMillis) {
+        this.event = event;
+        this.dueTimeNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+    }
+
+    public ServiceInvocationEvent getEvent() {
+        return event;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(dueTimeNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed o) {
+        if (o == this) {
+            return 0;
+        }
+
+        if (o instanceof DeferredServiceInvocationEvent) {
+            long diff = dueTimeNanos - ((DeferredServiceInvocationEvent) o).dueTimeNanos;
+            return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+        }
+
+        return Long.compare(getDelay(TimeUnit.NANOSECONDS), o.getDelay(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public String toString() {
+        return "DeferredServiceInvocationEvent [event=" + event + ", delayMillis=" + getDelay(TimeUnit.MILLISECONDS)
+                + "]";
+    }
+}
@@ -0,0 +1,52 @@
+package com.webank.wecube.platform.workflow.delegate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.webank.wecube.platform.workflow.model.ServiceInvocationEvent;
+
+/**
+ * Single node event queue, events are lost on restart.
+ * 
+ * @author gavin
+ *
+ */
+public class InMemoryServiceInvocationEventQueue implements ServiceInvocationEventQueue {
+
+    private final BlockingQueue<ServiceInvocationEvent> events = new LinkedBlockingQueue<ServiceInvocationEvent>();
+
+    @Override
+    public void put(ServiceInvocationEvent event) throws InterruptedException {
+        events.put(event);
+    }
+
+    @Override
+    public List<ServiceInvocationEvent> poll(int maxEvents, long timeout, TimeUnit unit) throws InterruptedException {
+        List<ServiceInvocationEvent> polledEvents = new ArrayList<ServiceInvocationEvent>();
+        ServiceInvocationEvent event = events.poll(timeout, unit);
+        if (event == null) {
+            return polledEvents;
+        }
+
+        polledEvents.add(event);
+        if (maxEvents > 1) {
+            events.drainTo(polledEvents, maxEvents - 1);
+        }
+
+        return polledEvents;
+    }
+
+    @Override
+    public void acknowledge(ServiceInvocationEvent event) {
+        // nothing to do as the event was already removed while polling
+    }
+
+    @Override
+    public void requeue(ServiceInvocationEvent event) {
+        events.offer(event);
+    }
+
+}
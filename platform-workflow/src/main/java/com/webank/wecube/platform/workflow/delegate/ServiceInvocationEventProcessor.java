@@ -1,8 +1,14 @@
 package com.webank.wecube.platform.workflow.delegate;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.DelayQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
@@ -11,10 +17,17 @@ import javax.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 
+import com.webank.wecube.platform.workflow.config.ServiceInvocationEventQueueProperties;
 import com.webank.wecube.platform.workflow.model.ServiceInvocationEvent;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 /**
  * 
  * @author gavin
@@ -24,37 +37,97 @@ import com.webank.wecube.platform.workflow.model.ServiceInvocationEvent;
 public class ServiceInvocationEventProcessor implements Runnable {
     private static final Logger log = LoggerFactory.getLogger(ServiceInvocationEventProcessor.class);
 
-    private ExecutorService masterExecutor = Executors.newFixedThreadPool(1);
+    private static final String METRIC_PREFIX = "wecube.workflow.event";
+
+    private ExecutorService masterExecutor = Executors.newFixedThreadPool(2,
+            new CustomizableThreadFactory("srv-event-master-"));
+
+    private ThreadPoolExecutor slaveExecutor;
+
+    private DelayQueue<DeferredServiceInvocationEvent> deferredEvents = new DelayQueue<DeferredServiceInvocationEvent>();
 
-    private ExecutorService slaveExecutor = Executors.newFixedThreadPool(3);
+    private Semaphore processingSlots;
 
-    private int maxRetryTimes = 1;
+    private volatile boolean needStop;
 
-    private boolean needStop;
+    private Counter processedCounter;
+
+    private Counter retriedCounter;
+
+    private Counter droppedCounter;
 
     @Autowired
     private ServiceInvocationEventResolver serviceInvocationEventResolver;
 
+    @Autowired
+    private ServiceInvocationEventQueue serviceInvocationEventQueue;
+
+    @Autowired
+    private ServiceInvocationEventQueueProperties serviceInvocationEventQueueProperties;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
     @PostConstruct
     public void afterPropertiesSet() {
-        log.info("{} is ready", ServiceInvocationEventProcessor.class.getSimpleName());
+        int workerThreads = serviceInvocationEventQueueProperties.calculateWorkerThreads();
+        slaveExecutor = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), new CustomizableThreadFactory("srv-event-worker-"));
+        // claim no more events than the workers could take soon, so that
+        // leases of claimed events do not expire while waiting in memory
+        processingSlots = new Semaphore(workerThreads * 2);
+
+        registerMetrics();
+
+        log.info("{} is ready with {} workers", ServiceInvocationEventProcessor.class.getSimpleName(), workerThreads);
         start();
     }
 
     @PreDestroy
     public void preDestroy() {
         log.info("try to destroy {} ", ServiceInvocationEventProcessor.class.getSimpleName());
+        setNeedStop(true);
         if (masterExecutor != null) {
-            masterExecutor.shutdown();
+            masterExecutor.shutdownNow();
         }
 
         if (slaveExecutor != null) {
             slaveExecutor.shutdown();
         }
+
+        // hand pending retries back to the queue so that other nodes could
+        // pick them up without waiting for their leases to expire
+        List<DeferredServiceInvocationEvent> pendingEvents = new ArrayList<DeferredServiceInvocationEvent>();
+        deferredEvents.drainTo(pendingEvents);
+        for (DeferredServiceInvocationEvent pendingEvent : pendingEvents) {
+            requeueSilently(pendingEvent.getEvent());
+        }
+    }
+
+    private void registerMetrics() {
+        if (meterRegistry == null) {
+            meterRegistry = new SimpleMeterRegistry();
+        }
+
+        processedCounter = Counter.builder(METRIC_PREFIX + ".processed")
+                .description("service invocation events resolved successfully").register(meterRegistry);
+        retriedCounter = Counter.builder(METRIC_PREFIX + ".retried")
+                .description("service invocation events scheduled for a deferred retry").register(meterRegistry);
+        droppedCounter = Counter.builder(METRIC_PREFIX + ".dropped")
+                .description("service invocation events abandoned on non-transient errors or after exhausting retries")
+                .register(meterRegistry);
+
+        Gauge.builder(METRIC_PREFIX + ".deferred", deferredEvents, DelayQueue::size)
+                .description("service invocation events waiting for retry").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".workers.active", slaveExecutor, ThreadPoolExecutor::getActiveCount)
+                .description("service invocation event workers currently busy").register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".workers.queued", slaveExecutor, e -> e.getQueue().size())
+                .description("service invocation events waiting for a worker").register(meterRegistry);
     }
 
     private void start() {
         masterExecutor.execute(this);
+        masterExecutor.execute(this::runDeferredEvents);
     }
 
     public boolean isNeedStop() {
@@ -69,60 +142,150 @@ public class ServiceInvocationEventProcessor implements Runnable {
     public void run() {
         log.info("{} start to work", ServiceInvocationEventProcessor.class.getSimpleName());
 
-        long startTime = System.currentTimeMillis();
         while (!isNeedStop()) {
             try {
-                ServiceInvocationEvent event = QueueHolder.pollServiceInvocationEvent(1000, TimeUnit.MILLISECONDS);
-
-                if (event != null) {
-                    processServiceInvocationEvent(event);
+                int slots = acquireProcessingSlots();
+                if (slots <= 0) {
+                    continue;
                 }
 
-                if ((System.currentTimeMillis() - startTime) > (1000 * 6)) {
-                    startTime = System.currentTimeMillis();
-                    ServiceInvocationEvent deferredEvent = QueueHolder.pollDeferredServiceInvocationEvent();
-                    if (deferredEvent != null) {
-                        log.info("process deferred event {}", deferredEvent);
-                        processServiceInvocationEvent(deferredEvent);
-                    }
+                List<ServiceInvocationEvent> events = serviceInvocationEventQueue.poll(slots, 1000,
+                        TimeUnit.MILLISECONDS);
+                processingSlots.release(slots - events.size());
+
+                for (ServiceInvocationEvent event : events) {
+                    processServiceInvocationEvent(event);
                 }
+            } catch (InterruptedException e) {
+                log.info("processor was interrupted");
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("errors while polling service invocation events", e);
+                sleepSilently(serviceInvocationEventQueueProperties.getPollIntervalMillis());
+            }
+        }
+    }
 
+    /**
+     * Hands deferred events back to the workers as soon as their backoff
+     * elapses, independently of the arrival of fresh events.
+     */
+    private void runDeferredEvents() {
+        while (!isNeedStop()) {
+            try {
+                DeferredServiceInvocationEvent deferredEvent = deferredEvents.take();
+                log.info("process deferred event {}", deferredEvent.getEvent());
+                processingSlots.acquire();
+                processServiceInvocationEvent(deferredEvent.getEvent());
             } catch (InterruptedException e) {
-                log.error("errors while running processor", e);
+                log.info("deferred event dispatcher was interrupted");
                 Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("errors while dispatching deferred events", e);
             }
         }
     }
 
-    private void processServiceInvocationEvent(ServiceInvocationEvent event) throws InterruptedException {
+    private int acquireProcessingSlots() throws InterruptedException {
+        if (!processingSlots.tryAcquire(1000, TimeUnit.MILLISECONDS)) {
+            return 0;
+        }
+
+        int maxSlots = Math.max(1, serviceInvocationEventQueueProperties.getClaimBatchSize());
+        int extraSlots = Math.min(processingSlots.availablePermits(), maxSlots - 1);
+        if (extraSlots > 0 && processingSlots.tryAcquire(extraSlots)) {
+            return extraSlots + 1;
+        }
+
+        return 1;
+    }
+
+    private void processServiceInvocationEvent(ServiceInvocationEvent event) {
         try {
-            slaveExecutor
-                    .submit(new ServiceInvocationEventWorker(event, this.serviceInvocationEventResolver));
+            slaveExecutor.submit(new ServiceInvocationEventWorker(event));
         } catch (Exception e) {
+            // the event was never resolved, so it does not consume a retry
             log.error("errors while processing event", e);
-            event.increaseRetryTimes();
+            processingSlots.release();
+            requeueSilently(event);
+        }
+    }
 
-            if (event.getRetryTimes() < maxRetryTimes) {
-                log.info("retry and put back to deffered queue,{}", event);
-                QueueHolder.putDeferredServiceInvocationEvent(event);
-            } else {
-                log.error("event was abandoned due to resolvation errors, details:{}", event);
-            }
+    /**
+     * Only transient failures are retried, others would fail again the same
+     * way and are dropped at once.
+     */
+    private void retryOrDrop(ServiceInvocationEvent event, Exception failure) {
+        if (!ServiceInvocationFailures.isTransient(failure)) {
+            log.error("event was abandoned due to non-transient resolvation errors, details:{}", event);
+            droppedCounter.increment();
+            acknowledgeSilently(event);
+            return;
+        }
+
+        event.increaseRetryTimes();
+
+        if (event.getRetryTimes() <= serviceInvocationEventQueueProperties.getMaxRetryTimes()) {
+            long delayMillis = calculateBackoffMillis(event.getRetryTimes());
+            log.info("retry in {} ms and put back to deferred queue,{}", delayMillis, event);
+            deferredEvents.put(new DeferredServiceInvocationEvent(event, delayMillis));
+            retriedCounter.increment();
+        } else {
+            log.error("event was abandoned due to resolvation errors, details:{}", event);
+            droppedCounter.increment();
+            acknowledgeSilently(event);
+        }
+    }
+
+    private long calculateBackoffMillis(int retryTimes) {
+        long baseMillis = Math.max(1, serviceInvocationEventQueueProperties.getRetryBackoffMillis());
+        long maxMillis = Math.max(baseMillis, serviceInvocationEventQueueProperties.getMaxRetryBackoffMillis());
+        int shift = Math.min(Math.max(0, retryTimes - 1), 30);
+        long delayMillis = baseMillis << shift;
+        if (delayMillis <= 0 || delayMillis > maxMillis) {
+            return maxMillis;
+        }
+
+        return delayMillis;
+    }
+
+    private void acknowledgeSilently(ServiceInvocationEvent event) {
+        try {
+            serviceInvocationEventQueue.acknowledge(event);
+        } catch (Exception e) {
+            log.error("failed to acknowledge event {}", event.getEventId(), e);
+        }
+    }
+
+    private void requeueSilently(ServiceInvocationEvent event) {
+        try {
+            serviceInvocationEventQueue.requeue(event);
+        } catch (Exception e) {
+            log.error("failed to requeue event {}", event.getEventId(), e);
+        }
+    }
+
+    private void sleepSilently(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
-    private static class ServiceInvocationEventWorker implements Callable<Integer> {
+    private class ServiceInvocationEventWorker implements Callable<Integer> {
 
         public static final int EXECUTION_SUCC = 1;
 
-        private ServiceInvocationEvent event;
+        public static final int EXECUTION_FAIL = 0;
 
-        private ServiceInvocationEventResolver resolver;
+        private ServiceInvocationEvent event;
 
-        public ServiceInvocationEventWorker(ServiceInvocationEvent event, ServiceInvocationEventResolver resolver) {
+        public ServiceInvocationEventWorker(ServiceInvocationEvent event) {
             super();
             this.event = event;
-            this.resolver = resolver;
         }
 
         @Override
@@ -131,12 +294,18 @@ public class ServiceInvocationEventProcessor implements Runnable {
             log.debug("{} processing {}", Thread.currentThread().getName(), event);
 
             try {
-                resolver.resolveServiceInvocationEvent(event);
+                serviceInvocationEventResolver.resolveServiceInvocationEvent(event);
             } catch (Exception e) {
                 log.error("resolvation errors", e);
-//                throw e;
+                processingSlots.release();
+                retryOrDrop(event, e);
+                return EXECUTION_FAIL;
             }
 
+            processingSlots.release();
+            processedCounter.increment();
+            acknowledgeSilently(event);
+
             return EXECUTION_SUCC;
         }
 
@@ -0,0 +1,41 @@
+package com.webank.wecube.platform.workflow.delegate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.webank.wecube.platform.workflow.model.ServiceInvocationEvent;
+
+/**
+ * Queue of service invocation events produced by the workflow engine and
+ * consumed by {@link ServiceInvocationEventProcessor}.
+ * <p>
+ * Delivery is at-least-once: an event returned by {@link #poll} stays owned by
+ * the consumer until it is acknowledged or requeued, and implementations may
+ * deliver it again if the consumer never does either.
+ * 
+ * @author gavin
+ *
+ */
+public interface ServiceInvocationEventQueue {
+
+    void put(ServiceInvocationEvent event) throws InterruptedException;
+
+    /**
+     * Claims at most maxEvents events, waiting up to the given time if none is
+     * currently available.
+     * 
+     * @return claimed events, never null
+     */
+    List<ServiceInvocationEvent> poll(int maxEvents, long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Marks a claimed event as processed so that it will not be delivered
+     * again.
+     */
+    void acknowledge(ServiceInvocationEvent event);
+
+    /**
+     * Gives a claimed event back to the queue for another delivery.
+     */
+    void requeue(ServiceInvocationEvent event);
+}
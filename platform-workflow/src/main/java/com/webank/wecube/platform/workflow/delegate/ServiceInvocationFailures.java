@@ -0,0 +1,50 @@
+package com.webank.wecube.platform.workflow.delegate;
+
+import java.io.IOException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+
+/**
+ * Tells failures worth another try, such as I/O errors, timeouts and
+ * transient database errors, from failures that would fail again the same way,
+ * such as invalid plugin configurations or missing process instances.
+ *
+ * @author gavin
+ *
+ */
+public final class ServiceInvocationFailures {
+
+    private static final int MAX_CAUSE_DEPTH = 16;
+
+    private ServiceInvocationFailures() {
+    }
+
+    /**
+     * @return true if the failure or any of its causes is transient
+     */
+    public static boolean isTransient(Throwable failure) {
+        Throwable t = failure;
+        for (int depth = 0; t != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            if (isTransientType(t)) {
+                return true;
+            }
+
+            if (t.getCause() == t) {
+                break;
+            }
+            t = t.getCause();
+        }
+
+        return false;
+    }
+
+    private static boolean isTransientType(Throwable t) {
+        return (t instanceof IOException) || (t instanceof TimeoutException)
+                || (t instanceof SQLTransientException) || (t instanceof SQLRecoverableException)
+                || (t instanceof TransientDataAccessException) || (t instanceof RecoverableDataAccessException);
+    }
+}
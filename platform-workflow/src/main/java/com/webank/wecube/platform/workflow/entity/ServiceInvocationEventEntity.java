@@ -0,0 +1,204 @@
+package com.webank.wecube.platform.workflow.entity;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+@Entity
+@Table(name = "ACT_RU_SRV_INVOKE_EVENT")
+public class ServiceInvocationEventEntity {
+    public static final String STATUS_NEW = "New";
+    public static final String STATUS_CLAIMED = "Claimed";
+
+    @Id
+    @Column(name = "ID")
+    private String id;
+
+    @Column(name = "EVENT_TYPE")
+    private String eventType;
+
+    @Column(name = "STATUS")
+    private String status;
+
+    @Column(name = "OWNER")
+    private String owner;
+
+    @Column(name = "LEASE_EXPIRE_TIME")
+    private Date leaseExpireTime;
+
+    @Column(name = "RETRY_TIMES")
+    private int retryTimes;
+
+    @Column(name = "PROC_DEF_ID")
+    private String procDefId;
+
+    @Column(name = "PROC_DEF_KEY")
+    private String procDefKey;
+
+    @Column(name = "PROC_DEF_VER")
+    private int procDefVersion;
+
+    @Column(name = "PROC_INST_ID")
+    private String procInstId;
+
+    @Column(name = "PROC_INST_KEY")
+    private String procInstKey;
+
+    @Column(name = "EXEC_ID")
+    private String executionId;
+
+    @Column(name = "EVENT_SRC_ID")
+    private String eventSourceId;
+
+    @Column(name = "EVENT_SRC_NAME")
+    private String eventSourceName;
+
+    @Column(name = "ALLOWED_OPTIONS", columnDefinition = "text")
+    private String allowedOptions;
+
+    @Column(name = "CREATED_TIME")
+    private Date createdTime;
+
+    @Column(name = "UPDATED_TIME")
+    private Date updatedTime;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Date getLeaseExpireTime() {
+        return leaseExpireTime;
+    }
+
+    public void setLeaseExpireTime(Date leaseExpireTime) {
+        this.leaseExpireTime = leaseExpireTime;
+    }
+
+    public int getRetryTimes() {
+        return retryTimes;
+    }
+
+    public void setRetryTimes(int retryTimes) {
+        this.retryTimes = retryTimes;
+    }
+
+    public String getProcDefId() {
+        return procDefId;
+    }
+
+    public void setProcDefId(String procDefId) {
+        this.procDefId = procDefId;
+    }
+
+    public String getProcDefKey() {
+        return procDefKey;
+    }
+
+    public void setProcDefKey(String procDefKey) {
+        this.procDefKey = procDefKey;
+    }
+
+    public int getProcDefVersion() {
+        return procDefVersion;
+    }
+
+    public void setProcDefVersion(int procDefVersion) {
+        this.procDefVersion = procDefVersion;
+    }
+
+    public String getProcInstId() {
+        return procInstId;
+    }
+
+    public void setProcInstId(String procInstId) {
+        this.procInstId = procInstId;
+    }
+
+    public String getProcInstKey() {
+        return procInstKey;
+    }
+
+    public void setProcInstKey(String procInstKey) {
+        this.procInstKey = procInstKey;
+    }
+
+    public String getExecutionId() {
+        return executionId;
+    }
+
+    public void setExecutionId(String executionId) {
+        this.executionId = executionId;
+    }
+
+    public String getEventSourceId() {
+        return eventSourceId;
+    }
+
+    public void setEventSourceId(String eventSourceId) {
+        this.eventSourceId = eventSourceId;
+    }
+
+    public String getEventSourceName() {
+        return eventSourceName;
+    }
+
+    public void setEventSourceName(String eventSourceName) {
+        this.eventSourceName = eventSourceName;
+    }
+
+    public String getAllowedOptions() {
+        return allowedOptions;
+    }
+
+    public void setAllowedOptions(String allowedOptions) {
+        this.allowedOptions = allowedOptions;
+    }
+
+    public Date getCreatedTime() {
+        return createdTime;
+    }
+
+    public void setCreatedTime(Date createdTime) {
+        this.createdTime = createdTime;
+    }
+
+    public Date getUpdatedTime() {
+        return updatedTime;
+    }
+
+    public void setUpdatedTime(Date updatedTime) {
+        this.updatedTime = updatedTime;
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.webank.wecube.platform.workflow.repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.webank.wecube.platform.workflow.entity.ServiceInvocationEventEntity;
+
+public interface ServiceInvocationEventRepository extends JpaRepository<ServiceInvocationEventEntity, String> {
+
+    @Query("select e.id from ServiceInvocationEventEntity e "
+            + " where e.status = :newStatus or e.leaseExpireTime < :now order by e.createdTime")
+    List<String> findClaimableEventIds(@Param("newStatus") String newStatus, @Param("now") Date now,
+            Pageable pageable);
+
+    /**
+     * Claims an event with a lease, only one of the competing nodes could
+     * succeed since the update is conditional on the current state.
+     * 
+     * @return 1 if claimed, otherwise 0
+     */
+    @Modifying
+    @Transactional
+    @Query("update ServiceInvocationEventEntity e set e.status = :claimedStatus, e.owner = :owner, "
+            + " e.leaseExpireTime = :leaseExpireTime, e.updatedTime = :now "
+            + " where e.id = :id and (e.status = :newStatus or e.leaseExpireTime < :now)")
+    int tryClaim(@Param("id") String id, @Param("owner") String owner, @Param("leaseExpireTime") Date leaseExpireTime,
+            @Param("now") Date now, @Param("newStatus") String newStatus,
+            @Param("claimedStatus") String claimedStatus);
+
+    @Modifying
+    @Transactional
+    @Query("update ServiceInvocationEventEntity e set e.status = :newStatus, e.owner = null, "
+            + " e.leaseExpireTime = null, e.retryTimes = :retryTimes, e.updatedTime = :now "
+            + " where e.id = :id and e.owner = :owner")
+    int release(@Param("id") String id, @Param("owner") String owner, @Param("retryTimes") int retryTimes,
+            @Param("now") Date now, @Param("newStatus") String newStatus);
+
+    /**
+     * Extends the leases of events still owned by the given node.
+     * 
+     * @return count of events renewed
+     */
+    @Modifying
+    @Transactional
+    @Query("update ServiceInvocationEventEntity e set e.leaseExpireTime = :leaseExpireTime, e.updatedTime = :now "
+            + " where e.id in :ids and e.owner = :owner and e.status = :claimedStatus")
+    int renewLeases(@Param("ids") Collection<String> ids, @Param("owner") String owner,
+            @Param("leaseExpireTime") Date leaseExpireTime, @Param("now") Date now,
+            @Param("claimedStatus") String claimedStatus);
+
+    @Modifying
+    @Transactional
+    @Query("delete from ServiceInvocationEventEntity e where e.id = :id and e.owner = :owner")
+    int deleteEvent(@Param("id") String id, @Param("owner") String owner);
+}
@@ -0,0 +1,47 @@
+package com.webank.wecube.platform.workflow.delegate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.SocketTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+
+public class ServiceInvocationFailuresTest {
+
+    @Test
+    public void givenIoOrTimeoutFailureWhenCheckingThenTransient() {
+        assertThat(ServiceInvocationFailures.isTransient(new SocketTimeoutException("read timed out"))).isTrue();
+        assertThat(ServiceInvocationFailures.isTransient(new TimeoutException())).isTrue();
+    }
+
+    @Test
+    public void givenTransientDatabaseFailureWhenCheckingThenTransient() {
+        assertThat(ServiceInvocationFailures.isTransient(new CannotAcquireLockException("lock wait timeout")))
+                .isTrue();
+        assertThat(ServiceInvocationFailures.isTransient(new QueryTimeoutException("query timeout"))).isTrue();
+        assertThat(ServiceInvocationFailures.isTransient(new SQLTransientConnectionException())).isTrue();
+    }
+
+    @Test
+    public void givenTransientCauseWhenCheckingThenTransient() {
+        RuntimeException failure = new RuntimeException("failed to invoke plugin",
+                new IllegalStateException(new SocketTimeoutException("connect timed out")));
+
+        assertThat(ServiceInvocationFailures.isTransient(failure)).isTrue();
+    }
+
+    @Test
+    public void givenNonTransientFailureWhenCheckingThenNotTransient() {
+        assertThat(ServiceInvocationFailures.isTransient(new NoSuchElementException("No value present"))).isFalse();
+        assertThat(ServiceInvocationFailures.isTransient(new IllegalArgumentException("invalid node id"))).isFalse();
+        assertThat(ServiceInvocationFailures.isTransient(new DataIntegrityViolationException("duplicate key")))
+                .isFalse();
+        assertThat(ServiceInvocationFailures.isTransient(null)).isFalse();
+    }
+}